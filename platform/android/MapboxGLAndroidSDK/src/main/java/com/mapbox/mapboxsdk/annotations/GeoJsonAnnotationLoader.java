@@ -0,0 +1,420 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>
+ * Loads the features of a GeoJSON document as annotations, without holding the document in memory.
+ * </p>
+ * The document is parsed with a {@link JsonReader} on a worker thread. Points become markers, line
+ * strings become polylines and the outer rings of polygons become polygons. Annotations are added to
+ * the map on the main thread in batches, the worker waits for a batch to be added before building the
+ * next one, so at most one batch of annotations is held besides the ones on the map.
+ * <p>
+ * The {@code title} and {@code snippet} properties of point features are used for their markers.
+ * </p>
+ */
+public final class GeoJsonAnnotationLoader {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final MapboxMap mMapboxMap;
+    private final Handler mHandler;
+    private final Semaphore mPendingBatch = new Semaphore(1);
+
+    private int mBatchSize = DEFAULT_BATCH_SIZE;
+    private LoadCallback mCallback;
+    private Thread mThread;
+    private volatile boolean mCancelled;
+
+    // accessed on the main thread only
+    private int mAnnotationCount;
+
+    public GeoJsonAnnotationLoader(@NonNull MapboxMap mapboxMap) {
+        this(mapboxMap, new Handler(Looper.getMainLooper()));
+    }
+
+    GeoJsonAnnotationLoader(@NonNull MapboxMap mapboxMap, @NonNull Handler handler) {
+        mMapboxMap = mapboxMap;
+        mHandler = handler;
+    }
+
+    /**
+     * Sets the number of annotations added to the map at once.
+     *
+     * @param batchSize the number of annotations of a batch, {@link #DEFAULT_BATCH_SIZE} by default
+     * @return this loader
+     */
+    public GeoJsonAnnotationLoader setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be positive, was " + batchSize);
+        }
+        mBatchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the callback notified on the main thread of the progress of the load.
+     *
+     * @param callback the callback, or null
+     * @return this loader
+     */
+    public GeoJsonAnnotationLoader setCallback(@Nullable LoadCallback callback) {
+        mCallback = callback;
+        return this;
+    }
+
+    /**
+     * Starts loading a GeoJSON document. The stream is read on a worker thread and closed once the
+     * load has completed, failed or has been cancelled.
+     * <p>
+     * A loader can only be started once.
+     * </p>
+     *
+     * @param inputStream the UTF-8 encoded GeoJSON document
+     */
+    public void load(@NonNull InputStream inputStream) {
+        load(new JsonReader(new InputStreamReader(inputStream, UTF_8)));
+    }
+
+    void load(@NonNull final JsonReader reader) {
+        if (mThread != null) {
+            throw new IllegalStateException("GeoJsonAnnotationLoader can only be started once");
+        }
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Batch batch = new Batch();
+                    batch = readGeoJson(reader, batch);
+                    commit(batch, true);
+                } catch (IOException | RuntimeException exception) {
+                    // unexpected values surface as runtime exceptions of the reader or of the annotations
+                    if (!mCancelled) {
+                        postError(exception.toString());
+                    }
+                } catch (InterruptedException exception) {
+                    // cancelled while waiting for the main thread
+                } finally {
+                    try {
+                        reader.close();
+                    } catch (IOException exception) {
+                        // nothing left to read
+                    }
+                }
+            }
+        }, "GeoJsonAnnotationLoader");
+        mThread.start();
+    }
+
+    /**
+     * Stops loading. Annotations already added to the map are kept, no callback is invoked afterwards.
+     * Must be called on the main thread.
+     */
+    public void cancel() {
+        mCancelled = true;
+        if (mThread != null) {
+            mThread.interrupt();
+        }
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    private Batch readGeoJson(JsonReader reader, Batch batch) throws IOException, InterruptedException {
+        // the type of an object may come after its members, members are read according to their names
+        reader.beginObject();
+        String type = null;
+        String title = null;
+        String snippet = null;
+        Coordinates coordinates = null;
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("type")) {
+                type = reader.nextString();
+            } else if (name.equals("features") || name.equals("geometries")) {
+                reader.beginArray();
+                while (reader.hasNext() && !mCancelled) {
+                    batch = readGeoJson(reader, batch);
+                }
+                if (mCancelled) {
+                    throw new InterruptedException();
+                }
+                reader.endArray();
+            } else if (name.equals("geometry") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                coordinates = readGeometry(reader);
+            } else if (name.equals("properties") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String property = reader.nextName();
+                    if (property.equals("title") && reader.peek() == JsonToken.STRING) {
+                        title = reader.nextString();
+                    } else if (property.equals("snippet") && reader.peek() == JsonToken.STRING) {
+                        snippet = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if (name.equals("coordinates") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                coordinates = new Coordinates();
+                coordinates.read(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (coordinates != null) {
+            String geometryType = "Feature".equals(type) ? coordinates.type : type;
+            if (geometryType != null) {
+                batch = addGeometry(geometryType, coordinates, title, snippet, batch);
+            }
+        }
+        return batch;
+    }
+
+    private Coordinates readGeometry(JsonReader reader) throws IOException {
+        reader.beginObject();
+        String type = null;
+        Coordinates coordinates = null;
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("type")) {
+                type = reader.nextString();
+            } else if (name.equals("coordinates") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                coordinates = new Coordinates();
+                coordinates.read(reader);
+            } else {
+                // geometry collections of features are not supported
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (coordinates != null) {
+            coordinates.type = type;
+        }
+        return coordinates;
+    }
+
+    private Batch addGeometry(String type, Coordinates coordinates, String title, String snippet, Batch batch)
+            throws InterruptedException {
+        switch (type) {
+            case "Point":
+            case "MultiPoint":
+                for (int i = 0; i < coordinates.size; i += 2) {
+                    MarkerOptions markerOptions = new MarkerOptions()
+                            .position(new LatLng(coordinates.values[i], coordinates.values[i + 1]));
+                    if (title != null) {
+                        markerOptions.title(title);
+                    }
+                    if (snippet != null) {
+                        markerOptions.snippet(snippet);
+                    }
+                    batch.markers.add(markerOptions);
+                    batch = commitIfFull(batch);
+                }
+                break;
+
+            case "LineString":
+            case "MultiLineString":
+                for (int line = 0; line < coordinates.lineCount; line++) {
+                    batch.polylines.add(new PolylineOptions().addAll(coordinates.getLine(line)));
+                    batch = commitIfFull(batch);
+                }
+                break;
+
+            case "Polygon":
+            case "MultiPolygon":
+                for (int polygon = 0; polygon < coordinates.polygonCount; polygon++) {
+                    // holes are not supported by polygon annotations
+                    int outerRing = polygon == 0 ? 0 : coordinates.polygonEnds[polygon - 1];
+                    batch.polygons.add(new PolygonOptions().addAll(coordinates.getLine(outerRing)));
+                    batch = commitIfFull(batch);
+                }
+                break;
+
+            default:
+                break;
+        }
+        return batch;
+    }
+
+    private Batch commitIfFull(Batch batch) throws InterruptedException {
+        if (batch.size() < mBatchSize) {
+            return batch;
+        }
+        commit(batch, false);
+        return new Batch();
+    }
+
+    private void commit(final Batch batch, final boolean last) throws InterruptedException {
+        // wait for the previous batch to be added, to hold a single batch in memory
+        mPendingBatch.acquire();
+        if (mCancelled) {
+            throw new InterruptedException();
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mPendingBatch.release();
+                if (mCancelled) {
+                    return;
+                }
+
+                if (!batch.markers.isEmpty()) {
+                    mMapboxMap.addMarkers(batch.markers);
+                }
+                if (!batch.polylines.isEmpty()) {
+                    mMapboxMap.addPolylines(batch.polylines);
+                }
+                if (!batch.polygons.isEmpty()) {
+                    mMapboxMap.addPolygons(batch.polygons);
+                }
+                mAnnotationCount += batch.size();
+
+                if (mCallback != null) {
+                    if (last) {
+                        mCallback.onLoaded(mAnnotationCount);
+                    } else {
+                        mCallback.onProgress(mAnnotationCount);
+                    }
+                }
+            }
+        });
+    }
+
+    private void postError(final String error) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!mCancelled && mCallback != null) {
+                    mCallback.onError(error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Interface definition for a callback to be invoked on the main thread while annotations are loaded.
+     */
+    public interface LoadCallback {
+
+        /**
+         * Called after a batch of annotations has been added to the map.
+         *
+         * @param annotationCount the number of annotations added so far
+         */
+        void onProgress(int annotationCount);
+
+        /**
+         * Called after the last batch of annotations has been added to the map.
+         *
+         * @param annotationCount the number of annotations added
+         */
+        void onLoaded(int annotationCount);
+
+        /**
+         * Called when the document could not be read or parsed. Annotations added before the
+         * error are kept.
+         *
+         * @param error the error message
+         */
+        void onError(String error);
+    }
+
+    private static class Batch {
+        final List<MarkerOptions> markers = new ArrayList<>();
+        final List<PolylineOptions> polylines = new ArrayList<>();
+        final List<PolygonOptions> polygons = new ArrayList<>();
+
+        int size() {
+            return markers.size() + polylines.size() + polygons.size();
+        }
+    }
+
+    /**
+     * The positions of a geometry as interleaved latitude and longitude pairs, with the ends of its
+     * lines and polygons.
+     */
+    private static class Coordinates {
+        String type;
+        double[] values = new double[16];
+        int size;
+        int[] lineEnds = new int[4];
+        int lineCount;
+        int[] polygonEnds = new int[4];
+        int polygonCount;
+
+        /**
+         * Reads a coordinates array of any depth.
+         *
+         * @return the depth of the array, 1 for a position
+         */
+        int read(JsonReader reader) throws IOException {
+            reader.beginArray();
+            if (reader.peek() == JsonToken.NUMBER) {
+                double longitude = reader.nextDouble();
+                double latitude = reader.nextDouble();
+                while (reader.hasNext()) {
+                    // altitudes are not retained
+                    reader.skipValue();
+                }
+                reader.endArray();
+                if (size + 2 > values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                values[size++] = latitude;
+                values[size++] = longitude;
+                return 1;
+            }
+
+            int depth = 1;
+            while (reader.hasNext()) {
+                depth = read(reader);
+            }
+            reader.endArray();
+
+            if (depth == 1) {
+                if (lineCount == lineEnds.length) {
+                    lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+                }
+                lineEnds[lineCount++] = size;
+            } else if (depth == 2) {
+                if (polygonCount == polygonEnds.length) {
+                    polygonEnds = Arrays.copyOf(polygonEnds, polygonCount * 2);
+                }
+                polygonEnds[polygonCount++] = lineCount;
+            }
+            return depth + 1;
+        }
+
+        double[] getLine(int line) {
+            int start = line == 0 ? 0 : lineEnds[line - 1];
+            return Arrays.copyOfRange(values, start, lineEnds[line]);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.util.DisplayMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * Bitmap holding several {@link Icon}s, used to upload many icons to the map at once.
+ * </p>
+ * Icons are packed on shelves sorted by decreasing height. Icons that don't fit in the maximum
+ * atlas size are spread over several atlases.
+ */
+public final class IconAtlas {
+
+    /**
+     * The default maximum width and height of an atlas in pixels.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Bitmap mBitmap;
+    private final int mWidth;
+    private final int mHeight;
+    private final List<Icon> mIcons;
+    private final int[] mRects;
+    private final float[] mScales;
+
+    private IconAtlas(int width, int height, List<Icon> icons, int[] rects) {
+        mWidth = width;
+        mHeight = height;
+        mIcons = icons;
+        mRects = rects;
+        mScales = new float[icons.size()];
+        mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+
+        Canvas canvas = new Canvas(mBitmap);
+        Paint paint = new Paint();
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        Rect dst = new Rect();
+        Bitmap bitmap;
+        for (int i = 0; i < icons.size(); i++) {
+            bitmap = icons.get(i).getBitmap();
+            dst.set(rects[i * 4], rects[i * 4 + 1], rects[i * 4] + rects[i * 4 + 2], rects[i * 4 + 1] + rects[i * 4 + 3]);
+            canvas.drawBitmap(bitmap, null, dst, paint);
+
+            float density = bitmap.getDensity();
+            if (density == Bitmap.DENSITY_NONE) {
+                density = DisplayMetrics.DENSITY_DEFAULT;
+            }
+            mScales[i] = density / DisplayMetrics.DENSITY_DEFAULT;
+        }
+    }
+
+    /**
+     * Packs icons into atlases of at most {@link #DEFAULT_MAX_SIZE} pixels wide and high.
+     *
+     * @param icons the icons to pack
+     * @return the atlases holding the icons
+     */
+    @NonNull
+    public static List<IconAtlas> pack(@NonNull List<Icon> icons) {
+        return pack(icons, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Packs icons into atlases of at most {@code maxSize} pixels wide and high. An icon larger
+     * than {@code maxSize} gets an atlas of its own.
+     *
+     * @param icons   the icons to pack
+     * @param maxSize the maximum width and height of an atlas in pixels
+     * @return the atlases holding the icons
+     */
+    @NonNull
+    public static List<IconAtlas> pack(@NonNull List<Icon> icons, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+
+        List<Icon> sortedIcons = new ArrayList<>(icons);
+        Collections.sort(sortedIcons, new Comparator<Icon>() {
+            @Override
+            public int compare(Icon lhs, Icon rhs) {
+                int lhsHeight = lhs.getBitmap().getHeight();
+                int rhsHeight = rhs.getBitmap().getHeight();
+                return lhsHeight > rhsHeight ? -1 : (lhsHeight == rhsHeight ? 0 : 1);
+            }
+        });
+
+        List<IconAtlas> atlases = new ArrayList<>();
+        List<Icon> atlasIcons = new ArrayList<>();
+        int[] rects = new int[sortedIcons.size() * 4];
+        int rectCount = 0;
+        int shelfX = 0;
+        int shelfY = 0;
+        int shelfHeight = 0;
+        int width = 0;
+        int height = 0;
+
+        for (Icon icon : sortedIcons) {
+            int iconWidth = icon.getBitmap().getWidth();
+            int iconHeight = icon.getBitmap().getHeight();
+
+            if (iconWidth > maxSize || iconHeight > maxSize) {
+                atlases.add(new IconAtlas(iconWidth, iconHeight, Collections.singletonList(icon),
+                        new int[]{0, 0, iconWidth, iconHeight}));
+                continue;
+            }
+
+            if (shelfX + iconWidth > maxSize) {
+                // start a new shelf
+                shelfY += shelfHeight;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+
+            if (shelfY + iconHeight > maxSize) {
+                // start a new atlas
+                atlases.add(new IconAtlas(width, height, atlasIcons, Arrays.copyOf(rects, rectCount * 4)));
+                atlasIcons = new ArrayList<>();
+                rectCount = 0;
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+                width = 0;
+                height = 0;
+            }
+
+            rects[rectCount * 4] = shelfX;
+            rects[rectCount * 4 + 1] = shelfY;
+            rects[rectCount * 4 + 2] = iconWidth;
+            rects[rectCount * 4 + 3] = iconHeight;
+            rectCount++;
+            atlasIcons.add(icon);
+
+            shelfX += iconWidth;
+            shelfHeight = Math.max(shelfHeight, iconHeight);
+            width = Math.max(width, shelfX);
+            height = Math.max(height, shelfY + iconHeight);
+        }
+
+        if (!atlasIcons.isEmpty()) {
+            atlases.add(new IconAtlas(width, height, atlasIcons, Arrays.copyOf(rects, rectCount * 4)));
+        }
+        return atlases;
+    }
+
+    /**
+     * Returns the bitmap holding the packed icons.
+     *
+     * @return the atlas bitmap
+     */
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Returns the icons packed in this atlas.
+     *
+     * @return the icons, in the order of {@link #getRects()}
+     */
+    public List<Icon> getIcons() {
+        return mIcons;
+    }
+
+    /**
+     * Returns the position of the icons in the atlas as x, y, width and height quadruplets.
+     *
+     * @return the sub-rectangles of the icons
+     */
+    public int[] getRects() {
+        return mRects;
+    }
+
+    /**
+     * Returns the pixel ratio of the icons, derived from the density of their bitmap.
+     *
+     * @return the scale of the icons
+     */
+    public float[] getScales() {
+        return mScales;
+    }
+}
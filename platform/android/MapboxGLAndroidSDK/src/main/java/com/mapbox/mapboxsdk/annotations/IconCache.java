@@ -0,0 +1,128 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * <p>
+ * Least recently used cache of {@link Icon}s keyed by the source they were decoded from, bounded by
+ * the byte size of their bitmaps.
+ * </p>
+ * Bitmaps of evicted icons are kept aside and handed out for {@code inBitmap} reuse once their icon
+ * is no longer reachable, as a marker or the map could still be using it before that.
+ */
+final class IconCache {
+
+    private static final int MAX_REUSABLE_BITMAPS = 4;
+
+    private final LruCache<String, Icon> mIcons;
+    private final LinkedList<ReusableBitmap> mReusableBitmaps = new LinkedList<>();
+
+    IconCache(int maxSizeBytes) {
+        mIcons = new LruCache<String, Icon>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(String key, Icon icon) {
+                return getByteCount(icon.getBitmap());
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Icon oldIcon, Icon newIcon) {
+                if (oldIcon != newIcon) {
+                    addReusableBitmap(oldIcon);
+                }
+            }
+        };
+    }
+
+    @Nullable
+    Icon get(@NonNull String key) {
+        return mIcons.get(key);
+    }
+
+    void put(@NonNull String key, @NonNull Icon icon) {
+        mIcons.put(key, icon);
+    }
+
+    void clear() {
+        mIcons.evictAll();
+        synchronized (mReusableBitmaps) {
+            mReusableBitmaps.clear();
+        }
+    }
+
+    int size() {
+        return mIcons.size();
+    }
+
+    int maxSize() {
+        return mIcons.maxSize();
+    }
+
+    /**
+     * Returns a mutable bitmap that can be used as {@code inBitmap} to decode an image of the given
+     * byte size, or null if none is available.
+     *
+     * @param byteCount the byte size of the decoded image
+     * @return a bitmap no longer used by any icon
+     */
+    @Nullable
+    Bitmap obtainReusableBitmap(int byteCount) {
+        synchronized (mReusableBitmaps) {
+            Iterator<ReusableBitmap> iterator = mReusableBitmaps.iterator();
+            ReusableBitmap reusableBitmap;
+            while (iterator.hasNext()) {
+                reusableBitmap = iterator.next();
+                if (reusableBitmap.bitmap.isRecycled()) {
+                    iterator.remove();
+                } else if (reusableBitmap.icon.get() == null
+                        && getAllocationByteCount(reusableBitmap.bitmap) >= byteCount) {
+                    iterator.remove();
+                    return reusableBitmap.bitmap;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addReusableBitmap(Icon icon) {
+        Bitmap bitmap = icon.getBitmap();
+        if (bitmap == null || !bitmap.isMutable() || Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return;
+        }
+
+        synchronized (mReusableBitmaps) {
+            if (mReusableBitmaps.size() == MAX_REUSABLE_BITMAPS) {
+                mReusableBitmaps.removeFirst();
+            }
+            mReusableBitmaps.add(new ReusableBitmap(icon, bitmap));
+        }
+    }
+
+    private static int getByteCount(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private static int getAllocationByteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return getByteCount(bitmap);
+    }
+
+    private static final class ReusableBitmap {
+        private final WeakReference<Icon> icon;
+        private final Bitmap bitmap;
+
+        private ReusableBitmap(Icon icon, Bitmap bitmap) {
+            this.icon = new WeakReference<>(icon);
+            this.bitmap = bitmap;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import android.view.WindowManager;
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.exceptions.TooManyIconsException;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -35,6 +36,7 @@ public final class IconFactory {
     private Icon mDefaultMarker;
     private Icon mDefaultMarkerView;
     private BitmapFactory.Options mOptions;
+    private IconCache mCache;
 
     private int mNextId = 0;
 
@@ -66,6 +68,32 @@ public final class IconFactory {
         }
     }
 
+    /**
+     * <p>
+     * Enables caching of the icons created from resources, assets and files.
+     * </p>
+     * When enabled, creating an icon from the same source twice returns the same {@link Icon},
+     * with the same id, instead of decoding the image again. Icons are evicted in least recently
+     * used order when the byte size of their bitmaps exceeds the given budget.
+     *
+     * @param maxSizeBytes the maximum byte size of the cached bitmaps, 0 disables the cache
+     */
+    public void setCacheSize(int maxSizeBytes) {
+        if (mCache != null) {
+            mCache.clear();
+        }
+        mCache = maxSizeBytes > 0 ? new IconCache(maxSizeBytes) : null;
+    }
+
+    /**
+     * Removes all icons from the cache enabled with {@link #setCacheSize(int)}.
+     */
+    public void clearCache() {
+        if (mCache != null) {
+            mCache.clear();
+        }
+    }
+
     public Icon fromBitmap(@NonNull Bitmap bitmap) {
         if (mNextId < 0) {
             throw new TooManyIconsException();
@@ -96,6 +124,15 @@ public final class IconFactory {
     }
 
     public Icon fromResource(@DrawableRes int resourceId) {
+        String key = "resource:" + resourceId;
+        Icon icon = getCachedIcon(key);
+        if (icon == null) {
+            icon = cacheIcon(key, createFromResource(resourceId));
+        }
+        return icon;
+    }
+
+    private Icon createFromResource(@DrawableRes int resourceId) {
         Drawable drawable = ContextCompat.getDrawable(mContext, resourceId);
         Bitmap bitmap;
         if (drawable instanceof BitmapDrawable) {
@@ -134,7 +171,16 @@ public final class IconFactory {
         return fromBitmap(bitmap);
     }
 
-    public Icon fromAsset(@NonNull String assetName) {
+    public Icon fromAsset(@NonNull final String assetName) {
+        if (mCache != null) {
+            return fromCachedSource("asset:" + assetName, new BitmapSource() {
+                @Override
+                InputStream open() throws IOException {
+                    return mContext.getAssets().open(assetName);
+                }
+            });
+        }
+
         InputStream is;
         try {
             is = mContext.getAssets().open(assetName);
@@ -144,12 +190,30 @@ public final class IconFactory {
         return fromInputStream(is);
     }
 
-    public Icon fromPath(@NonNull String absolutePath) {
+    public Icon fromPath(@NonNull final String absolutePath) {
+        if (mCache != null) {
+            return fromCachedSource(getFileKey("path:", new File(absolutePath)), new BitmapSource() {
+                @Override
+                InputStream open() throws IOException {
+                    return new FileInputStream(absolutePath);
+                }
+            });
+        }
+
         Bitmap bitmap = BitmapFactory.decodeFile(absolutePath, mOptions);
         return fromBitmap(bitmap);
     }
 
-    public Icon fromFile(@NonNull String fileName) {
+    public Icon fromFile(@NonNull final String fileName) {
+        if (mCache != null) {
+            return fromCachedSource(getFileKey("file:", mContext.getFileStreamPath(fileName)), new BitmapSource() {
+                @Override
+                InputStream open() throws IOException {
+                    return mContext.openFileInput(fileName);
+                }
+            });
+        }
+
         FileInputStream is;
         try {
             is = mContext.openFileInput(fileName);
@@ -159,6 +223,80 @@ public final class IconFactory {
         return fromInputStream(is);
     }
 
+    private static String getFileKey(String prefix, File file) {
+        // a modified file doesn't hit the icon decoded from its previous content
+        return prefix + file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    private Icon getCachedIcon(String key) {
+        return mCache != null ? mCache.get(key) : null;
+    }
+
+    private Icon cacheIcon(String key, Icon icon) {
+        if (mCache != null && icon != null) {
+            mCache.put(key, icon);
+        }
+        return icon;
+    }
+
+    private Icon fromCachedSource(String key, BitmapSource source) {
+        Icon icon = mCache.get(key);
+        if (icon != null) {
+            return icon;
+        }
+
+        try {
+            Bitmap bitmap = decodeReusingBitmap(source);
+            return bitmap != null ? cacheIcon(key, fromBitmap(bitmap)) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Bitmap decodeReusingBitmap(BitmapSource source) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = mOptions.inScaled;
+        options.inDensity = mOptions.inDensity;
+        options.inTargetDensity = mOptions.inTargetDensity;
+        options.inScreenDensity = mOptions.inScreenDensity;
+        // decoded bitmaps are mutable so they can be reused once evicted from the cache
+        options.inMutable = true;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            options.inJustDecodeBounds = true;
+            decodeStream(source, options);
+            options.inJustDecodeBounds = false;
+
+            float scale = options.inScaled && options.inDensity != 0
+                    ? (float) options.inTargetDensity / options.inDensity : 1.0f;
+            int width = (int) (options.outWidth * scale + 0.5f);
+            int height = (int) (options.outHeight * scale + 0.5f);
+            options.inBitmap = mCache.obtainReusableBitmap(width * height * 4);
+            if (options.inBitmap != null) {
+                try {
+                    return decodeStream(source, options);
+                } catch (IllegalArgumentException e) {
+                    // the reusable bitmap can't hold the image, decode into a new one
+                    options.inBitmap = null;
+                }
+            }
+        }
+        return decodeStream(source, options);
+    }
+
+    private static Bitmap decodeStream(BitmapSource source, BitmapFactory.Options options) throws IOException {
+        InputStream is = source.open();
+        try {
+            return BitmapFactory.decodeStream(is, null, options);
+        } finally {
+            is.close();
+        }
+    }
+
+    private abstract static class BitmapSource {
+        abstract InputStream open() throws IOException;
+    }
+
     public static Icon recreate(@NonNull String iconId, @NonNull Bitmap bitmap) {
         return new Icon(iconId, bitmap);
     }
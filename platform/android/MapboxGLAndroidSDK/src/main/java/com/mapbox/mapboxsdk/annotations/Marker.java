@@ -41,6 +41,14 @@ public class Marker extends Annotation {
         title = baseMarkerOptions.title;
     }
 
+    /**
+     * Do not use this constructor. Used internally by the SDK to create markers in bulk.
+     */
+    public Marker(LatLng position, Icon icon) {
+        this.position = position;
+        this.icon = icon;
+    }
+
     Marker(BaseMarkerViewOptions baseMarkerViewOptions){
         position = baseMarkerViewOptions.position;
         snippet = baseMarkerViewOptions.snippet;
@@ -90,6 +98,11 @@ public class Marker extends Annotation {
         }
     }
 
+    // sets the position without updating the map, MarkerAnimator updates all moved markers at once
+    void setAnimatedPosition(LatLng position) {
+        this.position = position;
+    }
+
     public void setSnippet(String snippet) {
         this.snippet = snippet;
         refreshInfoWindowContent();
@@ -182,6 +195,13 @@ public class Marker extends Annotation {
         this.topOffsetPixels = topOffsetPixels;
     }
 
+    /**
+     * Do not use this method. Used internally by the SDK.
+     */
+    public int getTopOffsetPixels() {
+        return topOffsetPixels;
+    }
+
     /**
      * Do not use this method. Used internally by the SDK.
      */
@@ -0,0 +1,400 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.animation.TimeInterpolator;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.view.Choreographer;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Animates the position of many markers, and the rotation and alpha of MarkerViews, from a single
+ * frame callback.
+ * </p>
+ * <p>
+ * Instead of running an animator per marker, all running animations are advanced together on each
+ * frame, and the moved markers are updated on the map with a single {@link MapboxMap#updateMarkers(List)}
+ * call. Positions take the shorter way around the globe, across the antimeridian if needed.
+ * </p>
+ * Starting an animation of a property that is already animating continues from its current value.
+ * Animations of markers removed from the map are dropped on the next frame, without invoking the
+ * {@link OnAnimationEndListener}.
+ */
+public final class MarkerAnimator {
+
+    // frame interval used when Choreographer isn't available
+    private static final long FALLBACK_FRAME_DELAY = 16;
+
+    private final MapboxMap mapboxMap;
+
+    private final Map<Marker, LatLngTween> positionTweens = new LinkedHashMap<>();
+    private final Map<MarkerView, FloatTween> rotationTweens = new LinkedHashMap<>();
+    private final Map<MarkerView, FloatTween> alphaTweens = new LinkedHashMap<>();
+
+    // reused by doFrame(long)
+    private final List<Marker> updatedMarkers = new ArrayList<>();
+    private final Set<MarkerView> updatedMarkerViews = new HashSet<>();
+    private final Set<Marker> endedMarkers = new HashSet<>();
+
+    private TimeInterpolator interpolator;
+    private OnAnimationEndListener onAnimationEndListener;
+
+    private boolean frameScheduled;
+    private Choreographer.FrameCallback frameCallback;
+    private Handler frameHandler;
+    private Runnable frameRunnable;
+
+    /**
+     * Creates a MarkerAnimator for the markers of a map.
+     *
+     * @param mapboxMap the map the animated markers are added to
+     */
+    public MarkerAnimator(@NonNull MapboxMap mapboxMap) {
+        this.mapboxMap = mapboxMap;
+    }
+
+    /**
+     * Animates the position of a marker.
+     *
+     * @param marker   the marker to move
+     * @param position the position to move to
+     * @param duration the duration of the animation in milliseconds
+     */
+    @UiThread
+    public void animatePosition(@NonNull Marker marker, @NonNull LatLng position, long duration) {
+        positionTweens.put(marker, new LatLngTween(marker.getPosition(), position, duration));
+        scheduleFrame();
+    }
+
+    /**
+     * Animates the rotation of a MarkerView.
+     *
+     * @param marker   the MarkerView to rotate
+     * @param rotation the rotation to animate to
+     * @param duration the duration of the animation in milliseconds
+     */
+    @UiThread
+    public void animateRotation(@NonNull MarkerView marker, float rotation, long duration) {
+        rotationTweens.put(marker, new FloatTween(marker.getRotation(), rotation, duration));
+        scheduleFrame();
+    }
+
+    /**
+     * Animates the alpha of a MarkerView.
+     *
+     * @param marker   the MarkerView to fade
+     * @param alpha    the alpha to animate to
+     * @param duration the duration of the animation in milliseconds
+     */
+    @UiThread
+    public void animateAlpha(@NonNull MarkerView marker, float alpha, long duration) {
+        alphaTweens.put(marker, new FloatTween(marker.getAlpha(), alpha, duration));
+        scheduleFrame();
+    }
+
+    /**
+     * Stops the animations of a marker, leaving it at its current values.
+     *
+     * @param marker the marker to stop animating
+     */
+    @UiThread
+    public void cancel(@NonNull Marker marker) {
+        positionTweens.remove(marker);
+        rotationTweens.remove(marker);
+        alphaTweens.remove(marker);
+    }
+
+    /**
+     * Stops all animations, leaving the markers at their current values.
+     */
+    @UiThread
+    public void cancelAll() {
+        positionTweens.clear();
+        rotationTweens.clear();
+        alphaTweens.clear();
+    }
+
+    /**
+     * Returns whether a marker is animating.
+     *
+     * @param marker the marker to check
+     * @return true if any property of the marker is animating
+     */
+    public boolean isAnimating(@NonNull Marker marker) {
+        return positionTweens.containsKey(marker) || rotationTweens.containsKey(marker)
+                || alphaTweens.containsKey(marker);
+    }
+
+    /**
+     * Returns whether any marker is animating.
+     *
+     * @return true if an animation is running
+     */
+    public boolean isRunning() {
+        return !positionTweens.isEmpty() || !rotationTweens.isEmpty() || !alphaTweens.isEmpty();
+    }
+
+    /**
+     * Sets the interpolator used by the animations started after this call.
+     *
+     * @param interpolator the interpolator, or null for linear animations
+     */
+    public void setInterpolator(@Nullable TimeInterpolator interpolator) {
+        this.interpolator = interpolator;
+    }
+
+    /**
+     * Sets a callback to be invoked when all animations of a marker end. Cancelled animations don't
+     * invoke the callback. Starting a new animation from the callback is allowed.
+     *
+     * @param listener the callback to be invoked
+     */
+    public void setOnAnimationEndListener(@Nullable OnAnimationEndListener listener) {
+        onAnimationEndListener = listener;
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (frameCallback == null) {
+                frameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        MarkerAnimator.this.doFrame(frameTimeNanos);
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            if (frameHandler == null) {
+                frameHandler = new Handler(Looper.getMainLooper());
+                frameRunnable = new Runnable() {
+                    @Override
+                    public void run() {
+                        doFrame(System.nanoTime());
+                    }
+                };
+            }
+            frameHandler.postDelayed(frameRunnable, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    /**
+     * Advances all animations to a frame time and applies the new values.
+     *
+     * @param frameTimeNanos the time of the frame in nanoseconds
+     */
+    void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+
+        Iterator<Map.Entry<Marker, LatLngTween>> positionIterator = positionTweens.entrySet().iterator();
+        Map.Entry<Marker, LatLngTween> positionEntry;
+        while (positionIterator.hasNext()) {
+            positionEntry = positionIterator.next();
+            Marker marker = positionEntry.getKey();
+            if (isRemoved(marker)) {
+                positionIterator.remove();
+                continue;
+            }
+            LatLngTween tween = positionEntry.getValue();
+            float fraction = tween.getFraction(frameTimeNanos);
+            marker.setAnimatedPosition(tween.evaluate(interpolate(tween, fraction)));
+            updatedMarkers.add(marker);
+            if (fraction >= 1) {
+                positionIterator.remove();
+                endedMarkers.add(marker);
+            }
+        }
+
+        Iterator<Map.Entry<MarkerView, FloatTween>> iterator = rotationTweens.entrySet().iterator();
+        Map.Entry<MarkerView, FloatTween> entry;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            if (isRemoved(entry.getKey())) {
+                iterator.remove();
+                continue;
+            }
+            float fraction = entry.getValue().getFraction(frameTimeNanos);
+            entry.getKey().setAnimatedRotation(entry.getValue().evaluate(interpolate(entry.getValue(), fraction)));
+            updatedMarkerViews.add(entry.getKey());
+            if (fraction >= 1) {
+                iterator.remove();
+                endedMarkers.add(entry.getKey());
+            }
+        }
+
+        iterator = alphaTweens.entrySet().iterator();
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            if (isRemoved(entry.getKey())) {
+                iterator.remove();
+                continue;
+            }
+            float fraction = entry.getValue().getFraction(frameTimeNanos);
+            entry.getKey().setAnimatedAlpha(entry.getValue().evaluate(interpolate(entry.getValue(), fraction)));
+            updatedMarkerViews.add(entry.getKey());
+            if (fraction >= 1) {
+                iterator.remove();
+                endedMarkers.add(entry.getKey());
+            }
+        }
+
+        if (!updatedMarkers.isEmpty()) {
+            // a single native update for all moved markers
+            mapboxMap.updateMarkers(updatedMarkers);
+            MarkerViewManager markerViewManager = mapboxMap.getMarkerViewManager();
+            markerViewManager.scheduleViewMarkerInvalidation();
+            // incremental invalidation misses marker views that moved in or out of a still viewport
+            markerViewManager.invalidateMovedViewMarkers(updatedMarkers);
+            updatedMarkers.clear();
+        }
+
+        if (!updatedMarkerViews.isEmpty()) {
+            MarkerViewManager markerViewManager = mapboxMap.getMarkerViewManager();
+            for (MarkerView markerView : updatedMarkerViews) {
+                markerViewManager.applyAnimatedProperties(markerView);
+            }
+            updatedMarkerViews.clear();
+        }
+
+        if (!endedMarkers.isEmpty()) {
+            for (Marker marker : endedMarkers) {
+                if (onAnimationEndListener != null && !isAnimating(marker)) {
+                    onAnimationEndListener.onAnimationEnd(marker);
+                }
+            }
+            endedMarkers.clear();
+        }
+
+        if (isRunning()) {
+            scheduleFrame();
+        }
+    }
+
+    // updating a removed marker would add it back to the map
+    private boolean isRemoved(Marker marker) {
+        return mapboxMap.getAnnotation(marker.getId()) != marker;
+    }
+
+    private float interpolate(Tween tween, float fraction) {
+        if (fraction >= 1 || tween.interpolator == null) {
+            return fraction;
+        }
+        return tween.interpolator.getInterpolation(fraction);
+    }
+
+    /**
+     * Interpolates between two longitudes the shorter way around the globe.
+     *
+     * @param from     the longitude to start from
+     * @param to       the longitude to end at
+     * @param fraction the fraction of the way from start to end
+     * @return the interpolated longitude, between -180 and 180
+     */
+    static double interpolateLongitude(double from, double to, float fraction) {
+        double delta = to - from;
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+
+        double longitude = from + delta * fraction;
+        if (longitude > 180) {
+            longitude -= 360;
+        } else if (longitude < -180) {
+            longitude += 360;
+        }
+        return longitude;
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when the animations of a marker end.
+     */
+    public interface OnAnimationEndListener {
+
+        /**
+         * Called when all animations of a marker ended.
+         *
+         * @param marker the marker that stopped animating
+         */
+        void onAnimationEnd(@NonNull Marker marker);
+    }
+
+    private abstract class Tween {
+
+        private final long duration;
+        private long startTime = -1;
+        final TimeInterpolator interpolator;
+
+        Tween(long duration) {
+            this.duration = duration;
+            this.interpolator = MarkerAnimator.this.interpolator;
+        }
+
+        // animations start on the first frame they are part of
+        float getFraction(long frameTimeNanos) {
+            if (startTime == -1) {
+                startTime = frameTimeNanos;
+            }
+            if (duration <= 0) {
+                return 1;
+            }
+            return Math.min(1, (frameTimeNanos - startTime) / 1000000f / duration);
+        }
+    }
+
+    private final class LatLngTween extends Tween {
+
+        private final LatLng from;
+        private final LatLng to;
+
+        LatLngTween(LatLng from, LatLng to, long duration) {
+            super(duration);
+            this.from = from != null ? from : to;
+            this.to = to;
+        }
+
+        LatLng evaluate(float fraction) {
+            if (fraction >= 1) {
+                return to;
+            }
+            return new LatLng(from.getLatitude() + (to.getLatitude() - from.getLatitude()) * fraction,
+                    interpolateLongitude(from.getLongitude(), to.getLongitude(), fraction));
+        }
+    }
+
+    private final class FloatTween extends Tween {
+
+        private final float from;
+        private final float to;
+
+        FloatTween(float from, float to, long duration) {
+            super(duration);
+            this.from = from;
+            this.to = to;
+        }
+
+        float evaluate(float fraction) {
+            return fraction >= 1 ? to : from + (to - from) * fraction;
+        }
+    }
+}
@@ -248,6 +248,11 @@ public class MarkerView extends Marker {
         }
     }
 
+    // sets the rotation without starting a View animation, applied by MarkerAnimator
+    void setAnimatedRotation(float rotation) {
+        this.rotation = rotation;
+    }
+
     /**
      * Get the rotation value of the MarkerView.
      *
@@ -282,6 +287,11 @@ public class MarkerView extends Marker {
         }
     }
 
+    // sets the alpha without starting a View animation, applied by MarkerAnimator
+    void setAnimatedAlpha(float alpha) {
+        this.alpha = alpha;
+    }
+
     /**
      * Set the icon of the MarkerView.
      *
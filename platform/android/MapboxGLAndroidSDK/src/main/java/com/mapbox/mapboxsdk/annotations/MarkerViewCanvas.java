@@ -0,0 +1,224 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Camera;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * View drawing the bitmaps of the MarkerViews adapted by a
+ * {@link com.mapbox.mapboxsdk.maps.MapboxMap.CanvasMarkerViewAdapter} in a single pass.
+ * </p>
+ * Markers are drawn in the order they were added, the last one on top. Positions are set by
+ * {@link MarkerViewManager#update()} for each frame, the rotation, alpha, tilt and visibility
+ * are read from the markers when drawing.
+ */
+final class MarkerViewCanvas extends View {
+
+    private final Map<MarkerView, Bitmap> bitmaps = new LinkedHashMap<>();
+    // markers hidden by the declutter pass of MarkerViewManager
+    private final Set<MarkerView> declutteredMarkers = new HashSet<>();
+
+    // markers of the current frame, in drawing order, with their screen location as x and y pairs
+    private MarkerView[] frameMarkers = new MarkerView[0];
+    private Bitmap[] frameBitmaps = new Bitmap[0];
+    private float[] framePoints = new float[0];
+    private int frameCount;
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix matrix = new Matrix();
+    private final Matrix tiltMatrix = new Matrix();
+    private final Camera camera = new Camera();
+
+    MarkerViewCanvas(Context context) {
+        super(context);
+    }
+
+    void add(@NonNull MarkerView marker, @NonNull Bitmap bitmap) {
+        bitmaps.put(marker, bitmap);
+        declutteredMarkers.remove(marker);
+    }
+
+    void remove(@NonNull MarkerView marker) {
+        declutteredMarkers.remove(marker);
+        if (bitmaps.remove(marker) != null) {
+            invalidate();
+        }
+    }
+
+    boolean contains(@NonNull MarkerView marker) {
+        return bitmaps.containsKey(marker);
+    }
+
+    void setBitmap(@NonNull MarkerView marker, @Nullable Bitmap bitmap) {
+        if (bitmap == null) {
+            bitmaps.remove(marker);
+        } else if (bitmaps.containsKey(marker)) {
+            bitmaps.put(marker, bitmap);
+        }
+        invalidate();
+    }
+
+    @Nullable
+    Bitmap getBitmap(@NonNull MarkerView marker) {
+        return bitmaps.get(marker);
+    }
+
+    void setDecluttered(@NonNull MarkerView marker, boolean decluttered) {
+        if (decluttered ? declutteredMarkers.add(marker) : declutteredMarkers.remove(marker)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Draws a marker above the others.
+     *
+     * @param marker the marker to bring to front
+     */
+    void bringToFront(@NonNull MarkerView marker) {
+        Bitmap bitmap = bitmaps.remove(marker);
+        if (bitmap != null) {
+            bitmaps.put(marker, bitmap);
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns the markers drawn by this view, removing a marker from the set stops drawing it.
+     *
+     * @return the markers in drawing order
+     */
+    Set<MarkerView> getMarkers() {
+        return bitmaps.keySet();
+    }
+
+    int size() {
+        return bitmaps.size();
+    }
+
+    /**
+     * Returns a marker of the current frame.
+     *
+     * @param index the index of the marker in the order of {@link #getPositions(double[], int)}
+     * @return the marker
+     */
+    MarkerView getFrameMarker(int index) {
+        return frameMarkers[index];
+    }
+
+    /**
+     * Writes the positions of the markers to an array, and keeps the markers in that order for the next frame.
+     *
+     * @param latLngs the array to write the positions to, as latitude and longitude pairs
+     * @param offset  the index of the first marker in the array
+     */
+    void getPositions(@NonNull double[] latLngs, int offset) {
+        frameCount = bitmaps.size();
+        if (frameMarkers.length < frameCount) {
+            frameMarkers = new MarkerView[frameCount];
+            frameBitmaps = new Bitmap[frameCount];
+            framePoints = new float[frameCount * 2];
+        } else {
+            Arrays.fill(frameMarkers, frameCount, frameMarkers.length, null);
+            Arrays.fill(frameBitmaps, frameCount, frameBitmaps.length, null);
+        }
+
+        int i = 0;
+        for (Map.Entry<MarkerView, Bitmap> entry : bitmaps.entrySet()) {
+            MarkerView marker = entry.getKey();
+            frameMarkers[i] = marker;
+            frameBitmaps[i] = entry.getValue();
+            latLngs[(offset + i) * 2] = marker.getPosition().getLatitude();
+            latLngs[(offset + i) * 2 + 1] = marker.getPosition().getLongitude();
+            i++;
+        }
+    }
+
+    /**
+     * Sets the screen locations of the markers returned by the last {@link #getPositions(double[], int)} call
+     * and redraws them.
+     *
+     * @param points the screen locations, as x and y pairs in pixels
+     * @param offset the index of the first marker in the array
+     */
+    void setScreenLocations(@NonNull float[] points, int offset) {
+        System.arraycopy(points, offset * 2, framePoints, 0, frameCount * 2);
+        for (int i = 0; i < frameCount; i++) {
+            MarkerView marker = frameMarkers[i];
+            if (marker.getOffsetX() == -1) {
+                int x = (int) (marker.getAnchorU() * frameBitmaps[i].getWidth());
+                int y = (int) (marker.getAnchorV() * frameBitmaps[i].getHeight());
+                marker.setOffset(x, y);
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * Returns the topmost marker whose bitmap contains a screen location. Rotation and tilt are ignored.
+     *
+     * @param x the x coordinate of the location in pixels
+     * @param y the y coordinate of the location in pixels
+     * @return the topmost marker at the location, or null if none
+     */
+    @Nullable
+    MarkerView hitTest(float x, float y) {
+        for (int i = frameCount - 1; i >= 0; i--) {
+            MarkerView marker = frameMarkers[i];
+            if (!marker.isVisible() || !bitmaps.containsKey(marker) || declutteredMarkers.contains(marker)) {
+                continue;
+            }
+            float left = framePoints[i * 2] - marker.getOffsetX();
+            float top = framePoints[i * 2 + 1] - marker.getOffsetY();
+            if (x >= left && x <= left + frameBitmaps[i].getWidth()
+                    && y >= top && y <= top + frameBitmaps[i].getHeight()) {
+                return marker;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        for (int i = 0; i < frameCount; i++) {
+            MarkerView marker = frameMarkers[i];
+            float alpha = marker.getAlpha();
+            if (!marker.isVisible() || alpha <= 0 || !bitmaps.containsKey(marker)
+                    || declutteredMarkers.contains(marker)) {
+                continue;
+            }
+
+            // rotate and tilt around the center of the bitmap, as views do
+            Bitmap bitmap = frameBitmaps[i];
+            float halfWidth = bitmap.getWidth() / 2f;
+            float halfHeight = bitmap.getHeight() / 2f;
+            matrix.setTranslate(-halfWidth, -halfHeight);
+            float tilt = marker.getTilt();
+            if (tilt != 0) {
+                camera.save();
+                camera.rotateX(tilt);
+                camera.getMatrix(tiltMatrix);
+                camera.restore();
+                matrix.postConcat(tiltMatrix);
+            }
+            matrix.postRotate(marker.getRotation());
+            matrix.postTranslate(framePoints[i * 2] - marker.getOffsetX() + halfWidth,
+                    framePoints[i * 2 + 1] - marker.getOffsetY() + halfHeight);
+
+            paint.setAlpha((int) (Math.min(1, alpha) * 255));
+            canvas.drawBitmap(bitmap, matrix, paint);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.mapbox.mapboxsdk.annotations;
 
 import android.content.Context;
-import android.graphics.PointF;
+import android.graphics.Bitmap;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -12,16 +14,21 @@ import android.view.animation.AnimationUtils;
 import android.widget.ImageView;
 
 import com.mapbox.mapboxsdk.R;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.maps.MapView;
 import com.mapbox.mapboxsdk.maps.MapboxMap;
-import com.mapbox.mapboxsdk.maps.Projection;
 import com.mapbox.mapboxsdk.utils.AnimatorUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Interface for interacting with ViewMarkers objects inside of a MapView.
@@ -31,14 +38,59 @@ import java.util.Map;
  */
 public class MarkerViewManager {
 
+    // number of views created by a pool prewarm each time the main thread is idle
+    private static final int PREWARM_BATCH_SIZE = 4;
+
+    /**
+     * Default size in pixels of the grid cells used to declutter MarkerViews.
+     */
+    public static final float DEFAULT_DECLUTTER_CELL_SIZE = 64;
+
     private Map<MarkerView, View> markerViewMap;
     private MapboxMap mapboxMap;
     private MapView mapView;
     private List<MapboxMap.MarkerViewAdapter> markerViewAdapters;
+    private Map<Class<? extends MarkerView>, MapboxMap.MarkerViewAdapter> markerViewAdapterMap;
+    // reused by invalidateViewMarkersInBounds() for the markers in the viewport
+    private Set<MarkerView> visibleMarkers;
     private long viewMarkerBoundsUpdateTime;
     private MapboxMap.OnMarkerViewClickListener onMarkerViewClickListener;
     private ImageMarkerViewAdapter defaultMarkerViewAdapter;
 
+    // buffers reused by update() for the shown markers and their projected positions
+    private MarkerView[] updateMarkers = new MarkerView[0];
+    private View[] updateViews = new View[0];
+    private double[] updateLatLngs = new double[0];
+    private float[] updatePoints = new float[0];
+    // slot in the declutter cell table of each marker
+    private int[] updateCellSlots = new int[0];
+
+    // draws the markers of canvas adapters, created when the first one is shown
+    private MarkerViewCanvas markerViewCanvas;
+
+    // invalidate on each camera frame, querying only the regions that entered or exited the viewport
+    private boolean incrementalInvalidation;
+    // fraction of the viewport kept around it, see setOffscreenMargin(float)
+    private float offscreenMargin;
+    // bounds markers were shown in and hidden outside of by the last invalidation
+    private LatLngBounds enterBounds;
+    private LatLngBounds exitBounds;
+    // reused by invalidateViewMarkersIncrementally() for the regions to query
+    private List<LatLngBounds> invalidationStrips;
+
+    // hide all but the highest priority shown marker of each screen grid cell, see setDeclutterEnabled(boolean)
+    private boolean declutterEnabled;
+    private float declutterCellSize = DEFAULT_DECLUTTER_CELL_SIZE;
+    private boolean declutterFade = true;
+    private Comparator<MarkerView> declutterComparator;
+    // open addressing table of the occupied cells, holding the update buffer index of the highest
+    // priority marker of each cell, or -1 for empty slots, reused by each frame
+    private long[] declutterCellKeys = new long[0];
+    private int[] declutterCellWinners = new int[0];
+    // markers hidden by the last frame, and by the current one
+    private Set<MarkerView> declutteredMarkers;
+    private Set<MarkerView> nextDeclutteredMarkers;
+
     /**
      * Creates an instance of MarkerViewManager.
      *
@@ -48,10 +100,16 @@ public class MarkerViewManager {
     public MarkerViewManager(@NonNull MapboxMap mapboxMap, @NonNull MapView mapView) {
         this.mapboxMap = mapboxMap;
         this.markerViewAdapters = new ArrayList<>();
+        this.markerViewAdapterMap = new HashMap<>();
+        this.visibleMarkers = new HashSet<>();
+        this.invalidationStrips = new ArrayList<>();
+        this.declutteredMarkers = new HashSet<>();
+        this.nextDeclutteredMarkers = new HashSet<>();
         this.mapView = mapView;
         this.markerViewMap = new HashMap<>();
         this.defaultMarkerViewAdapter = new ImageMarkerViewAdapter(mapView.getContext());
         this.markerViewAdapters.add(defaultMarkerViewAdapter);
+        this.markerViewAdapterMap.put(defaultMarkerViewAdapter.getMarkerClass(), defaultMarkerViewAdapter);
     }
 
     /**
@@ -67,6 +125,8 @@ public class MarkerViewManager {
         View convertView = markerViewMap.get(marker);
         if (convertView != null) {
             AnimatorUtils.rotate(convertView, rotation);
+        } else {
+            invalidateCanvasMarker(marker);
         }
     }
 
@@ -83,6 +143,8 @@ public class MarkerViewManager {
         View convertView = markerViewMap.get(marker);
         if (convertView != null) {
             AnimatorUtils.alpha(convertView, alpha);
+        } else {
+            invalidateCanvasMarker(marker);
         }
     }
 
@@ -99,6 +161,26 @@ public class MarkerViewManager {
         View convertView = markerViewMap.get(marker);
         if (convertView != null) {
             convertView.setVisibility(visible ? View.VISIBLE : View.GONE);
+        } else {
+            invalidateCanvasMarker(marker);
+        }
+    }
+
+    // applies the rotation and alpha set by a MarkerAnimator frame, without animating
+    void applyAnimatedProperties(@NonNull MarkerView marker) {
+        View convertView = markerViewMap.get(marker);
+        if (convertView != null) {
+            convertView.setRotation(marker.getRotation());
+            convertView.setAlpha(marker.getAlpha());
+        } else {
+            invalidateCanvasMarker(marker);
+        }
+    }
+
+    private void invalidateCanvasMarker(@NonNull MarkerView marker) {
+        // canvas drawn markers read their rotation, alpha and visibility when drawn
+        if (markerViewCanvas != null && markerViewCanvas.contains(marker)) {
+            markerViewCanvas.invalidate();
         }
     }
 
@@ -111,27 +193,264 @@ public class MarkerViewManager {
      * </p>
      */
     public void update() {
-        for (final MarkerView marker : markerViewMap.keySet()) {
-            final View convertView = markerViewMap.get(marker);
-            if (convertView != null) {
-                PointF point = mapboxMap.getProjection().toScreenLocation(marker.getPosition());
-                if (marker.getOffsetX() == -1) {
-                    int x = (int) (marker.getAnchorU() * convertView.getMeasuredWidth());
-                    int y = (int) (marker.getAnchorV() * convertView.getMeasuredHeight());
-                    marker.setOffset(x, y);
-                }
+        // project the positions of all shown markers in a single call
+        int canvasCount = markerViewCanvas != null ? markerViewCanvas.size() : 0;
+        ensureUpdateCapacity(markerViewMap.size() + canvasCount);
+        int count = 0;
+        for (Map.Entry<MarkerView, View> entry : markerViewMap.entrySet()) {
+            if (entry.getValue() != null) {
+                LatLng position = entry.getKey().getPosition();
+                updateMarkers[count] = entry.getKey();
+                updateViews[count] = entry.getValue();
+                updateLatLngs[count * 2] = position.getLatitude();
+                updateLatLngs[count * 2 + 1] = position.getLongitude();
+                count++;
+            }
+        }
+        if (canvasCount > 0) {
+            // canvas drawn markers follow the markers with a view
+            markerViewCanvas.getPositions(updateLatLngs, count);
+        }
+        if (count + canvasCount == 0) {
+            declutteredMarkers.clear();
+            return;
+        }
+        mapboxMap.getProjection().toScreenLocations(updateLatLngs, updatePoints, count + canvasCount);
+        if (canvasCount > 0) {
+            markerViewCanvas.setScreenLocations(updatePoints, count);
+        }
+        if (declutterEnabled) {
+            declutter(count, canvasCount);
+        }
 
-                convertView.setX(point.x - marker.getOffsetX());
-                convertView.setY(point.y - marker.getOffsetY());
+        MarkerView marker;
+        View convertView;
+        for (int i = 0; i < count; i++) {
+            marker = updateMarkers[i];
+            convertView = updateViews[i];
+            if (marker.getOffsetX() == -1) {
+                int x = (int) (marker.getAnchorU() * convertView.getMeasuredWidth());
+                int y = (int) (marker.getAnchorV() * convertView.getMeasuredHeight());
+                marker.setOffset(x, y);
+            }
+
+            convertView.setX(updatePoints[i * 2] - marker.getOffsetX());
+            convertView.setY(updatePoints[i * 2 + 1] - marker.getOffsetY());
 
-                // animate visibility
-                if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
-                    convertView.animate().cancel();
-                    convertView.setAlpha(0);
-                    AnimatorUtils.alpha(convertView, 1);
+            // animate visibility
+            if (marker.isVisible() && convertView.getVisibility() == View.GONE) {
+                convertView.animate().cancel();
+                convertView.setAlpha(0);
+                AnimatorUtils.alpha(convertView, 1);
+            }
+
+            updateMarkers[i] = null;
+            updateViews[i] = null;
+        }
+    }
+
+    private void ensureUpdateCapacity(int count) {
+        if (updateMarkers.length < count) {
+            int capacity = Math.max(16, Math.max(count, updateMarkers.length * 2));
+            updateMarkers = new MarkerView[capacity];
+            updateViews = new View[capacity];
+            updateLatLngs = new double[capacity * 2];
+            updatePoints = new float[capacity * 2];
+            updateCellSlots = new int[capacity];
+        }
+    }
+
+    /**
+     * Hides the markers that aren't the highest priority marker of their grid cell, using the
+     * screen locations projected by {@link #update()}. Only markers that changed state are touched.
+     *
+     * @param count       the number of markers with a View, first in the update buffers
+     * @param canvasCount the number of canvas drawn markers, following them
+     */
+    private void declutter(int count, int canvasCount) {
+        int total = count + canvasCount;
+        ensureDeclutterCapacity(total);
+        int mask = declutterCellKeys.length - 1;
+        MarkerView marker;
+        for (int i = 0; i < total; i++) {
+            marker = getUpdateMarker(i, count);
+            if (!marker.isVisible()) {
+                continue;
+            }
+            long cellX = (long) Math.floor(updatePoints[i * 2] / declutterCellSize);
+            long cellY = (long) Math.floor(updatePoints[i * 2 + 1] / declutterCellSize);
+            long cell = (cellX << 32) | (cellY & 0xffffffffL);
+            int slot = hashCell(cell) & mask;
+            while (declutterCellWinners[slot] != -1 && declutterCellKeys[slot] != cell) {
+                slot = (slot + 1) & mask;
+            }
+            updateCellSlots[i] = slot;
+            int winner = declutterCellWinners[slot];
+            if (winner == -1) {
+                declutterCellKeys[slot] = cell;
+                declutterCellWinners[slot] = i;
+            } else if (compareDeclutterPriority(marker, getUpdateMarker(winner, count)) < 0) {
+                declutterCellWinners[slot] = i;
+            }
+        }
+
+        for (int i = 0; i < total; i++) {
+            marker = getUpdateMarker(i, count);
+            boolean decluttered = marker.isVisible() && declutterCellWinners[updateCellSlots[i]] != i;
+            if (decluttered) {
+                nextDeclutteredMarkers.add(marker);
+            }
+            if (decluttered != declutteredMarkers.contains(marker)) {
+                setDecluttered(marker, i < count ? updateViews[i] : null, decluttered);
+            }
+        }
+        Arrays.fill(declutterCellWinners, -1);
+
+        // markers that stopped being shown are dropped with the last frame
+        Set<MarkerView> lastDeclutteredMarkers = declutteredMarkers;
+        declutteredMarkers = nextDeclutteredMarkers;
+        nextDeclutteredMarkers = lastDeclutteredMarkers;
+        nextDeclutteredMarkers.clear();
+    }
+
+    // keeps the cell table at most half full, so probes stay short
+    private void ensureDeclutterCapacity(int count) {
+        if (declutterCellKeys.length < count * 2) {
+            int capacity = Math.max(16, Integer.highestOneBit(count * 2 - 1) << 1);
+            declutterCellKeys = new long[capacity];
+            declutterCellWinners = new int[capacity];
+            Arrays.fill(declutterCellWinners, -1);
+        }
+    }
+
+    private static int hashCell(long cell) {
+        long hash = cell * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    // markers with a View, followed by the canvas drawn markers
+    private MarkerView getUpdateMarker(int index, int count) {
+        return index < count ? updateMarkers[index] : markerViewCanvas.getFrameMarker(index - count);
+    }
+
+    // selected markers first, then the declutter comparator, then the earliest added
+    private int compareDeclutterPriority(MarkerView marker, MarkerView other) {
+        boolean selected = mapboxMap.isMarkerSelected(marker);
+        if (selected != mapboxMap.isMarkerSelected(other)) {
+            return selected ? -1 : 1;
+        }
+        if (declutterComparator != null) {
+            int result = declutterComparator.compare(marker, other);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return marker.getId() < other.getId() ? -1 : (marker.getId() == other.getId() ? 0 : 1);
+    }
+
+    private void setDecluttered(@NonNull final MarkerView marker, @Nullable final View view, boolean decluttered) {
+        if (view == null) {
+            if (markerViewCanvas != null) {
+                markerViewCanvas.setDecluttered(marker, decluttered);
+            }
+            return;
+        }
+
+        if (decluttered) {
+            if (declutterFade && view.getVisibility() == View.VISIBLE) {
+                AnimatorUtils.alpha(view, 0, new AnimatorUtils.OnAnimationEndListener() {
+                    @Override
+                    public void onAnimationEnd() {
+                        // unless the marker won its cell back or the View was reused meanwhile
+                        if (declutteredMarkers.contains(marker) && markerViewMap.get(marker) == view) {
+                            view.setVisibility(View.INVISIBLE);
+                        }
+                    }
+                });
+            } else {
+                view.setVisibility(View.INVISIBLE);
+            }
+        } else if (!marker.isVisible()) {
+            view.setVisibility(View.GONE);
+        } else if (view.getVisibility() == View.INVISIBLE || view.getAlpha() != marker.getAlpha()) {
+            if (declutterFade) {
+                if (view.getVisibility() == View.INVISIBLE) {
+                    view.setAlpha(0);
                 }
+                view.setVisibility(View.VISIBLE);
+                AnimatorUtils.alpha(view, marker.getAlpha());
+            } else {
+                view.setVisibility(View.VISIBLE);
+                view.setAlpha(marker.getAlpha());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Enables decluttering the shown MarkerViews in screen space.
+     * </p>
+     * The screen is divided into a grid, and in each cell only the highest priority marker is shown,
+     * the others are faded out. Selected markers have the highest priority, followed by the order of
+     * the comparator set with {@link #setDeclutterComparator(Comparator)}, then by the order in which
+     * markers were added. Decluttering runs on each frame with the projected marker positions, and only
+     * changes the markers that moved into or out of a crowded cell.
+     *
+     * @param enabled true to declutter, false by default
+     */
+    public void setDeclutterEnabled(boolean enabled) {
+        if (declutterEnabled && !enabled) {
+            for (MarkerView marker : declutteredMarkers) {
+                setDecluttered(marker, markerViewMap.get(marker), false);
             }
+            declutteredMarkers.clear();
+        }
+        declutterEnabled = enabled;
+    }
+
+    /**
+     * Returns whether the shown MarkerViews are decluttered.
+     *
+     * @return true if decluttering is enabled
+     */
+    public boolean isDeclutterEnabled() {
+        return declutterEnabled;
+    }
+
+    /**
+     * Sets the size of the grid cells used to declutter MarkerViews.
+     *
+     * @param pixels the width and height of a cell in pixels, {@link #DEFAULT_DECLUTTER_CELL_SIZE} by default
+     */
+    public void setDeclutterCellSize(float pixels) {
+        if (pixels <= 0) {
+            throw new IllegalArgumentException("Declutter cell size must be positive: " + pixels);
         }
+        declutterCellSize = pixels;
+    }
+
+    /**
+     * Sets whether decluttered MarkerViews fade out and in, or are hidden and shown at once.
+     * Canvas drawn markers are always hidden at once.
+     *
+     * @param fade true to fade, true by default
+     */
+    public void setDeclutterFade(boolean fade) {
+        declutterFade = fade;
+    }
+
+    /**
+     * Sets the priority of MarkerViews when decluttering, markers ordered first are kept.
+     *
+     * @param comparator the comparator, or null to keep the earliest added markers
+     */
+    public void setDeclutterComparator(@Nullable Comparator<MarkerView> comparator) {
+        declutterComparator = comparator;
+    }
+
+    // used by tests
+    boolean isDecluttered(@NonNull MarkerView marker) {
+        return declutteredMarkers.contains(marker);
     }
 
     /**
@@ -150,6 +469,14 @@ public class MarkerViewManager {
                 }
             }
         }
+        if (markerViewCanvas != null) {
+            for (MarkerView markerView : markerViewCanvas.getMarkers()) {
+                if (markerView.isFlat()) {
+                    markerView.setTilt(tilt);
+                }
+            }
+            markerViewCanvas.invalidate();
+        }
     }
 
     /**
@@ -159,6 +486,14 @@ public class MarkerViewManager {
         View convertView = markerViewMap.get(markerView);
         if (convertView != null && convertView instanceof ImageView) {
             ((ImageView) convertView).setImageBitmap(markerView.getIcon().getBitmap());
+        } else if (markerViewCanvas != null && markerViewCanvas.contains(markerView)) {
+            MapboxMap.MarkerViewAdapter adapter = getAdapter(markerView);
+            if (adapter instanceof MapboxMap.CanvasMarkerViewAdapter) {
+                // reset offset for the new bitmap
+                markerView.setOffset(-1, -1);
+                markerViewCanvas.setBitmap(markerView,
+                        ((MapboxMap.CanvasMarkerViewAdapter) adapter).getBitmap(markerView));
+            }
         }
     }
 
@@ -171,12 +506,11 @@ public class MarkerViewManager {
      * @param marker the MarkerView to deselect
      */
     public void deselect(@NonNull MarkerView marker) {
-        final View convertView = markerViewMap.get(marker);
+        final View convertView = getShownView(marker);
         if (convertView != null) {
-            for (MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
-                if (adapter.getMarkerClass().equals(marker.getClass())) {
-                    adapter.onDeselect(marker, convertView);
-                }
+            MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+            if (adapter != null) {
+                adapter.onDeselect(marker, convertView);
             }
         }
     }
@@ -187,11 +521,10 @@ public class MarkerViewManager {
      * @param marker the MarkerView object to select
      */
     public void select(@NonNull MarkerView marker) {
-        final View convertView = markerViewMap.get(marker);
-        for (MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
-            if (adapter.getMarkerClass().equals(marker.getClass())) {
-                select(marker, convertView, adapter);
-            }
+        final View convertView = getShownView(marker);
+        MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+        if (adapter != null) {
+            select(marker, convertView, adapter);
         }
     }
 
@@ -211,10 +544,57 @@ public class MarkerViewManager {
                 mapboxMap.selectMarker(marker);
             }
             marker.setSelected(true);
-            convertView.bringToFront();
+            if (convertView == markerViewCanvas) {
+                markerViewCanvas.bringToFront(marker);
+            } else {
+                convertView.bringToFront();
+            }
         }
     }
 
+    /**
+     * Dispatches a tap to the topmost canvas drawn MarkerView under it, as a click on its View would be.
+     *
+     * @param x the x coordinate of the tap in pixels
+     * @param y the y coordinate of the tap in pixels
+     * @return true if the tap was on a canvas drawn MarkerView
+     */
+    public boolean dispatchCanvasClick(float x, float y) {
+        if (markerViewCanvas == null) {
+            return false;
+        }
+
+        MarkerView marker = markerViewCanvas.hitTest(x, y);
+        if (marker == null) {
+            return false;
+        }
+
+        MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+        if (adapter == null) {
+            return false;
+        }
+
+        boolean clickHandled = false;
+        if (onMarkerViewClickListener != null) {
+            clickHandled = onMarkerViewClickListener.onMarkerClick(marker, markerViewCanvas, adapter);
+        }
+
+        if (!clickHandled) {
+            ensureInfoWindowOffset(marker);
+            select(marker, markerViewCanvas, adapter);
+        }
+        return true;
+    }
+
+    @Nullable
+    private View getShownView(@NonNull MarkerView marker) {
+        View view = markerViewMap.get(marker);
+        if (view == null && markerViewCanvas != null && markerViewCanvas.contains(marker)) {
+            view = markerViewCanvas;
+        }
+        return view;
+    }
+
     /**
      * Get view representation from a MarkerView.
      * <p>
@@ -243,23 +623,24 @@ public class MarkerViewManager {
     public void removeMarkerView(MarkerView marker) {
         final View viewHolder = markerViewMap.get(marker);
         if (viewHolder != null && marker != null) {
-            for (final MapboxMap.MarkerViewAdapter<?> adapter : markerViewAdapters) {
-                if (adapter.getMarkerClass().equals(marker.getClass())) {
-                    if (adapter.prepareViewForReuse(marker, viewHolder)) {
-                        // reset offset for reuse
-                        marker.setOffset(-1, -1);
-                        adapter.releaseView(viewHolder);
-                    }
-                }
+            MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+            if (adapter != null && adapter.prepareViewForReuse(marker, viewHolder)) {
+                // reset offset for reuse
+                marker.setOffset(-1, -1);
+                adapter.releaseView(viewHolder);
             }
         }
         markerViewMap.remove(marker);
+        if (markerViewCanvas != null && marker != null) {
+            markerViewCanvas.remove(marker);
+        }
     }
 
     /**
      * Add a MarkerViewAdapter to the MarkerViewManager.
      * <p>
      * The provided MarkerViewAdapter must use supply a generic subclass of MarkerView.
+     * When several adapters supply the same subclass, the last added one is used.
      * </p>
      *
      * @param markerViewAdapter the MarkerViewAdapter to add
@@ -271,10 +652,63 @@ public class MarkerViewManager {
 
         if (!markerViewAdapters.contains(markerViewAdapter)) {
             markerViewAdapters.add(markerViewAdapter);
+            markerViewAdapterMap.put(markerViewAdapter.getMarkerClass(), markerViewAdapter);
             invalidateViewMarkersInBounds();
         }
     }
 
+    /**
+     * <p>
+     * Fills the pool of reusable Views of an adapter while the main thread is idle, so the Views
+     * don't have to be created while the map is panned.
+     * </p>
+     * Views are created with {@link com.mapbox.mapboxsdk.maps.MapboxMap.MarkerViewAdapter#createView(ViewGroup)}
+     * a few at a time, until the pool holds the given number of Views or is full. Call it after the
+     * map is ready, adapters that don't create Views are ignored.
+     *
+     * @param adapter the adapter to prewarm, added to this MarkerViewManager
+     * @param count   the number of Views the pool should hold
+     */
+    public void prewarmViewReusePool(@NonNull final MapboxMap.MarkerViewAdapter adapter, final int count) {
+        final int target = Math.min(count, adapter.getViewPoolSize());
+        if (adapter.getPooledViewCount() >= target) {
+            return;
+        }
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                // keep prewarming on the next idle frame until done
+                return prewarmViewReusePool(adapter, target, PREWARM_BATCH_SIZE);
+            }
+        });
+    }
+
+    // creates up to batchSize views, returns whether the pool needs and can take more
+    boolean prewarmViewReusePool(@NonNull MapboxMap.MarkerViewAdapter adapter, int target, int batchSize) {
+        if (!markerViewAdapters.contains(adapter)) {
+            return false;
+        }
+
+        ViewGroup container = mapView.getMarkerViewContainer();
+        for (int i = 0; i < batchSize && adapter.getPooledViewCount() < target; i++) {
+            View view = adapter.createView(container);
+            if (view == null) {
+                return false;
+            }
+            view.setVisibility(View.GONE);
+            container.addView(view);
+            int pooledViewCount = adapter.getPooledViewCount();
+            adapter.releaseView(view);
+            if (adapter.getPooledViewCount() == pooledViewCount) {
+                // the pool is full, stop instead of creating views that are dropped
+                container.removeView(view);
+                return false;
+            }
+        }
+        return adapter.getPooledViewCount() < target;
+    }
+
     /**
      * Get all MarkerViewAdapters associated with this MarkerViewManager.
      *
@@ -293,15 +727,78 @@ public class MarkerViewManager {
         onMarkerViewClickListener = listener;
     }
 
+    /**
+     * <p>
+     * Sets whether ViewMarkers are invalidated incrementally.
+     * </p>
+     * When enabled, {@link #scheduleViewMarkerInvalidation()} isn't rate limited and only queries the
+     * regions that entered or exited the viewport since the previous camera frame, instead of the
+     * whole viewport. MarkerViews moved by a {@link MarkerAnimator} are shown and hidden by their new
+     * position on each frame, markers moved otherwise are updated by the next
+     * {@link #invalidateViewMarkersInBounds()}.
+     *
+     * @param enabled true to invalidate incrementally, false by default
+     */
+    public void setIncrementalInvalidation(boolean enabled) {
+        incrementalInvalidation = enabled;
+        resetInvalidationBounds();
+    }
+
+    /**
+     * Returns whether ViewMarkers are invalidated incrementally.
+     *
+     * @return true if ViewMarkers are invalidated incrementally
+     */
+    public boolean isIncrementalInvalidation() {
+        return incrementalInvalidation;
+    }
+
+    /**
+     * <p>
+     * Sets the margin around the viewport in which ViewMarkers are shown.
+     * </p>
+     * Markers are shown once they are within the margin, and hidden once they are further than twice
+     * the margin, so markers near the edge of the viewport don't swap their View on each small pan.
+     *
+     * @param margin the margin as a fraction of the viewport width and height, 0 by default
+     */
+    public void setOffscreenMargin(float margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Offscreen margin can't be negative: " + margin);
+        }
+        offscreenMargin = margin;
+        resetInvalidationBounds();
+    }
+
+    /**
+     * Returns the margin around the viewport in which ViewMarkers are shown.
+     *
+     * @return the margin as a fraction of the viewport width and height
+     */
+    public float getOffscreenMargin() {
+        return offscreenMargin;
+    }
+
+    private void resetInvalidationBounds() {
+        // the next incremental invalidation queries the whole viewport
+        enterBounds = null;
+        exitBounds = null;
+    }
+
     /**
      * Schedule that ViewMarkers found in the viewport are invalidated.
      * <p>
      * This method is rate limited, and {@link #invalidateViewMarkersInBounds} will only be called
-     * once each 250 ms.
+     * once each 250 ms, unless incremental invalidation is enabled.
      * </p>
      */
     public void scheduleViewMarkerInvalidation() {
         if (!markerViewAdapters.isEmpty()) {
+            if (incrementalInvalidation) {
+                invalidateViewMarkersIncrementally();
+                return;
+            }
+
             long currentTime = SystemClock.elapsedRealtime();
             if (currentTime < viewMarkerBoundsUpdateTime) {
                 return;
@@ -315,99 +812,288 @@ public class MarkerViewManager {
      * Invalidate the ViewMarkers found in the viewport.
      * <p>
      * This method will remove any markers that aren't in the viewport any more and will add new
-     * ones for each found Marker in the changed viewport.
+     * ones for each found Marker in the changed viewport. Markers that stayed in the viewport keep
+     * their View.
      * </p>
      */
     public void invalidateViewMarkersInBounds() {
-        Projection projection = mapboxMap.getProjection();
-        List<MarkerView> markers = mapView.getMarkerViewsInBounds(projection.getVisibleRegion().latLngBounds);
-        View convertView;
+        LatLngBounds visibleBounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        LatLngBounds newEnterBounds = expandBounds(visibleBounds, offscreenMargin);
+        LatLngBounds newExitBounds = expandBounds(visibleBounds, offscreenMargin * 2);
+        // without a margin, markers are hidden as soon as the query doesn't return them
+        LatLngBounds keepBounds = offscreenMargin > 0 ? newExitBounds : null;
+        List<MarkerView> markers = mapView.getMarkerViewsInBounds(newEnterBounds);
+        visibleMarkers.clear();
+        visibleMarkers.addAll(markers);
 
-        // remove old markers
-        Iterator<MarkerView> iterator = markerViewMap.keySet().iterator();
+        // remove markers that exited the viewport
+        Iterator<Map.Entry<MarkerView, View>> iterator = markerViewMap.entrySet().iterator();
+        Map.Entry<MarkerView, View> entry;
         while (iterator.hasNext()) {
-            MarkerView m = iterator.next();
-            if (!markers.contains(m)) {
-                // remove marker
-                convertView = markerViewMap.get(m);
-                for (MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
-                    if (adapter.getMarkerClass().equals(m.getClass())) {
-                        adapter.prepareViewForReuse(m, convertView);
-                        adapter.releaseView(convertView);
-                        iterator.remove();
-                    }
+            entry = iterator.next();
+            MarkerView m = entry.getKey();
+            if (!visibleMarkers.contains(m) && !isInBounds(m, keepBounds)) {
+                MapboxMap.MarkerViewAdapter adapter = getAdapter(m);
+                if (adapter != null) {
+                    adapter.prepareViewForReuse(m, entry.getValue());
+                    adapter.releaseView(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        if (markerViewCanvas != null) {
+            Iterator<MarkerView> canvasIterator = markerViewCanvas.getMarkers().iterator();
+            MarkerView m;
+            while (canvasIterator.hasNext()) {
+                m = canvasIterator.next();
+                if (!visibleMarkers.contains(m) && !isInBounds(m, keepBounds)) {
+                    canvasIterator.remove();
                 }
             }
+            markerViewCanvas.invalidate();
         }
 
-        // introduce new markers
-        for (final MarkerView marker : markers) {
-            if (!markerViewMap.containsKey(marker)) {
-                for (final MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
-                    if (adapter.getMarkerClass().equals(marker.getClass())) {
-                        convertView = (View) adapter.getViewReusePool().acquire();
-                        final View adaptedView = adapter.getView(marker, convertView, mapView);
-                        if (adaptedView != null) {
-
-                            // tilt
-                            adaptedView.setRotationX(marker.getTilt());
-
-                            // rotation
-                            adaptedView.setRotation(marker.getRotation());
-
-                            // alpha
-                            adaptedView.setAlpha(marker.getAlpha());
-
-                            // visible
-                            adaptedView.setVisibility(View.GONE);
-
-                            if (mapboxMap.getSelectedMarkers().contains(marker)) {
-                                // if a marker to be shown was selected
-                                // replay that animation with duration 0
-                                if (adapter.onSelect(marker, adaptedView, true)) {
-                                    mapboxMap.selectMarker(marker);
-                                }
-                            }
-
-                            adaptedView.setOnClickListener(new View.OnClickListener() {
-                                @Override
-                                public void onClick(final View v) {
-                                    boolean clickHandled = false;
-                                    if (onMarkerViewClickListener != null) {
-                                        clickHandled = onMarkerViewClickListener.onMarkerClick(marker, v, adapter);
-                                    }
-
-                                    if (!clickHandled) {
-                                        ensureInfoWindowOffset(marker);
-                                        select(marker, v, adapter);
-                                    }
-                                }
-                            });
-
-                            markerViewMap.put(marker, adaptedView);
-                            if (convertView == null) {
-                                adaptedView.setVisibility(View.GONE);
-                                mapView.getMarkerViewContainer().addView(adaptedView);
-                            }
-                        }
+        // introduce markers that entered the viewport
+        for (MarkerView marker : markers) {
+            if (getShownView(marker) == null) {
+                showMarker(marker);
+            }
+        }
+        visibleMarkers.clear();
+        enterBounds = newEnterBounds;
+        exitBounds = newExitBounds;
+    }
+
+    /**
+     * Invalidates the ViewMarkers in the regions that entered or exited the viewport since the last
+     * invalidation, or in the whole viewport if the viewport jumped.
+     */
+    void invalidateViewMarkersIncrementally() {
+        LatLngBounds visibleBounds = mapboxMap.getProjection().getVisibleRegion().latLngBounds;
+        LatLngBounds newEnterBounds = expandBounds(visibleBounds, offscreenMargin);
+        if (enterBounds == null || exitBounds == null || !overlaps(enterBounds, newEnterBounds)) {
+            invalidateViewMarkersInBounds();
+            return;
+        }
+        LatLngBounds newExitBounds = expandBounds(visibleBounds, offscreenMargin * 2);
+
+        // introduce markers in the strips that entered the viewport
+        addDifference(newEnterBounds, enterBounds, invalidationStrips);
+        for (int i = 0; i < invalidationStrips.size(); i++) {
+            for (MarkerView marker : mapView.getMarkerViewsInBounds(invalidationStrips.get(i))) {
+                if (getShownView(marker) == null) {
+                    showMarker(marker);
+                }
+            }
+        }
+        invalidationStrips.clear();
+
+        // remove markers in the strips that exited the viewport, past the margin
+        addDifference(exitBounds, newExitBounds, invalidationStrips);
+        for (int i = 0; i < invalidationStrips.size(); i++) {
+            for (MarkerView marker : mapView.getMarkerViewsInBounds(invalidationStrips.get(i))) {
+                if (!isInBounds(marker, newExitBounds)) {
+                    hideMarker(marker);
+                }
+            }
+        }
+        invalidationStrips.clear();
+
+        enterBounds = newEnterBounds;
+        exitBounds = newExitBounds;
+    }
+
+    /**
+     * Shows or hides the moved ViewMarkers by their new position, when invalidating incrementally.
+     * Incremental invalidation only queries the regions the camera scrolled over, so markers that
+     * moved in or out of the viewport under a still camera are handled here.
+     *
+     * @param markers the moved markers, markers that aren't MarkerViews are skipped
+     */
+    void invalidateMovedViewMarkers(@NonNull List<Marker> markers) {
+        if (!incrementalInvalidation || enterBounds == null || exitBounds == null) {
+            // the next invalidation queries the whole viewport
+            return;
+        }
+
+        MarkerView markerView;
+        for (Marker marker : markers) {
+            if (!(marker instanceof MarkerView)) {
+                continue;
+            }
+            markerView = (MarkerView) marker;
+            if (getShownView(markerView) == null) {
+                if (isInBounds(markerView, enterBounds)) {
+                    showMarker(markerView);
+                }
+            } else if (!isInBounds(markerView, exitBounds)) {
+                hideMarker(markerView);
+            }
+        }
+    }
+
+    private void showMarker(@NonNull MarkerView marker) {
+        MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+        if (adapter instanceof MapboxMap.CanvasMarkerViewAdapter) {
+            addCanvasMarker(marker, (MapboxMap.CanvasMarkerViewAdapter) adapter);
+        } else if (adapter != null) {
+            addMarkerView(marker, adapter);
+        }
+    }
+
+    private void hideMarker(@NonNull MarkerView marker) {
+        View view = markerViewMap.get(marker);
+        if (view != null) {
+            MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+            if (adapter != null) {
+                adapter.prepareViewForReuse(marker, view);
+                adapter.releaseView(view);
+                markerViewMap.remove(marker);
+            }
+        } else if (markerViewCanvas != null) {
+            markerViewCanvas.remove(marker);
+        }
+    }
+
+    private static boolean isInBounds(@NonNull MarkerView marker, @Nullable LatLngBounds bounds) {
+        return bounds != null && marker.getPosition() != null && bounds.contains(marker.getPosition());
+    }
+
+    private static LatLngBounds expandBounds(@NonNull LatLngBounds bounds, float margin) {
+        if (margin <= 0) {
+            return bounds;
+        }
+        double latMargin = bounds.getLatitudeSpan() * margin;
+        double lonMargin = bounds.getLongitudeSpan() * margin;
+        return new LatLngBounds.Builder()
+                .include(new LatLng(Math.min(90, bounds.getLatNorth() + latMargin),
+                        Math.min(180, bounds.getLonEast() + lonMargin)))
+                .include(new LatLng(Math.max(-90, bounds.getLatSouth() - latMargin),
+                        Math.max(-180, bounds.getLonWest() - lonMargin)))
+                .build();
+    }
+
+    private static boolean overlaps(@NonNull LatLngBounds a, @NonNull LatLngBounds b) {
+        return a.getLatSouth() < b.getLatNorth() && a.getLatNorth() > b.getLatSouth()
+                && a.getLonWest() < b.getLonEast() && a.getLonEast() > b.getLonWest();
+    }
+
+    /**
+     * Adds up to four bounds covering the part of a that is outside of b: strips along the north
+     * and south edges spanning the width of a, then along the east and west edges in between.
+     *
+     * @param a      the bounds to cover
+     * @param b      the bounds to leave out, overlapping a
+     * @param strips the list to add the bounds to
+     */
+    static void addDifference(@NonNull LatLngBounds a, @NonNull LatLngBounds b, @NonNull List<LatLngBounds> strips) {
+        double north = Math.min(a.getLatNorth(), b.getLatNorth());
+        double south = Math.max(a.getLatSouth(), b.getLatSouth());
+        addStrip(a.getLatNorth(), a.getLonEast(), north, a.getLonWest(), strips);
+        addStrip(south, a.getLonEast(), a.getLatSouth(), a.getLonWest(), strips);
+        addStrip(north, a.getLonEast(), south, b.getLonEast(), strips);
+        addStrip(north, b.getLonWest(), south, a.getLonWest(), strips);
+    }
+
+    private static void addStrip(double north, double east, double south, double west, List<LatLngBounds> strips) {
+        if (north > south && east > west) {
+            strips.add(new LatLngBounds.Builder()
+                    .include(new LatLng(north, east))
+                    .include(new LatLng(south, west))
+                    .build());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addCanvasMarker(MarkerView marker, MapboxMap.CanvasMarkerViewAdapter adapter) {
+        Bitmap bitmap = adapter.getBitmap(marker);
+        if (bitmap == null) {
+            return;
+        }
+
+        if (markerViewCanvas == null) {
+            markerViewCanvas = new MarkerViewCanvas(mapView.getContext());
+            mapView.getMarkerViewContainer().addView(markerViewCanvas,
+                    new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        }
+        markerViewCanvas.add(marker, bitmap);
+
+        if (mapboxMap.isMarkerSelected(marker)) {
+            // if a marker to be shown was selected
+            // replay that animation with duration 0
+            if (adapter.onSelect(marker, markerViewCanvas, true)) {
+                mapboxMap.selectMarker(marker);
+            }
+        }
+    }
+
+    private void addMarkerView(final MarkerView marker, final MapboxMap.MarkerViewAdapter adapter) {
+        View convertView = adapter.acquireView();
+        final View adaptedView = adapter.getView(marker, convertView, mapView);
+        if (adaptedView != null) {
+
+            // tilt
+            adaptedView.setRotationX(marker.getTilt());
+
+            // rotation
+            adaptedView.setRotation(marker.getRotation());
+
+            // alpha
+            adaptedView.setAlpha(marker.getAlpha());
+
+            // visible
+            adaptedView.setVisibility(View.GONE);
+
+            if (mapboxMap.isMarkerSelected(marker)) {
+                // if a marker to be shown was selected
+                // replay that animation with duration 0
+                if (adapter.onSelect(marker, adaptedView, true)) {
+                    mapboxMap.selectMarker(marker);
+                }
+            }
+
+            adaptedView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(final View v) {
+                    boolean clickHandled = false;
+                    if (onMarkerViewClickListener != null) {
+                        clickHandled = onMarkerViewClickListener.onMarkerClick(marker, v, adapter);
+                    }
+
+                    if (!clickHandled) {
+                        ensureInfoWindowOffset(marker);
+                        select(marker, v, adapter);
                     }
                 }
+            });
+
+            markerViewMap.put(marker, adaptedView);
+            if (convertView == null) {
+                adaptedView.setVisibility(View.GONE);
+                mapView.getMarkerViewContainer().addView(adaptedView);
             }
         }
     }
 
+    @Nullable
+    private MapboxMap.MarkerViewAdapter getAdapter(@NonNull MarkerView marker) {
+        return markerViewAdapterMap.get(marker.getClass());
+    }
+
     //TODO: This whole method is a stopgap for: https://github.com/mapbox/mapbox-gl-native/issues/5384
     public void ensureInfoWindowOffset(MarkerView marker) {
         View view = null;
-        if (markerViewMap.containsKey(marker)) {
+        MapboxMap.MarkerViewAdapter markerAdapter = getAdapter(marker);
+        if (markerAdapter instanceof MapboxMap.CanvasMarkerViewAdapter) {
+            ensureCanvasInfoWindowOffset(marker, (MapboxMap.CanvasMarkerViewAdapter) markerAdapter);
+            return;
+        } else if (markerViewMap.containsKey(marker)) {
             view = markerViewMap.get(marker);
         } else {
-            for (final MapboxMap.MarkerViewAdapter adapter : markerViewAdapters) {
-                if (adapter.getMarkerClass().equals(marker.getClass())) {
-                    View convertView = (View) adapter.getViewReusePool().acquire();
-                    view = adapter.getView(marker, convertView, mapView);
-                    break;
-                }
+            MapboxMap.MarkerViewAdapter adapter = getAdapter(marker);
+            if (adapter != null) {
+                View convertView = adapter.acquireView();
+                view = adapter.getView(marker, convertView, mapView);
             }
         }
 
@@ -432,6 +1118,28 @@ public class MarkerViewManager {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void ensureCanvasInfoWindowOffset(MarkerView marker, MapboxMap.CanvasMarkerViewAdapter adapter) {
+        Bitmap bitmap = markerViewCanvas != null ? markerViewCanvas.getBitmap(marker) : null;
+        if (bitmap == null) {
+            bitmap = adapter.getBitmap(marker);
+        }
+
+        if (bitmap != null) {
+            if (marker.getOffsetX() == -1) {
+                int x = (int) (marker.getAnchorU() * bitmap.getWidth());
+                int y = (int) (marker.getAnchorV() * bitmap.getHeight());
+                marker.setOffset(x, y);
+            }
+
+            // InfoWindow offset
+            int infoWindowOffsetX = (int) ((bitmap.getWidth() * marker.getInfoWindowAnchorU()) - marker.getOffsetX());
+            int infoWindowOffsetY = (int) ((bitmap.getHeight() * marker.getInfoWindowAnchorV()) - marker.getOffsetY());
+            marker.setTopOffsetPixels(infoWindowOffsetY);
+            marker.setRightOffsetPixels(infoWindowOffsetX);
+        }
+    }
+
     /**
      * Default MarkerViewAdapter used for base class of MarkerView to adapt a MarkerView to an ImageView
      */
@@ -447,19 +1155,24 @@ public class MarkerViewManager {
         @Nullable
         @Override
         public View getView(@NonNull MarkerView marker, @Nullable View convertView, @NonNull ViewGroup parent) {
-            ViewHolder viewHolder;
             if (convertView == null) {
-                viewHolder = new ViewHolder();
-                convertView = inflater.inflate(R.layout.view_image_marker, parent, false);
-                viewHolder.imageView = (ImageView) convertView.findViewById(R.id.image);
-                convertView.setTag(viewHolder);
-            } else {
-                viewHolder = (ViewHolder) convertView.getTag();
+                convertView = createView(parent);
             }
+            ViewHolder viewHolder = (ViewHolder) convertView.getTag();
             viewHolder.imageView.setImageBitmap(marker.getIcon().getBitmap());
             return convertView;
         }
 
+        @NonNull
+        @Override
+        public View createView(@NonNull ViewGroup parent) {
+            ViewHolder viewHolder = new ViewHolder();
+            View view = inflater.inflate(R.layout.view_image_marker, parent, false);
+            viewHolder.imageView = (ImageView) view.findViewById(R.id.image);
+            view.setTag(viewHolder);
+            return view;
+        }
+
         private static class ViewHolder {
             ImageView imageView;
         }
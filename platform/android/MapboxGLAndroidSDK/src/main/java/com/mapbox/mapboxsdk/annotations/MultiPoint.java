@@ -2,20 +2,37 @@ package com.mapbox.mapboxsdk.annotations;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
+ * <p>
  * Multipoint is an abstract annotation for combining geographical locations.
+ * </p>
+ * Points are stored as interleaved latitude and longitude pairs, altitudes are not retained.
  */
 public abstract class MultiPoint extends Annotation {
 
-    private List<LatLng> points;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private double[] coordinates;
+    private int pointCount;
     private float alpha = 1.0f;
 
+    // the coordinates sent to the map, a simplified version of coordinates when simplification is enabled
+    private double[] renderCoordinates;
+    private int renderPointCount;
+    private boolean simplified;
+    private ShapeSimplification simplification;
+    private int renderBand = -1;
+
     protected MultiPoint() {
         super();
-        points = new ArrayList<>();
+        coordinates = new double[INITIAL_CAPACITY * 2];
+        renderCoordinates = coordinates;
     }
 
     /**
@@ -24,7 +41,52 @@ public abstract class MultiPoint extends Annotation {
      * @return points - as a copy
      */
     public List<LatLng> getPoints() {
-        return new ArrayList<>(points);
+        List<LatLng> points = new ArrayList<>(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            points.add(new LatLng(coordinates[i * 2], coordinates[i * 2 + 1]));
+        }
+        return points;
+    }
+
+    /**
+     * Returns a read-only view of the points. The view reflects later changes of the points and
+     * creates a {@link LatLng} for each access, use {@link #getCoordinates()} to read them in bulk.
+     *
+     * @return points - as a read-only view
+     */
+    public List<LatLng> getPointsView() {
+        return new PointsView();
+    }
+
+    /**
+     * Returns a point.
+     *
+     * @param index the index of the point
+     * @return the point at the index
+     */
+    public LatLng getPoint(int index) {
+        if (index < 0 || index >= pointCount) {
+            throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + pointCount);
+        }
+        return new LatLng(coordinates[index * 2], coordinates[index * 2 + 1]);
+    }
+
+    /**
+     * Returns the number of points.
+     *
+     * @return the number of points
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Returns a copy of the points as interleaved latitude and longitude pairs.
+     *
+     * @return coordinates - as a copy
+     */
+    public double[] getCoordinates() {
+        return Arrays.copyOf(coordinates, pointCount * 2);
     }
 
     /**
@@ -35,11 +97,96 @@ public abstract class MultiPoint extends Annotation {
      * @param points the points of the polyline
      */
     void setPoints(List<LatLng> points) {
-        this.points = new ArrayList<>(points);
+        coordinates = new double[Math.max(points.size(), INITIAL_CAPACITY) * 2];
+        pointCount = 0;
+        for (LatLng point : points) {
+            coordinates[pointCount * 2] = point.getLatitude();
+            coordinates[pointCount * 2 + 1] = point.getLongitude();
+            pointCount++;
+        }
+        resetSimplification();
     }
 
     void addPoint(LatLng point) {
-        points.add(point);
+        ensureCapacity(pointCount + 1);
+        coordinates[pointCount * 2] = point.getLatitude();
+        coordinates[pointCount * 2 + 1] = point.getLongitude();
+        pointCount++;
+        resetSimplification();
+    }
+
+    void addCoordinates(double[] latLngs) {
+        if (latLngs.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates should hold latitude and longitude pairs");
+        }
+        ensureCapacity(pointCount + latLngs.length / 2);
+        System.arraycopy(latLngs, 0, coordinates, pointCount * 2, latLngs.length);
+        pointCount += latLngs.length / 2;
+        resetSimplification();
+    }
+
+    private void ensureCapacity(int count) {
+        if (count * 2 > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, Math.max(count, pointCount * 2) * 2);
+        }
+    }
+
+    /**
+     * Returns whether the points are simplified depending on the zoom level.
+     *
+     * @return true if simplification is enabled
+     */
+    public boolean isSimplified() {
+        return simplified;
+    }
+
+    void setSimplified(boolean simplified) {
+        this.simplified = simplified;
+        resetSimplification();
+    }
+
+    /**
+     * Do not use this method. Used internally by the SDK.
+     * <p>
+     * Selects the level of detail of the points sent to the map for a zoom level.
+     * </p>
+     *
+     * @param zoom the zoom level of the camera
+     * @return true if the points sent to the map changed and the annotation needs to be updated
+     */
+    public boolean setRenderZoom(double zoom) {
+        if (!simplified) {
+            return false;
+        }
+
+        if (simplification == null) {
+            simplification = new ShapeSimplification(coordinates, pointCount);
+        }
+
+        int band = simplification.getBand(zoom);
+        if (band == renderBand) {
+            return false;
+        }
+        renderBand = band;
+        renderCoordinates = simplification.getCoordinates(coordinates, band);
+        renderPointCount = renderCoordinates == coordinates ? pointCount : renderCoordinates.length / 2;
+        return true;
+    }
+
+    /**
+     * Returns the number of points sent to the map.
+     *
+     * @return the number of points at the current level of detail
+     */
+    public int getRenderPointCount() {
+        return renderPointCount;
+    }
+
+    private void resetSimplification() {
+        simplification = null;
+        renderBand = -1;
+        renderCoordinates = coordinates;
+        renderPointCount = pointCount;
     }
 
     public float getAlpha() {
@@ -49,4 +196,17 @@ public abstract class MultiPoint extends Annotation {
     void setAlpha(float alpha) {
         this.alpha = alpha;
     }
+
+    private class PointsView extends AbstractList<LatLng> implements RandomAccess {
+
+        @Override
+        public LatLng get(int index) {
+            return getPoint(index);
+        }
+
+        @Override
+        public int size() {
+            return pointCount;
+        }
+    }
 }
@@ -6,7 +6,7 @@ import android.os.Parcelable;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -27,12 +27,11 @@ public final class PolygonOptions implements Parcelable {
 
     private PolygonOptions(Parcel in) {
         polygon = new Polygon();
-        ArrayList<LatLng> pointsList = new ArrayList<>();
-        in.readList(pointsList, LatLng.class.getClassLoader());
-        addAll(pointsList);
+        addAll(in.createDoubleArray());
         alpha(in.readFloat());
         fillColor(in.readInt());
         strokeColor(in.readInt());
+        simplify(in.readByte() != 0);
     }
 
     @Override
@@ -42,10 +41,11 @@ public final class PolygonOptions implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel out, int flags) {
-        out.writeList(getPoints());
+        out.writeDoubleArray(polygon.getCoordinates());
         out.writeFloat(getAlpha());
         out.writeInt(getFillColor());
         out.writeInt(getStrokeColor());
+        out.writeByte((byte) (isSimplified() ? 1 : 0));
     }
 
     private Polygon polygon;
@@ -73,6 +73,18 @@ public final class PolygonOptions implements Parcelable {
         return this;
     }
 
+    /**
+     * Adds points as interleaved latitude and longitude pairs, without creating a {@link LatLng}
+     * for each point.
+     *
+     * @param coordinates the latitude and longitude pairs to add
+     * @return PolygonOptions - the options object
+     */
+    public PolygonOptions addAll(double[] coordinates) {
+        polygon.addCoordinates(coordinates);
+        return this;
+    }
+
     public PolygonOptions alpha(float alpha) {
         polygon.setAlpha(alpha);
         return this;
@@ -121,6 +133,26 @@ public final class PolygonOptions implements Parcelable {
         return polygon.getStrokeColor();
     }
 
+    /**
+     * Sets whether the polygon is simplified depending on the zoom level.
+     * <p>
+     * When enabled, the points sent to the map are reduced with Douglas-Peucker for each zoom band,
+     * dropping the points that would be less than half a pixel away from the simplified polygon.
+     * Use this for polygons with a large number of points, like recorded tracks.
+     * </p>
+     *
+     * @param simplify true to simplify the polygon, false by default
+     * @return PolygonOptions - the options object
+     */
+    public PolygonOptions simplify(boolean simplify) {
+        polygon.setSimplified(simplify);
+        return this;
+    }
+
+    public boolean isSimplified() {
+        return polygon.isSimplified();
+    }
+
     public List<LatLng> getPoints() {
         // the getter gives us a copy, which is the safe thing to do...
         return polygon.getPoints();
@@ -136,7 +168,8 @@ public final class PolygonOptions implements Parcelable {
         if (Float.compare(polygon.getAlpha(), getAlpha()) != 0) return false;
         if (getFillColor() != polygon.getFillColor()) return false;
         if (getStrokeColor() != polygon.getStrokeColor()) return false;
-        return !(getPoints() != null ? !getPoints().equals(polygon.getPoints()) : polygon.getPoints() != null);
+        if (isSimplified() != polygon.isSimplified()) return false;
+        return Arrays.equals(this.polygon.getCoordinates(), polygon.getPolygon().getCoordinates());
     }
 
     @Override
@@ -145,7 +178,8 @@ public final class PolygonOptions implements Parcelable {
         result = 31 * result + (getAlpha() != +0.0f ? Float.floatToIntBits(getAlpha()) : 0);
         result = 31 * result + getFillColor();
         result = 31 * result + getStrokeColor();
-        result = 31 * result + (getPoints() != null ? getPoints().hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(polygon.getCoordinates());
+        result = 31 * result + (isSimplified() ? 1 : 0);
         return result;
     }
 }
@@ -5,7 +5,7 @@ import android.os.Parcelable;
 
 import com.mapbox.mapboxsdk.geometry.LatLng;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -27,12 +27,11 @@ public final class PolylineOptions implements Parcelable {
 
     private PolylineOptions(Parcel in) {
         polyline = new Polyline();
-        ArrayList<LatLng> pointsList = new ArrayList<>();
-        in.readList(pointsList, LatLng.class.getClassLoader());
-        addAll(pointsList);
+        addAll(in.createDoubleArray());
         alpha(in.readFloat());
         color(in.readInt());
         width(in.readFloat());
+        simplify(in.readByte() != 0);
     }
 
     @Override
@@ -42,10 +41,11 @@ public final class PolylineOptions implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel out, int flags) {
-        out.writeList(getPoints());
+        out.writeDoubleArray(polyline.getCoordinates());
         out.writeFloat(getAlpha());
         out.writeInt(getColor());
         out.writeFloat(getWidth());
+        out.writeByte((byte) (isSimplified() ? 1 : 0));
     }
 
     private Polyline polyline;
@@ -73,6 +73,18 @@ public final class PolylineOptions implements Parcelable {
         return this;
     }
 
+    /**
+     * Adds points as interleaved latitude and longitude pairs, without creating a {@link LatLng}
+     * for each point.
+     *
+     * @param coordinates the latitude and longitude pairs to add
+     * @return PolylineOptions - the options object
+     */
+    public PolylineOptions addAll(double[] coordinates) {
+        polyline.addCoordinates(coordinates);
+        return this;
+    }
+
     public PolylineOptions alpha(float alpha) {
         polyline.setAlpha(alpha);
         return this;
@@ -120,6 +132,26 @@ public final class PolylineOptions implements Parcelable {
         return this;
     }
 
+    /**
+     * Sets whether the polyline is simplified depending on the zoom level.
+     * <p>
+     * When enabled, the points sent to the map are reduced with Douglas-Peucker for each zoom band,
+     * dropping the points that would be less than half a pixel away from the simplified polyline.
+     * Use this for polylines with a large number of points, like recorded tracks.
+     * </p>
+     *
+     * @param simplify true to simplify the polyline, false by default
+     * @return PolylineOptions - the options object
+     */
+    public PolylineOptions simplify(boolean simplify) {
+        polyline.setSimplified(simplify);
+        return this;
+    }
+
+    public boolean isSimplified() {
+        return polyline.isSimplified();
+    }
+
     public List<LatLng> getPoints() {
         // the getter gives us a copy, which is the safe thing to do...
         return polyline.getPoints();
@@ -135,7 +167,8 @@ public final class PolylineOptions implements Parcelable {
         if (Float.compare(polyline.getAlpha(), getAlpha()) != 0) return false;
         if (getColor() != polyline.getColor()) return false;
         if (Float.compare(polyline.getWidth(), getWidth()) != 0) return false;
-        return !(getPoints() != null ? !getPoints().equals(polyline.getPoints()) : polyline.getPoints() != null);
+        if (isSimplified() != polyline.isSimplified()) return false;
+        return Arrays.equals(this.polyline.getCoordinates(), polyline.getPolyline().getCoordinates());
     }
 
     @Override
@@ -144,7 +177,8 @@ public final class PolylineOptions implements Parcelable {
         result = 31 * result + (getAlpha() != +0.0f ? Float.floatToIntBits(getAlpha()) : 0);
         result = 31 * result + getColor();
         result = 31 * result + (getWidth() != +0.0f ? Float.floatToIntBits(getWidth()) : 0);
-        result = 31 * result + (getPoints() != null ? getPoints().hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(polyline.getCoordinates());
+        result = 31 * result + (isSimplified() ? 1 : 0);
         return result;
     }
 }
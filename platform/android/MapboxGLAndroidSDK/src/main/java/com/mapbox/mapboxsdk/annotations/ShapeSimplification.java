@@ -0,0 +1,203 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.support.annotation.NonNull;
+
+/**
+ * <p>
+ * Douglas-Peucker simplification of a {@link MultiPoint} for each zoom band.
+ * </p>
+ * The significance of every point, the distance at which Douglas-Peucker would drop it, is computed
+ * once. The points of a zoom band are the points more significant than the tolerance of that band,
+ * which is half a pixel at the most detailed zoom level of the band.
+ */
+final class ShapeSimplification {
+
+    static final int ZOOM_BAND_SIZE = 2;
+    static final int MAX_SIMPLIFIED_ZOOM = 16;
+
+    private static final int BAND_COUNT = MAX_SIMPLIFIED_ZOOM / ZOOM_BAND_SIZE;
+    private static final double PIXEL_TOLERANCE = 0.5;
+    private static final double TILE_SIZE = 512;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    // a band keeping most of the points is replaced by the full geometry
+    private static final float FULL_GEOMETRY_RATIO = 0.9f;
+
+    private final float[] mSignificance;
+    private final int[][] mBandIndices = new int[BAND_COUNT][];
+    private int mFullGeometryBand = BAND_COUNT;
+
+    ShapeSimplification(@NonNull double[] coordinates, int pointCount) {
+        mSignificance = computeSignificance(coordinates, pointCount);
+    }
+
+    /**
+     * Returns the zoom band of a zoom level.
+     *
+     * @param zoom the zoom level
+     * @return the zoom band, {@link #getFullGeometryBand()} if the full geometry should be used
+     */
+    int getBand(double zoom) {
+        int band = (int) Math.floor(zoom / ZOOM_BAND_SIZE);
+        return Math.max(0, Math.min(band, mFullGeometryBand));
+    }
+
+    int getFullGeometryBand() {
+        return mFullGeometryBand;
+    }
+
+    /**
+     * Returns the coordinates of a zoom band.
+     *
+     * @param coordinates the interleaved latitude and longitude pairs the simplification was computed from
+     * @param band        the zoom band
+     * @return the simplified coordinates, or the given coordinates for the full geometry
+     */
+    @NonNull
+    double[] getCoordinates(@NonNull double[] coordinates, int band) {
+        int[] indices = getIndices(band);
+        if (indices == null) {
+            return coordinates;
+        }
+
+        double[] simplified = new double[indices.length * 2];
+        for (int i = 0; i < indices.length; i++) {
+            simplified[i * 2] = coordinates[indices[i] * 2];
+            simplified[i * 2 + 1] = coordinates[indices[i] * 2 + 1];
+        }
+        return simplified;
+    }
+
+    private int[] getIndices(int band) {
+        if (band >= mFullGeometryBand) {
+            return null;
+        }
+
+        if (mBandIndices[band] == null) {
+            double scale = TILE_SIZE * Math.pow(2, (band + 1) * ZOOM_BAND_SIZE);
+            float tolerance = (float) (PIXEL_TOLERANCE / scale);
+
+            int count = 0;
+            for (float significance : mSignificance) {
+                if (significance > tolerance) {
+                    count++;
+                }
+            }
+
+            if (count >= mSignificance.length * FULL_GEOMETRY_RATIO) {
+                // more detailed bands won't drop enough points either
+                mFullGeometryBand = band;
+                return null;
+            }
+
+            int[] indices = new int[count];
+            int j = 0;
+            for (int i = 0; i < mSignificance.length; i++) {
+                if (mSignificance[i] > tolerance) {
+                    indices[j++] = i;
+                }
+            }
+            mBandIndices[band] = indices;
+        }
+        return mBandIndices[band];
+    }
+
+    /**
+     * Computes the distance, in normalized web mercator units, below which Douglas-Peucker drops
+     * each point. A point is never more significant than the point splitting its parent segment,
+     * so the points kept for a tolerance always match a Douglas-Peucker run with that tolerance.
+     */
+    static float[] computeSignificance(@NonNull double[] coordinates, int count) {
+        float[] significance = new float[count];
+        if (count == 0) {
+            return significance;
+        }
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, coordinates[i * 2]));
+            x[i] = (coordinates[i * 2 + 1] + 180) / 360;
+            y[i] = 0.5 - Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitude) / 2)) / (2 * Math.PI);
+        }
+
+        significance[0] = Float.POSITIVE_INFINITY;
+        significance[count - 1] = Float.POSITIVE_INFINITY;
+
+        // segments are processed with an explicit stack, tracks can hold millions of points
+        int[] stack = new int[64];
+        float[] parentSignificance = new float[32];
+        int top = 0;
+        if (count > 2) {
+            stack[top * 2] = 0;
+            stack[top * 2 + 1] = count - 1;
+            parentSignificance[top] = Float.POSITIVE_INFINITY;
+            top++;
+        }
+
+        while (top > 0) {
+            top--;
+            int first = stack[top * 2];
+            int last = stack[top * 2 + 1];
+            float parent = parentSignificance[top];
+
+            double maxDistance = -1;
+            int index = first;
+            for (int i = first + 1; i < last; i++) {
+                double distance = getSegmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    index = i;
+                }
+            }
+
+            float value = Math.min((float) Math.sqrt(maxDistance), parent);
+            significance[index] = value;
+
+            if (top + 2 > parentSignificance.length) {
+                int[] newStack = new int[stack.length * 2];
+                System.arraycopy(stack, 0, newStack, 0, stack.length);
+                stack = newStack;
+                float[] newParentSignificance = new float[parentSignificance.length * 2];
+                System.arraycopy(parentSignificance, 0, newParentSignificance, 0, parentSignificance.length);
+                parentSignificance = newParentSignificance;
+            }
+            if (index - first > 1) {
+                stack[top * 2] = first;
+                stack[top * 2 + 1] = index;
+                parentSignificance[top] = value;
+                top++;
+            }
+            if (last - index > 1) {
+                stack[top * 2] = index;
+                stack[top * 2 + 1] = last;
+                parentSignificance[top] = value;
+                top++;
+            }
+        }
+        return significance;
+    }
+
+    private static double getSegmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double x = ax;
+        double y = ay;
+
+        // closed rings start and end on the same point, the distance is measured to that point
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                x = bx;
+                y = by;
+            } else if (t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+
+        dx = px - x;
+        dy = py - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -8,15 +8,19 @@ import com.mapbox.mapboxsdk.maps.MapView;
 
 /**
  * <p>
- * A {@code IconBitmapChangedException} is thrown by {@link MapView} when a {@link Marker} is added
- * that has a {@link Icon} with a {@link Bitmap} that has been modified since the creation of the Icon.
+ * A {@code IconBitmapChangedException} used to be thrown by {@link MapView} when a {@link Marker} was added
+ * that had a {@link Icon} with a {@link Bitmap} that had been modified since the Icon was added to the map.
  * </p>
- * You cannot modify a {@code Icon} after it has been added to the map in a {@code Marker}
+ * It isn't thrown anymore, the modified {@code Bitmap} of an {@code Icon} is uploaded again when a
+ * {@code Marker} using it is added to the map.
  *
  * @see MapView
  * @see Icon
  * @see Marker
+ * @deprecated {@code Icon}s can be modified after they have been added to the map, this exception is
+ * no longer thrown and will be removed in future versions.
  */
+@Deprecated
 public class IconBitmapChangedException extends RuntimeException {
 
     public IconBitmapChangedException() {
@@ -0,0 +1,295 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.UiThread;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Annotation;
+import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.BaseMarkerViewOptions;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerView;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.PolygonOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records annotation changes and applies them to a {@link MapboxMap} at once.
+ * <p>
+ * Obtain an instance with {@link MapboxMap#beginBatch()}. Changes are coalesced per annotation and
+ * applied on {@link #commit()} with a single native call per kind of change, followed by a single
+ * invalidation of the {@link MarkerView}s in the viewport.
+ * </p>
+ * <p>
+ * While a batch is open, {@link MapboxMap#updateMarker(Marker)} records the update in the batch.
+ * This includes the updates triggered by {@link Marker#setPosition} and {@link Marker#setIcon}.
+ * Annotations added through a batch don't have an id until the batch is committed.
+ * </p>
+ * <p>
+ * A batch must be closed with {@link #commit()} or {@link #abort()}, until then marker updates keep
+ * being recorded and no other batch can be opened. Abort it from a finally block when the changes
+ * may not be committed, for example when recording them can throw.
+ * </p>
+ */
+public final class AnnotationBatch {
+
+    private final MapboxMap mMapboxMap;
+
+    private final List<Marker> mAddedMarkers = new ArrayList<>();
+    private final List<PolylineOptions> mAddedPolylines = new ArrayList<>();
+    private final List<PolygonOptions> mAddedPolygons = new ArrayList<>();
+    private final LongSparseArray<Marker> mUpdatedMarkers = new LongSparseArray<>();
+    private final LongSparseArray<Annotation> mRemovedAnnotations = new LongSparseArray<>();
+    // prepared markers whose addition was cancelled, their icons are released once the batch is closed
+    private final List<Marker> mCancelledMarkers = new ArrayList<>();
+
+    private boolean mCommitted;
+    private boolean mAborted;
+
+    AnnotationBatch(@NonNull MapboxMap mapboxMap) {
+        mMapboxMap = mapboxMap;
+    }
+
+    /**
+     * Records the addition of a marker.
+     *
+     * @param markerOptions A marker options object that defines how to render the marker.
+     * @return The {@code Marker} that will be added to the map on commit.
+     */
+    @UiThread
+    @NonNull
+    public Marker addMarker(@NonNull BaseMarkerOptions markerOptions) {
+        ensureOpen();
+        Marker marker = mMapboxMap.prepareMarker(markerOptions);
+        mAddedMarkers.add(marker);
+        return marker;
+    }
+
+    /**
+     * Records the addition of a marker view.
+     *
+     * @param markerOptions A marker options object that defines how to render the marker.
+     * @return The {@code MarkerView} that will be added to the map on commit.
+     */
+    @UiThread
+    @NonNull
+    public MarkerView addMarker(@NonNull BaseMarkerViewOptions markerOptions) {
+        ensureOpen();
+        MarkerView marker = mMapboxMap.prepareViewMarker(markerOptions);
+        mAddedMarkers.add(marker);
+        return marker;
+    }
+
+    /**
+     * Records the addition of a polyline.
+     *
+     * @param polylineOptions A polyline options object that defines how to render the polyline.
+     * @return The {@code Polyline} that will be added to the map on commit.
+     */
+    @UiThread
+    @NonNull
+    public Polyline addPolyline(@NonNull PolylineOptions polylineOptions) {
+        ensureOpen();
+        mAddedPolylines.add(polylineOptions);
+        return polylineOptions.getPolyline();
+    }
+
+    /**
+     * Records the addition of a polygon.
+     *
+     * @param polygonOptions A polygon options object that defines how to render the polygon.
+     * @return The {@code Polygon} that will be added to the map on commit.
+     */
+    @UiThread
+    @NonNull
+    public Polygon addPolygon(@NonNull PolygonOptions polygonOptions) {
+        ensureOpen();
+        mAddedPolygons.add(polygonOptions);
+        return polygonOptions.getPolygon();
+    }
+
+    /**
+     * Records the update of a marker. Multiple updates of the same marker are applied once.
+     *
+     * @param marker An updated marker object.
+     */
+    @UiThread
+    public void updateMarker(@NonNull Marker marker) {
+        ensureOpen();
+        long id = marker.getId();
+        if (id == -1 || mRemovedAnnotations.get(id) != null) {
+            // pending additions are added in their latest state, removed markers don't need updates
+            return;
+        }
+        mUpdatedMarkers.put(id, marker);
+    }
+
+    /**
+     * Records the removal of an annotation. Removing an annotation added in this batch cancels
+     * its addition.
+     *
+     * @param annotation The annotation object to remove.
+     */
+    @UiThread
+    public void removeAnnotation(@NonNull Annotation annotation) {
+        ensureOpen();
+        long id = annotation.getId();
+        if (id == -1) {
+            cancelAddition(annotation);
+            return;
+        }
+        mUpdatedMarkers.remove(id);
+        mRemovedAnnotations.put(id, annotation);
+    }
+
+    /**
+     * Applies the recorded changes to the map and closes this batch.
+     * <p>
+     * Removals are applied first, followed by updates and additions.
+     * </p>
+     */
+    @UiThread
+    public void commit() {
+        ensureOpen();
+        mCommitted = true;
+        mMapboxMap.endBatch(this);
+
+        boolean invalidateMarkerViews = false;
+
+        int count = mRemovedAnnotations.size();
+        if (count > 0) {
+            List<Annotation> removed = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                removed.add(mRemovedAnnotations.valueAt(i));
+            }
+            mMapboxMap.removeAnnotations(removed);
+        }
+
+        count = mUpdatedMarkers.size();
+        if (count > 0) {
+            List<Marker> updated = new ArrayList<>(count);
+            Marker marker;
+            for (int i = 0; i < count; i++) {
+                marker = mUpdatedMarkers.valueAt(i);
+                updated.add(marker);
+                invalidateMarkerViews |= marker instanceof MarkerView;
+            }
+            mMapboxMap.updateMarkers(updated);
+        }
+
+        if (!mAddedMarkers.isEmpty()) {
+            mMapboxMap.addPreparedMarkers(mAddedMarkers);
+            for (Marker addedMarker : mAddedMarkers) {
+                invalidateMarkerViews |= addedMarker instanceof MarkerView;
+            }
+        }
+
+        if (!mAddedPolylines.isEmpty()) {
+            mMapboxMap.addPolylines(mAddedPolylines);
+        }
+
+        if (!mAddedPolygons.isEmpty()) {
+            mMapboxMap.addPolygons(mAddedPolygons);
+        }
+
+        if (!mCancelledMarkers.isEmpty()) {
+            mMapboxMap.releaseUnusedIcons(mCancelledMarkers);
+        }
+
+        if (invalidateMarkerViews) {
+            mMapboxMap.getMarkerViewManager().invalidateViewMarkersInBounds();
+        }
+    }
+
+    /**
+     * Discards the recorded additions and removals and closes this batch.
+     * <p>
+     * Recorded marker updates are still applied, as the markers already hold their new values. Icons
+     * loaded for the discarded markers are removed from the map unless other markers use them.
+     * Calling it on a closed batch does nothing, so it can be called from a finally block after
+     * {@link #commit()}.
+     * </p>
+     */
+    @UiThread
+    public void abort() {
+        if (mCommitted || mAborted) {
+            return;
+        }
+        mAborted = true;
+        mMapboxMap.endBatch(this);
+
+        int count = mUpdatedMarkers.size();
+        if (count > 0) {
+            List<Marker> updated = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                updated.add(mUpdatedMarkers.valueAt(i));
+            }
+            mMapboxMap.updateMarkers(updated);
+        }
+
+        List<Marker> discarded = new ArrayList<>(mCancelledMarkers);
+        discarded.addAll(mAddedMarkers);
+        if (!discarded.isEmpty()) {
+            mMapboxMap.releaseUnusedIcons(discarded);
+        }
+
+        mAddedMarkers.clear();
+        mCancelledMarkers.clear();
+        mAddedPolylines.clear();
+        mAddedPolygons.clear();
+        mUpdatedMarkers.clear();
+        mRemovedAnnotations.clear();
+    }
+
+    /**
+     * Returns whether this batch was aborted.
+     *
+     * @return True if {@link #abort()} was called before the batch was committed.
+     */
+    public boolean isAborted() {
+        return mAborted;
+    }
+
+    /**
+     * Returns whether this batch was committed.
+     *
+     * @return True if {@link #commit()} was called.
+     */
+    public boolean isCommitted() {
+        return mCommitted;
+    }
+
+    private void cancelAddition(Annotation annotation) {
+        for (int i = 0; i < mAddedMarkers.size(); i++) {
+            if (mAddedMarkers.get(i) == annotation) {
+                mCancelledMarkers.add(mAddedMarkers.remove(i));
+                return;
+            }
+        }
+        for (int i = 0; i < mAddedPolylines.size(); i++) {
+            if (mAddedPolylines.get(i).getPolyline() == annotation) {
+                mAddedPolylines.remove(i);
+                return;
+            }
+        }
+        for (int i = 0; i < mAddedPolygons.size(); i++) {
+            if (mAddedPolygons.get(i).getPolygon() == annotation) {
+                mAddedPolygons.remove(i);
+                return;
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (mCommitted) {
+            throw new IllegalStateException("AnnotationBatch was already committed");
+        }
+        if (mAborted) {
+            throw new IllegalStateException("AnnotationBatch was aborted");
+        }
+    }
+}
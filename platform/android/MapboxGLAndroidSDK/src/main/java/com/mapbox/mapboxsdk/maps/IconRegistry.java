@@ -0,0 +1,187 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Keeps track of the icons uploaded to the map and of the markers referencing them.
+ * </p>
+ * Icons are keyed by id and reference counted per marker id. When the last marker referencing an
+ * icon is removed or changes icon, the icon id is handed back to the caller so it can be removed
+ * from the native sprite atlas.
+ * <p>
+ * The top offset of each icon is cached, as it only depends on the uploaded icon and is costly to query
+ * from core.
+ * </p>
+ */
+final class IconRegistry {
+
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    private final LongSparseArray<Entry> mMarkerEntries = new LongSparseArray<>();
+
+    /**
+     * Registers an icon without referencing it.
+     *
+     * @param icon the icon to register
+     * @return true if the icon wasn't registered yet or its bitmap changed, and it needs to be uploaded
+     */
+    boolean register(@NonNull Icon icon) {
+        Entry entry = mEntries.get(icon.getId());
+        if (entry == null) {
+            mEntries.put(icon.getId(), new Entry(icon));
+            return true;
+        }
+
+        Bitmap bitmap = entry.icon.getBitmap();
+        if (bitmap != icon.getBitmap() && !bitmap.sameAs(icon.getBitmap())) {
+            entry.icon = icon;
+            entry.topOffsetPixels = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cached top offset of an icon.
+     *
+     * @param iconId the id of the icon
+     * @return the top offset in pixels, or null if the icon isn't registered or its offset isn't cached
+     */
+    @Nullable
+    Integer getTopOffsetPixels(@NonNull String iconId) {
+        Entry entry = mEntries.get(iconId);
+        return entry != null ? entry.topOffsetPixels : null;
+    }
+
+    /**
+     * Caches the top offset of a registered icon, until the icon changes or {@link #invalidateTopOffsets()}.
+     *
+     * @param iconId          the id of the icon
+     * @param topOffsetPixels the top offset in pixels
+     */
+    void setTopOffsetPixels(@NonNull String iconId, int topOffsetPixels) {
+        Entry entry = mEntries.get(iconId);
+        if (entry != null) {
+            entry.topOffsetPixels = topOffsetPixels;
+        }
+    }
+
+    /**
+     * Drops the cached top offsets, when the style or the icons are reloaded.
+     */
+    void invalidateTopOffsets() {
+        for (Entry entry : mEntries.values()) {
+            entry.topOffsetPixels = null;
+        }
+    }
+
+    /**
+     * References a registered icon from a marker, replacing the icon previously referenced by the marker.
+     *
+     * @param markerId the id of the marker
+     * @param icon     the icon used by the marker
+     * @return the id of the previous icon of the marker if it's no longer referenced, null otherwise
+     * @throws IllegalStateException if the icon isn't registered, as it wouldn't be uploaded
+     */
+    @Nullable
+    String retain(long markerId, @NonNull Icon icon) {
+        Entry previous = mMarkerEntries.get(markerId);
+        if (previous != null && previous.icon.getId().equals(icon.getId())) {
+            return null;
+        }
+
+        Entry entry = mEntries.get(icon.getId());
+        if (entry == null) {
+            throw new IllegalStateException("Icon " + icon.getId() + " is not registered");
+        }
+        entry.references++;
+        mMarkerEntries.put(markerId, entry);
+        return previous != null ? unreference(previous) : null;
+    }
+
+    /**
+     * Removes the reference a marker holds on its icon.
+     *
+     * @param markerId the id of the marker
+     * @return the id of the icon if it's no longer referenced, null otherwise
+     */
+    @Nullable
+    String release(long markerId) {
+        Entry entry = mMarkerEntries.get(markerId);
+        if (entry == null) {
+            return null;
+        }
+        mMarkerEntries.remove(markerId);
+        return unreference(entry);
+    }
+
+    /**
+     * Removes a registered icon that no marker references, such as the icon of a marker which was
+     * prepared but never added.
+     *
+     * @param iconId the id of the icon
+     * @return true if the icon was removed and should be removed from the map
+     */
+    boolean removeUnreferenced(@NonNull String iconId) {
+        Entry entry = mEntries.get(iconId);
+        if (entry == null || entry.references > 0) {
+            return false;
+        }
+        mEntries.remove(iconId);
+        return true;
+    }
+
+    @NonNull
+    List<Icon> getIcons() {
+        List<Icon> icons = new ArrayList<>(mEntries.size());
+        for (Entry entry : mEntries.values()) {
+            icons.add(entry.icon);
+        }
+        return icons;
+    }
+
+    int getReferenceCount(@NonNull String iconId) {
+        Entry entry = mEntries.get(iconId);
+        return entry != null ? entry.references : 0;
+    }
+
+    boolean contains(@NonNull String iconId) {
+        return mEntries.containsKey(iconId);
+    }
+
+    int size() {
+        return mEntries.size();
+    }
+
+    @Nullable
+    private String unreference(Entry entry) {
+        entry.references--;
+        if (entry.references > 0) {
+            return null;
+        }
+
+        String iconId = entry.icon.getId();
+        mEntries.remove(iconId);
+        return iconId;
+    }
+
+    private static final class Entry {
+        private Icon icon;
+        private int references;
+        private Integer topOffsetPixels;
+
+        private Entry(Icon icon) {
+            this.icon = icon;
+        }
+    }
+}
@@ -16,7 +16,6 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.PointF;
-import android.graphics.RectF;
 import android.graphics.SurfaceTexture;
 import android.graphics.drawable.ColorDrawable;
 import android.location.Location;
@@ -36,7 +35,6 @@ import android.support.v4.view.ScaleGestureDetectorCompat;
 import android.support.v7.app.AlertDialog;
 import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.InputDevice;
@@ -63,6 +61,7 @@ import com.mapbox.mapboxsdk.MapboxAccountManager;
 import com.mapbox.mapboxsdk.R;
 import com.mapbox.mapboxsdk.annotations.Annotation;
 import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconAtlas;
 import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.annotations.InfoWindow;
 import com.mapbox.mapboxsdk.annotations.Marker;
@@ -75,7 +74,6 @@ import com.mapbox.mapboxsdk.constants.MapboxConstants;
 import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.constants.Style;
-import com.mapbox.mapboxsdk.exceptions.IconBitmapChangedException;
 import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.layers.CustomLayer;
@@ -91,11 +89,14 @@ import com.mapbox.mapboxsdk.utils.ColorUtils;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -116,11 +117,12 @@ public class MapView extends FrameLayout {
 
     private MapboxMap mMapboxMap;
     private boolean mInitialLoad;
-    private boolean mDestroyed;
+    // also read by the thread preparing markers added asynchronously
+    private volatile boolean mDestroyed;
 
-    private List<Icon> mIcons;
-    private int mAverageIconHeight;
-    private int mAverageIconWidth;
+    private IconRegistry mIconRegistry;
+    private ByteBuffer mIconBuffer;
+    private MarkerHitIndex mMarkerHitIndex;
 
     private NativeMapView mNativeMapView;
     private boolean mHasSurface = false;
@@ -188,7 +190,8 @@ public class MapView extends FrameLayout {
         mOnMapReadyCallbackList = new ArrayList<>();
         mOnMapChangedListener = new CopyOnWriteArrayList<>();
         mMapboxMap = new MapboxMap(this);
-        mIcons = new ArrayList<>();
+        mIconRegistry = new IconRegistry();
+        mMarkerHitIndex = new MarkerHitIndex();
         mStyleInitializer = new StyleInitializer(context);
         View view = LayoutInflater.from(context).inflate(R.layout.mapview_internal, this);
 
@@ -457,6 +460,10 @@ public class MapView extends FrameLayout {
                 } else if (change == REGION_IS_CHANGING || change == REGION_DID_CHANGE || change == DID_FINISH_LOADING_MAP) {
                     mMapboxMap.getMarkerViewManager().scheduleViewMarkerInvalidation();
                 }
+
+                if (change >= REGION_WILL_CHANGE && change <= REGION_DID_CHANGE_ANIMATED) {
+                    mMarkerHitIndex.invalidate();
+                }
             }
         });
 
@@ -537,6 +544,11 @@ public class MapView extends FrameLayout {
         mNativeMapView.destroySurface();
         mNativeMapView.destroy();
         mNativeMapView = null;
+        mIconBuffer = null;
+    }
+
+    boolean isDestroyed() {
+        return mDestroyed;
     }
 
     /**
@@ -820,6 +832,7 @@ public class MapView extends FrameLayout {
             return;
         }
         mStyleInitializer.setStyle(url);
+        mIconRegistry.invalidateTopOffsets();
         mNativeMapView.setStyleUrl(url);
     }
 
@@ -932,42 +945,56 @@ public class MapView extends FrameLayout {
         return pointF;
     }
 
+    void toScreenLocations(@NonNull double[] latLngs, @NonNull float[] screenLocations, int count) {
+        if (mDestroyed || count == 0) {
+            return;
+        }
+        mNativeMapView.pixelsForLatLngs(latLngs, screenLocations, count);
+        for (int i = 0; i < count * 2; i++) {
+            screenLocations[i] *= mScreenDensity;
+        }
+    }
+
     //
     // Annotations
     //
 
     Icon loadIconForMarker(Marker marker) {
         Icon icon = marker.getIcon();
-
-        // calculating average before adding
-        int iconSize = mIcons.size() + 1;
-
-        // TODO replace former if case with anchor implementation,
-        // current workaround for having extra pixels is diving height by 2
         if (icon == null) {
             icon = IconFactory.getInstance(getContext()).defaultMarker();
-            Bitmap bitmap = icon.getBitmap();
-            mAverageIconHeight = mAverageIconHeight + (bitmap.getHeight() / 2 - mAverageIconHeight) / iconSize;
-            mAverageIconWidth = mAverageIconHeight + (bitmap.getWidth() - mAverageIconHeight) / iconSize;
             marker.setIcon(icon);
-        } else {
-            Bitmap bitmap = icon.getBitmap();
-            mAverageIconHeight = mAverageIconHeight + (bitmap.getHeight() - mAverageIconHeight) / iconSize;
-            mAverageIconWidth = mAverageIconHeight + (bitmap.getWidth() - mAverageIconHeight) / iconSize;
         }
 
-        if (!mIcons.contains(icon)) {
-            mIcons.add(icon);
+        if (mIconRegistry.register(icon)) {
             loadIcon(icon);
-        } else {
-            Icon oldIcon = mIcons.get(mIcons.indexOf(icon));
-            if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-                throw new IconBitmapChangedException();
-            }
         }
         return icon;
     }
 
+    /**
+     * Uploads the icons of markers prepared off the main thread, which aren't loaded yet.
+     *
+     * @param icons the prepared icons
+     */
+    void loadPreparedIcons(List<MarkerPreparation.PreparedIcon> icons) {
+        if (mDestroyed) {
+            return;
+        }
+
+        for (MarkerPreparation.PreparedIcon preparedIcon : icons) {
+            Icon icon = preparedIcon.getIcon();
+            if (mIconRegistry.register(icon)) {
+                mNativeMapView.addAnnotationIcon(
+                        icon.getId(),
+                        preparedIcon.getWidth(),
+                        preparedIcon.getHeight(),
+                        preparedIcon.getScale(),
+                        preparedIcon.getPixels());
+            }
+        }
+    }
+
     void loadIcon(Icon icon) {
         if (mDestroyed) {
             return;
@@ -977,26 +1004,110 @@ public class MapView extends FrameLayout {
         if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
             bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
         }
-        ByteBuffer buffer = ByteBuffer.allocate(bitmap.getRowBytes() * bitmap.getHeight());
-        bitmap.copyPixelsToBuffer(buffer);
-
-        float density = bitmap.getDensity();
-        if (density == Bitmap.DENSITY_NONE) {
-            density = DisplayMetrics.DENSITY_DEFAULT;
-        }
-        float scale = density / DisplayMetrics.DENSITY_DEFAULT;
+        ByteBuffer buffer = copyToIconBuffer(bitmap);
         mNativeMapView.addAnnotationIcon(
                 id,
                 bitmap.getWidth(),
                 bitmap.getHeight(),
-                scale, buffer.array());
+                bitmap.getRowBytes(),
+                MarkerPreparation.getIconScale(bitmap), buffer);
     }
 
     void reloadIcons() {
-        int count = mIcons.size();
-        for (int i = 0; i < count; i++) {
-            Icon icon = mIcons.get(i);
-            loadIcon(icon);
+        mIconRegistry.invalidateTopOffsets();
+        List<Icon> icons = mIconRegistry.getIcons();
+        if (icons.size() == 1) {
+            loadIcon(icons.get(0));
+            return;
+        }
+
+        // pack the icons so they are uploaded with a native call per atlas
+        for (IconAtlas atlas : IconAtlas.pack(icons)) {
+            loadIconAtlas(atlas);
+        }
+    }
+
+    private void loadIconAtlas(IconAtlas atlas) {
+        if (mDestroyed) {
+            return;
+        }
+        Bitmap bitmap = atlas.getBitmap();
+        ByteBuffer buffer = copyToIconBuffer(bitmap);
+
+        List<Icon> icons = atlas.getIcons();
+        String[] ids = new String[icons.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = icons.get(i).getId();
+        }
+        mNativeMapView.addAnnotationIcons(
+                ids,
+                atlas.getRects(),
+                atlas.getScales(),
+                bitmap.getRowBytes() / 4,
+                bitmap.getHeight(),
+                buffer);
+        bitmap.recycle();
+    }
+
+    private ByteBuffer copyToIconBuffer(Bitmap bitmap) {
+        // pixels are copied into a reused direct buffer, read in place by native code
+        int byteCount = bitmap.getRowBytes() * bitmap.getHeight();
+        if (mIconBuffer == null || mIconBuffer.capacity() < byteCount) {
+            mIconBuffer = ByteBuffer.allocateDirect(byteCount).order(ByteOrder.nativeOrder());
+        }
+        mIconBuffer.clear();
+        bitmap.copyPixelsToBuffer(mIconBuffer);
+        return mIconBuffer;
+    }
+
+    // the icon of a prepared marker may have been removed from the map since, with its last marker
+    private void ensureIconsRegistered(@NonNull List<Marker> markers) {
+        Icon previousIcon = null;
+        for (Marker marker : markers) {
+            Icon icon = marker.getIcon();
+            if (marker instanceof MarkerView || icon == null || icon == previousIcon) {
+                continue;
+            }
+            if (!mIconRegistry.contains(icon.getId()) && mIconRegistry.register(icon)) {
+                loadIcon(icon);
+            }
+            previousIcon = icon;
+        }
+    }
+
+    /**
+     * Removes the icons of markers which were prepared but never added, unless they are in use.
+     *
+     * @param markers the markers which won't be added
+     */
+    void releaseUnusedIcons(@NonNull List<Marker> markers) {
+        if (mDestroyed) {
+            return;
+        }
+        for (Marker marker : markers) {
+            Icon icon = marker.getIcon();
+            if (!(marker instanceof MarkerView) && icon != null && mIconRegistry.removeUnreferenced(icon.getId())) {
+                mNativeMapView.removeAnnotationIcon(icon.getId());
+            }
+        }
+    }
+
+    private void retainIcon(long id, @NonNull Marker marker) {
+        if (marker instanceof MarkerView || id == -1 || marker.getIcon() == null) {
+            // marker views aren't rendered with their icon by core
+            return;
+        }
+
+        String unusedIconId = mIconRegistry.retain(id, marker.getIcon());
+        if (unusedIconId != null) {
+            mNativeMapView.removeAnnotationIcon(unusedIconId);
+        }
+    }
+
+    private void releaseIcon(long id) {
+        String unusedIconId = mIconRegistry.release(id);
+        if (unusedIconId != null) {
+            mNativeMapView.removeAnnotationIcon(unusedIconId);
         }
     }
 
@@ -1018,6 +1129,27 @@ public class MapView extends FrameLayout {
         }
 
         mNativeMapView.updateMarker(updatedMarker);
+        retainIcon(updatedMarker.getId(), updatedMarker);
+    }
+
+    void updateMarkers(@NonNull List<Marker> updatedMarkers) {
+        if (mDestroyed) {
+            return;
+        }
+
+        // only verify each distinct icon once instead of once per marker
+        Set<Icon> loadedIcons = new HashSet<>();
+        for (Marker marker : updatedMarkers) {
+            if (!(marker instanceof MarkerView) && (marker.getIcon() == null || !loadedIcons.contains(marker.getIcon()))) {
+                ensureIconLoaded(marker);
+                loadedIcons.add(marker.getIcon());
+            }
+        }
+
+        mNativeMapView.updateMarkers(updatedMarkers);
+        for (Marker marker : updatedMarkers) {
+            retainIcon(marker.getId(), marker);
+        }
     }
 
     private void ensureIconLoaded(Marker marker) {
@@ -1026,14 +1158,8 @@ public class MapView extends FrameLayout {
             icon = IconFactory.getInstance(getContext()).defaultMarker();
             marker.setIcon(icon);
         }
-        if (!mIcons.contains(icon)) {
-            mIcons.add(icon);
+        if (mIconRegistry.register(icon)) {
             loadIcon(icon);
-        } else {
-            Icon oldIcon = mIcons.get(mIcons.indexOf(icon));
-            if (!oldIcon.getBitmap().sameAs(icon.getBitmap())) {
-                throw new IconBitmapChangedException();
-            }
         }
 
         // this seems to be a costly operation according to the profiler so I'm trying to save some calls
@@ -1047,14 +1173,22 @@ public class MapView extends FrameLayout {
         if (mDestroyed) {
             return 0l;
         }
-        return mNativeMapView.addMarker(marker);
+        ensureIconsRegistered(Collections.singletonList(marker));
+        long id = mNativeMapView.addMarker(marker);
+        retainIcon(id, marker);
+        return id;
     }
 
     long[] addMarkers(@NonNull List<Marker> markerList) {
         if (mDestroyed) {
             return new long[]{};
         }
-        return mNativeMapView.addMarkers(markerList);
+        ensureIconsRegistered(markerList);
+        long[] ids = mNativeMapView.addMarkers(markerList);
+        for (int i = 0; i < ids.length; i++) {
+            retainIcon(ids[i], markerList.get(i));
+        }
+        return ids;
     }
 
     long addPolyline(@NonNull Polyline polyline) {
@@ -1085,11 +1219,26 @@ public class MapView extends FrameLayout {
         return mNativeMapView.addPolygons(polygons);
     }
 
+    void updatePolylines(@NonNull List<Polyline> polylines) {
+        if (mDestroyed) {
+            return;
+        }
+        mNativeMapView.updatePolylines(polylines);
+    }
+
+    void updatePolygons(@NonNull List<Polygon> polygons) {
+        if (mDestroyed) {
+            return;
+        }
+        mNativeMapView.updatePolygons(polygons);
+    }
+
     void removeAnnotation(long id) {
         if (mDestroyed) {
             return;
         }
         mNativeMapView.removeAnnotation(id);
+        releaseIcon(id);
     }
 
     void removeAnnotations(@NonNull long[] ids) {
@@ -1097,6 +1246,9 @@ public class MapView extends FrameLayout {
             return;
         }
         mNativeMapView.removeAnnotations(ids);
+        for (long id : ids) {
+            releaseIcon(id);
+        }
     }
 
     List<Marker> getMarkersInBounds(@NonNull LatLngBounds bbox) {
@@ -1104,25 +1256,7 @@ public class MapView extends FrameLayout {
             return new ArrayList<>();
         }
 
-        // TODO: filter in JNI using C++ parameter to getAnnotationsInBounds
-        long[] ids = mNativeMapView.getAnnotationsInBounds(bbox);
-
-        List<Long> idsList = new ArrayList<>(ids.length);
-        for (int i = 0; i < ids.length; i++) {
-            idsList.add(ids[i]);
-        }
-
-        List<Marker> annotations = new ArrayList<>(ids.length);
-        List<Annotation> annotationList = mMapboxMap.getAnnotations();
-        int count = annotationList.size();
-        for (int i = 0; i < count; i++) {
-            Annotation annotation = annotationList.get(i);
-            if (annotation instanceof Marker && idsList.contains(annotation.getId())) {
-                annotations.add((Marker) annotation);
-            }
-        }
-
-        return new ArrayList<>(annotations);
+        return mMapboxMap.getMarkersInBounds(bbox);
     }
 
     public List<MarkerView> getMarkerViewsInBounds(@NonNull LatLngBounds bbox) {
@@ -1130,25 +1264,7 @@ public class MapView extends FrameLayout {
             return new ArrayList<>();
         }
 
-        // TODO: filter in JNI using C++ parameter to getAnnotationsInBounds
-        long[] ids = mNativeMapView.getAnnotationsInBounds(bbox);
-
-        List<Long> idsList = new ArrayList<>(ids.length);
-        for (int i = 0; i < ids.length; i++) {
-            idsList.add(ids[i]);
-        }
-        
-        List<MarkerView> annotations = new ArrayList<>(ids.length);
-        List<Annotation> annotationList = mMapboxMap.getAnnotations();
-        int count = annotationList.size();
-        for (int i = 0; i < count; i++) {
-            Annotation annotation = annotationList.get(i);
-            if (annotation instanceof MarkerView) {
-                annotations.add((MarkerView) annotation);
-            }
-        }
-
-        return new ArrayList<>(annotations);
+        return mMapboxMap.getMarkerViewsInBounds(bbox);
     }
 
     /**
@@ -1159,13 +1275,71 @@ public class MapView extends FrameLayout {
     }
 
 
+    /**
+     * Returns the screen space index of the markers, rebuilt if the camera or the markers changed.
+     *
+     * @param tolerance the largest distance in pixels from a tap to a marker icon
+     * @return the up to date index
+     */
+    private MarkerHitIndex getMarkerHitIndex(float tolerance) {
+        int markerVersion = mMapboxMap.getMarkerModificationCount();
+        if (mMarkerHitIndex.isValid(markerVersion)) {
+            return mMarkerHitIndex;
+        }
+
+        // markers are looked up around the view, including the ones whose icon overlaps the view edges
+        float margin = tolerance;
+        for (Icon icon : mIconRegistry.getIcons()) {
+            Bitmap bitmap = icon.getBitmap();
+            float scale = MarkerPreparation.getIconScale(bitmap) / mScreenDensity;
+            margin = Math.max(margin, Math.max(bitmap.getWidth(), bitmap.getHeight()) / scale + tolerance);
+        }
+
+        int width = getWidth();
+        int height = getHeight();
+        LatLngBounds.Builder builder = new LatLngBounds.Builder();
+        builder.include(fromScreenLocation(new PointF(-margin, -margin)));
+        builder.include(fromScreenLocation(new PointF(width + margin, -margin)));
+        builder.include(fromScreenLocation(new PointF(width + margin, height + margin)));
+        builder.include(fromScreenLocation(new PointF(-margin, height + margin)));
+
+        List<Marker> markers = getMarkersInBounds(builder.build());
+        // topmost first
+        Collections.sort(markers);
+        int count = markers.size();
+        double[] latLngs = new double[count * 2];
+        LatLng position;
+        for (int i = 0; i < count; i++) {
+            position = markers.get(i).getPosition();
+            latLngs[i * 2] = position.getLatitude();
+            latLngs[i * 2 + 1] = position.getLongitude();
+        }
+        float[] screenPoints = new float[count * 2];
+        toScreenLocations(latLngs, screenPoints, count);
+
+        Icon defaultIcon = IconFactory.getInstance(getContext()).defaultMarker();
+        mMarkerHitIndex.build(markers, screenPoints, defaultIcon, mScreenDensity, width, height, markerVersion);
+        return mMarkerHitIndex;
+    }
+
+    float getScreenDensity() {
+        return mScreenDensity;
+    }
+
     int getTopOffsetPixelsForIcon(Icon icon) {
         if (mDestroyed) {
             return 0;
         }
 
-        return (int) (mNativeMapView.getTopOffsetPixelsForAnnotationSymbol(icon.getId())
+        Integer cachedTopOffsetPixels = mIconRegistry.getTopOffsetPixels(icon.getId());
+        if (cachedTopOffsetPixels != null) {
+            return cachedTopOffsetPixels;
+        }
+
+        int topOffsetPixels = (int) (mNativeMapView.getTopOffsetPixelsForAnnotationSymbol(icon.getId())
                 * mScreenDensity);
+        mIconRegistry.setTopOffsetPixels(icon.getId(), topOffsetPixels);
+        return topOffsetPixels;
     }
 
     void setContentPadding(int left, int top, int right, int bottom) {
@@ -1283,21 +1457,24 @@ public class MapView extends FrameLayout {
         }
     }
 
-    private void reloadMarkers() {
+    void reloadMarkers() {
         if (mDestroyed) {
             return;
         }
         List<Annotation> annotations = mMapboxMap.getAnnotations();
         int count = annotations.size();
+        List<Marker> markers = new ArrayList<>(count);
         for (int i = 0; i < count; i++) {
             Annotation annotation = annotations.get(i);
             if (annotation instanceof Marker) {
-                Marker marker = (Marker) annotation;
-                mNativeMapView.removeAnnotation(annotation.getId());
-                long newId = mNativeMapView.addMarker(marker);
-                marker.setId(newId);
+                markers.add((Marker) annotation);
             }
         }
+
+        // markers keep their ids, so the icon references and the annotations lookups stay valid
+        if (!markers.isEmpty()) {
+            mNativeMapView.reinstallMarkers(markers);
+        }
     }
 
     //
@@ -1337,6 +1514,7 @@ public class MapView extends FrameLayout {
         if (!isInEditMode()) {
             mNativeMapView.resizeView((int) (width / mScreenDensity), (int) (height / mScreenDensity));
         }
+        mMarkerHitIndex.invalidate();
     }
 
     double getScale() {
@@ -1353,9 +1531,6 @@ public class MapView extends FrameLayout {
         private Surface mSurface;
         private View mViewHolder;
 
-        private static final int VIEW_MARKERS_POOL_SIZE = 20;
-
-
         // Called when the native surface texture has been created
         // Must do all EGL/GL ES initialization here
         @Override
@@ -1653,57 +1828,22 @@ public class MapView extends FrameLayout {
 
         @Override
         public boolean onSingleTapConfirmed(MotionEvent e) {
-            List<Marker> selectedMarkers = mMapboxMap.getSelectedMarkers();
+            // canvas drawn marker views are above the map and its markers
+            if (mMapboxMap.getMarkerViewManager().dispatchCanvasClick(e.getX(), e.getY())) {
+                trackGestureEvent(MapboxEvent.GESTURE_SINGLETAP, e.getX(), e.getY());
+                return true;
+            }
 
             PointF tapPoint = new PointF(e.getX(), e.getY());
             float toleranceSides = 4 * mScreenDensity;
             float toleranceTopBottom = 10 * mScreenDensity;
-            RectF tapRect = new RectF(tapPoint.x - mAverageIconWidth / 2 - toleranceSides,
-                    tapPoint.y - mAverageIconHeight / 2 - toleranceTopBottom,
-                    tapPoint.x + mAverageIconWidth / 2 + toleranceSides,
-                    tapPoint.y + mAverageIconHeight / 2 + toleranceTopBottom);
-
-            LatLngBounds.Builder builder = new LatLngBounds.Builder();
-            builder.include(fromScreenLocation(new PointF(tapRect.left, tapRect.bottom)));
-            builder.include(fromScreenLocation(new PointF(tapRect.left, tapRect.top)));
-            builder.include(fromScreenLocation(new PointF(tapRect.right, tapRect.top)));
-            builder.include(fromScreenLocation(new PointF(tapRect.right, tapRect.bottom)));
-
-            List<Marker> nearbyMarkers = getMarkersInBounds(builder.build());
-            long newSelectedMarkerId = -1;
-
-            if (nearbyMarkers != null && nearbyMarkers.size() > 0) {
-                Collections.sort(nearbyMarkers);
-                for (Marker nearbyMarker : nearbyMarkers) {
-                    boolean found = false;
-                    for (Marker selectedMarker : selectedMarkers) {
-                        if (selectedMarker.equals(nearbyMarker)) {
-                            found = true;
-                        }
-                    }
-                    if (!found) {
-                        newSelectedMarkerId = nearbyMarker.getId();
-                        break;
-                    }
-                }
-            }
+            Marker tappedMarker = getMarkerHitIndex(Math.max(toleranceSides, toleranceTopBottom))
+                    .hitTest(tapPoint.x, tapPoint.y, toleranceSides, toleranceTopBottom, mMapboxMap.getSelectedMarkerSet());
 
-            if (newSelectedMarkerId >= 0) {
-                List<Annotation> annotations = mMapboxMap.getAnnotations();
-                int count = annotations.size();
-                for (int i = 0; i < count; i++) {
-                    Annotation annotation = annotations.get(i);
-                    if (annotation instanceof Marker) {
-                        if (annotation.getId() == newSelectedMarkerId) {
-                            if (selectedMarkers.isEmpty() || !selectedMarkers.contains(annotation)) {
-                                // only handle click if no marker view is available
-                                if (!(annotation instanceof MarkerView)) {
-                                    mMapboxMap.selectMarker((Marker) annotation);
-                                }
-                            }
-                            break;
-                        }
-                    }
+            if (tappedMarker != null) {
+                // only handle click if no marker view is available
+                if (!(tappedMarker instanceof MarkerView)) {
+                    mMapboxMap.selectMarker(tappedMarker);
                 }
             } else {
                 if (mMapboxMap.getUiSettings().isDeselectMarkersOnTap()) {
@@ -1711,11 +1851,13 @@ public class MapView extends FrameLayout {
                     mMapboxMap.deselectMarkers();
                 }
 
-                // notify app of map click
+                // notify app of polyline, polygon or map click
                 MapboxMap.OnMapClickListener listener = mMapboxMap.getOnMapClickListener();
-                if (listener != null) {
+                if (listener != null || mMapboxMap.hasShapeClickListener()) {
                     LatLng point = fromScreenLocation(tapPoint);
-                    listener.onMapClick(point);
+                    if (!mMapboxMap.onShapeClick(point, getZoom()) && listener != null) {
+                        listener.onMapClick(point);
+                    }
                 }
             }
 
@@ -2610,6 +2752,10 @@ public class MapView extends FrameLayout {
         return mMapboxMap;
     }
 
+    IconRegistry getIconRegistry() {
+        return mIconRegistry;
+    }
+
     void setMapboxMap(MapboxMap mapboxMap) {
         mMapboxMap = mapboxMap;
     }
@@ -3,6 +3,8 @@ package com.mapbox.mapboxsdk.maps;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
 import android.support.annotation.FloatRange;
 import android.support.annotation.NonNull;
@@ -26,6 +28,7 @@ import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.MarkerView;
 import com.mapbox.mapboxsdk.annotations.MarkerViewManager;
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
 import com.mapbox.mapboxsdk.annotations.Polygon;
 import com.mapbox.mapboxsdk.annotations.PolygonOptions;
 import com.mapbox.mapboxsdk.annotations.Polyline;
@@ -38,12 +41,22 @@ import com.mapbox.mapboxsdk.constants.MyBearingTracking;
 import com.mapbox.mapboxsdk.constants.MyLocationTracking;
 import com.mapbox.mapboxsdk.constants.Style;
 import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.layers.CustomLayer;
 import com.mapbox.mapboxsdk.maps.widgets.MyLocationViewSettings;
 
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,7 +70,24 @@ import java.util.concurrent.TimeUnit;
  */
 public class MapboxMap {
 
+    /**
+     * The default distance in density-independent pixels a tap can be from a polyline or a polygon edge to
+     * click it.
+     */
+    public static final float DEFAULT_SHAPE_CLICK_TOLERANCE = 10;
+
+    // prepares markers added asynchronously, in the order they were added, without keeping the process alive
+    private static final Executor sMarkerExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "MarkerPreparation");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private MapView mMapView;
+    private Handler mHandler;
     private UiSettings mUiSettings;
     private TrackingSettings mTrackingSettings;
     private MyLocationViewSettings myLocationViewSettings;
@@ -65,8 +95,14 @@ public class MapboxMap {
     private CameraPosition mCameraPosition;
     private boolean mInvalidCameraPosition;
     private LongSparseArray<Annotation> mAnnotations;
-
-    private List<Marker> mSelectedMarkers;
+    private MarkerSpatialIndex mMarkerIndex;
+    private LongSparseArray<MultiPoint> mSimplifiedShapes;
+    private ShapeSpatialIndex mShapeIndex;
+    private AnnotationBatch mAnnotationBatch;
+
+    private Set<Marker> mSelectedMarkers;
+    // snapshot returned by getSelectedMarkers(), null when the selection changed
+    private List<Marker> mSelectedMarkersList;
     private MarkerViewManager mMarkerViewManager;
 
     private List<InfoWindow> mInfoWindows;
@@ -78,6 +114,9 @@ public class MapboxMap {
     private MapboxMap.OnMapClickListener mOnMapClickListener;
     private MapboxMap.OnMapLongClickListener mOnMapLongClickListener;
     private MapboxMap.OnMarkerClickListener mOnMarkerClickListener;
+    private MapboxMap.OnPolylineClickListener mOnPolylineClickListener;
+    private MapboxMap.OnPolygonClickListener mOnPolygonClickListener;
+    private float mShapeClickTolerance = DEFAULT_SHAPE_CLICK_TOLERANCE;
     private MapboxMap.OnInfoWindowClickListener mOnInfoWindowClickListener;
     private MapboxMap.OnInfoWindowLongClickListener mOnInfoWindowLongClickListener;
     private MapboxMap.OnInfoWindowCloseListener mOnInfoWindowCloseListener;
@@ -98,7 +137,10 @@ public class MapboxMap {
         mTrackingSettings = new TrackingSettings(mMapView, mUiSettings);
         mProjection = new Projection(mapView);
         mAnnotations = new LongSparseArray<>();
-        mSelectedMarkers = new ArrayList<>();
+        mMarkerIndex = new MarkerSpatialIndex();
+        mSimplifiedShapes = new LongSparseArray<>();
+        mShapeIndex = new ShapeSpatialIndex();
+        mSelectedMarkers = new LinkedHashSet<>();
         mInfoWindows = new ArrayList<>();
         mMarkerViewManager = new MarkerViewManager(this, mapView);
     }
@@ -684,6 +726,7 @@ public class MapboxMap {
         marker.setMapboxMap(this);
         marker.setId(id);
         mAnnotations.put(id, marker);
+        mMarkerIndex.put(marker);
         return marker;
     }
 
@@ -705,6 +748,7 @@ public class MapboxMap {
         long id = mMapView.addMarker(marker);
         marker.setId(id);
         mAnnotations.put(id, marker);
+        mMarkerIndex.put(marker);
         mMarkerViewManager.invalidateViewMarkersInBounds();
         return marker;
     }
@@ -732,46 +776,229 @@ public class MapboxMap {
                 marker = prepareMarker(markerOptions);
                 markers.add(marker);
             }
+            addPreparedMarkers(markers);
+        }
+        return markers;
+    }
 
-            if (markers.size() > 0) {
-                long[] ids = mMapView.addMarkers(markers);
-
-                // if unittests or markers are correctly added to map
-                if (ids == null || ids.length == markers.size()) {
-                    long id = 0;
-                    Marker m;
-                    for (int i = 0; i < markers.size(); i++) {
-                        m = markers.get(i);
-                        m.setMapboxMap(this);
-                        if (ids != null) {
-                            id = ids[i];
-                        } else {
-                            //unit test
-                            id++;
+    /**
+     * <p>
+     * Adds multiple markers to this map without blocking the main thread.
+     * </p>
+     * Icons are deduplicated, and their pixels and the marker offsets are computed on a background
+     * thread, only the icon uploads and the markers addition run on the main thread. Markers added
+     * asynchronously are added in the order of the calls.
+     *
+     * @param markerOptionsList A list of marker options objects that defines how to render the markers.
+     * @param callback          The callback invoked on the main thread once the markers were added, or null.
+     *                          It isn't invoked if the map view is destroyed before the markers are added.
+     */
+    @UiThread
+    public void addMarkersAsync(@NonNull List<? extends BaseMarkerOptions> markerOptionsList,
+                                @Nullable final MarkersAddedCallback callback) {
+        final List<BaseMarkerOptions> markerOptions = new ArrayList<BaseMarkerOptions>(markerOptionsList);
+        final Icon defaultIcon = IconFactory.getInstance(mMapView.getContext()).defaultMarker();
+        final float screenDensity = mMapView.getScreenDensity();
+        sMarkerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mMapView.isDestroyed()) {
+                    return;
+                }
+                final MarkerPreparation preparation = MarkerPreparation.prepare(markerOptions, defaultIcon, screenDensity);
+                if (mMapView.isDestroyed()) {
+                    return;
+                }
+                getHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mMapView.isDestroyed()) {
+                            // the markers can't be added anymore and would be handed back without an id
+                            return;
+                        }
+                        List<Marker> markers = preparation.getMarkers();
+                        if (!markers.isEmpty()) {
+                            mMapView.loadPreparedIcons(preparation.getIcons());
+                            addPreparedMarkers(markers);
+                        }
+                        if (callback != null) {
+                            callback.onMarkersAdded(markers);
                         }
-                        m.setId(id);
-                        mAnnotations.put(id, m);
                     }
+                });
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Adds multiple markers to this map from primitive coordinate arrays.
+     * </p>
+     * This is the preferred way to load large point data sets, the markers are created without
+     * options objects, the positions are handed to the map in one packed call and every distinct
+     * icon is only loaded once.
+     *
+     * @param latitudes  The latitudes of the markers.
+     * @param longitudes The longitudes of the markers, of the same length as {@code latitudes}.
+     * @param icons      The icons of the markers, of the same length as {@code latitudes}. Null or
+     *                   null entries result in the default marker icon.
+     * @return A list of the {@code Marker}s that were added to the map.
+     */
+    @UiThread
+    @NonNull
+    public List<Marker> addMarkers(@NonNull double[] latitudes, @NonNull double[] longitudes, @Nullable Icon[] icons) {
+        int count = latitudes.length;
+        if (longitudes.length != count || (icons != null && icons.length != count)) {
+            throw new IllegalArgumentException("latitudes, longitudes and icons should have the same length");
+        }
+
+        List<Marker> markers = new ArrayList<>(count);
+        if (count > 0) {
+            // first marker of each icon id, holding the loaded icon and its top offset
+            Map<String, Marker> firstMarkers = new HashMap<>();
+            String iconId;
+            Icon icon;
+            Marker first;
+            Marker marker;
+            for (int i = 0; i < count; i++) {
+                icon = icons != null ? icons[i] : null;
+                iconId = icon != null ? icon.getId() : null;
+                first = firstMarkers.get(iconId);
+                if (first != null && (icon == null || first.getIcon() == icon)) {
+                    marker = new Marker(new LatLng(latitudes[i], longitudes[i]), first.getIcon());
+                    marker.setTopOffsetPixels(first.getTopOffsetPixels());
+                } else {
+                    marker = new Marker(new LatLng(latitudes[i], longitudes[i]), icon);
+                    mMapView.loadIconForMarker(marker);
+                    marker.setTopOffsetPixels(mMapView.getTopOffsetPixelsForIcon(marker.getIcon()));
+                    firstMarkers.put(iconId, marker);
                 }
+                markers.add(marker);
             }
+            addPreparedMarkers(markers);
         }
         return markers;
     }
 
+    void addPreparedMarkers(List<Marker> markers) {
+        long[] ids = mMapView.addMarkers(markers);
+
+        // if unittests or markers are correctly added to map
+        if (ids == null || ids.length == markers.size()) {
+            long id = 0;
+            Marker m;
+            for (int i = 0; i < markers.size(); i++) {
+                m = markers.get(i);
+                m.setMapboxMap(this);
+                if (ids != null) {
+                    id = ids[i];
+                } else {
+                    //unit test
+                    id++;
+                }
+                m.setId(id);
+                mAnnotations.put(id, m);
+                mMarkerIndex.put(m);
+            }
+        }
+    }
+
     /**
      * <p>
      * Updates a marker on this map. Does nothing if the marker is already added.
      * </p>
+     * If an {@link AnnotationBatch} is open, the update is recorded and applied when the batch is
+     * committed.
      *
      * @param updatedMarker An updated marker object.
      */
     @UiThread
     public void updateMarker(@NonNull Marker updatedMarker) {
+        if (mAnnotationBatch != null) {
+            mAnnotationBatch.updateMarker(updatedMarker);
+            return;
+        }
+
         mMapView.updateMarker(updatedMarker);
 
         int index = mAnnotations.indexOfKey(updatedMarker.getId());
         if (index > -1) {
             mAnnotations.setValueAt(index, updatedMarker);
+            mMarkerIndex.put(updatedMarker);
+        }
+    }
+
+    /**
+     * <p>
+     * Updates multiple markers on this map with a single native call.
+     * </p>
+     * Use this instead of {@link #updateMarker(Marker)} when many markers change at once, for
+     * example when moving a fleet of vehicles. If an {@link AnnotationBatch} is open, the updates
+     * are recorded and applied when the batch is committed. Markers that aren't added to this map
+     * are ignored.
+     *
+     * @param updatedMarkers A list of updated marker objects.
+     */
+    @UiThread
+    public void updateMarkers(@NonNull List<? extends Marker> updatedMarkers) {
+        if (updatedMarkers.isEmpty()) {
+            return;
+        }
+
+        if (mAnnotationBatch != null) {
+            for (Marker marker : updatedMarkers) {
+                mAnnotationBatch.updateMarker(marker);
+            }
+            return;
+        }
+
+        // markers that aren't on this map would be added back by the native map
+        List<Marker> addedMarkers = new ArrayList<>(updatedMarkers.size());
+        int index;
+        for (Marker marker : updatedMarkers) {
+            index = mAnnotations.indexOfKey(marker.getId());
+            if (index > -1) {
+                mAnnotations.setValueAt(index, marker);
+                mMarkerIndex.put(marker);
+                addedMarkers.add(marker);
+            }
+        }
+
+        if (!addedMarkers.isEmpty()) {
+            mMapView.updateMarkers(addedMarkers);
+        }
+    }
+
+    /**
+     * <p>
+     * Starts recording annotation changes to apply them at once.
+     * </p>
+     * Additions, updates and removals recorded in the returned batch are coalesced and applied with
+     * a single native call per kind of change when {@link AnnotationBatch#commit()} is called. Marker
+     * updates, including those triggered by {@link Marker#setPosition(LatLng)}, are recorded in the
+     * batch until it is committed or aborted, so commit it or abort it from a finally block.
+     *
+     * @return The open {@code AnnotationBatch}.
+     * @throws IllegalStateException if another batch is open.
+     */
+    @UiThread
+    @NonNull
+    public AnnotationBatch beginBatch() {
+        if (mAnnotationBatch != null) {
+            throw new IllegalStateException("An AnnotationBatch is already open, commit or abort it first");
+        }
+        mAnnotationBatch = new AnnotationBatch(this);
+        return mAnnotationBatch;
+    }
+
+    // used by AnnotationBatch
+    void releaseUnusedIcons(@NonNull List<Marker> markers) {
+        mMapView.releaseUnusedIcons(markers);
+    }
+
+    void endBatch(@NonNull AnnotationBatch annotationBatch) {
+        if (mAnnotationBatch == annotationBatch) {
+            mAnnotationBatch = null;
         }
     }
 
@@ -785,11 +1012,13 @@ public class MapboxMap {
     @NonNull
     public Polyline addPolyline(@NonNull PolylineOptions polylineOptions) {
         Polyline polyline = polylineOptions.getPolyline();
-        if (!polyline.getPoints().isEmpty()) {
+        if (polyline.getPointCount() > 0) {
+            polyline.setRenderZoom(mMapView.getZoom());
             long id = mMapView.addPolyline(polyline);
             polyline.setMapboxMap(this);
             polyline.setId(id);
             mAnnotations.put(id, polyline);
+            trackShape(id, polyline);
         }
         return polyline;
     }
@@ -808,9 +1037,11 @@ public class MapboxMap {
         List<Polyline> polylines = new ArrayList<>(count);
 
         if (count > 0) {
+            double zoom = mMapView.getZoom();
             for (PolylineOptions options : polylineOptionsList) {
                 polyline = options.getPolyline();
-                if (!polyline.getPoints().isEmpty()) {
+                if (polyline.getPointCount() > 0) {
+                    polyline.setRenderZoom(zoom);
                     polylines.add(polyline);
                 }
             }
@@ -833,6 +1064,7 @@ public class MapboxMap {
                     }
                     p.setId(id);
                     mAnnotations.put(id, p);
+                    trackShape(id, p);
                 }
             }
         }
@@ -849,11 +1081,13 @@ public class MapboxMap {
     @NonNull
     public Polygon addPolygon(@NonNull PolygonOptions polygonOptions) {
         Polygon polygon = polygonOptions.getPolygon();
-        if (!polygon.getPoints().isEmpty()) {
+        if (polygon.getPointCount() > 0) {
+            polygon.setRenderZoom(mMapView.getZoom());
             long id = mMapView.addPolygon(polygon);
             polygon.setId(id);
             polygon.setMapboxMap(this);
             mAnnotations.put(id, polygon);
+            trackShape(id, polygon);
         }
         return polygon;
     }
@@ -872,9 +1106,11 @@ public class MapboxMap {
         Polygon polygon;
         List<Polygon> polygons = new ArrayList<>(count);
         if (count > 0) {
+            double zoom = mMapView.getZoom();
             for (PolygonOptions polygonOptions : polygonOptionsList) {
                 polygon = polygonOptions.getPolygon();
-                if (!polygon.getPoints().isEmpty()) {
+                if (polygon.getPointCount() > 0) {
+                    polygon.setRenderZoom(zoom);
                     polygons.add(polygon);
                 }
             }
@@ -895,12 +1131,53 @@ public class MapboxMap {
                     }
                     polygon.setId(id);
                     mAnnotations.put(id, polygon);
+                    trackShape(id, polygon);
                 }
             }
         }
         return polygons;
     }
 
+    private void trackShape(long id, MultiPoint shape) {
+        mShapeIndex.put(id, shape);
+        if (shape.isSimplified()) {
+            mSimplifiedShapes.put(id, shape);
+        }
+    }
+
+    /**
+     * Updates the level of detail of the simplified polylines and polygons to the zoom level of
+     * the camera. Shapes are only sent to the map when they move to another zoom band.
+     */
+    void updateSimplifiedShapes() {
+        int count = mSimplifiedShapes.size();
+        if (count == 0) {
+            return;
+        }
+
+        double zoom = mMapView.getZoom();
+        List<Polyline> polylines = new ArrayList<>();
+        List<Polygon> polygons = new ArrayList<>();
+        MultiPoint shape;
+        for (int i = 0; i < count; i++) {
+            shape = mSimplifiedShapes.valueAt(i);
+            if (shape.setRenderZoom(zoom)) {
+                if (shape instanceof Polyline) {
+                    polylines.add((Polyline) shape);
+                } else if (shape instanceof Polygon) {
+                    polygons.add((Polygon) shape);
+                }
+            }
+        }
+
+        if (!polylines.isEmpty()) {
+            mMapView.updatePolylines(polylines);
+        }
+        if (!polygons.isEmpty()) {
+            mMapView.updatePolygons(polygons);
+        }
+    }
+
     /**
      * <p>
      * Convenience method for removing a Marker from the map.
@@ -957,6 +1234,9 @@ public class MapboxMap {
         long id = annotation.getId();
         mMapView.removeAnnotation(id);
         mAnnotations.remove(id);
+        mMarkerIndex.remove(id);
+        mSimplifiedShapes.remove(id);
+        mShapeIndex.remove(id);
     }
 
     /**
@@ -968,6 +1248,9 @@ public class MapboxMap {
     public void removeAnnotation(long id) {
         mMapView.removeAnnotation(id);
         mAnnotations.remove(id);
+        mMarkerIndex.remove(id);
+        mSimplifiedShapes.remove(id);
+        mShapeIndex.remove(id);
     }
 
     /**
@@ -993,6 +1276,9 @@ public class MapboxMap {
         mMapView.removeAnnotations(ids);
         for (long id : ids) {
             mAnnotations.remove(id);
+            mMarkerIndex.remove(id);
+            mSimplifiedShapes.remove(id);
+            mShapeIndex.remove(id);
         }
     }
 
@@ -1017,6 +1303,9 @@ public class MapboxMap {
         }
         mMapView.removeAnnotations(ids);
         mAnnotations.clear();
+        mMarkerIndex.clear();
+        mSimplifiedShapes.clear();
+        mShapeIndex.clear();
     }
 
     /**
@@ -1109,6 +1398,20 @@ public class MapboxMap {
         return polylines;
     }
 
+    // used by MapView
+    List<Marker> getMarkersInBounds(@NonNull LatLngBounds bbox) {
+        return mMarkerIndex.query(bbox);
+    }
+
+    int getMarkerModificationCount() {
+        return mMarkerIndex.getModificationCount();
+    }
+
+    // used by MapView
+    List<MarkerView> getMarkerViewsInBounds(@NonNull LatLngBounds bbox) {
+        return mMarkerIndex.query(bbox, MarkerView.class);
+    }
+
     /**
      * <p>
      * Selects a marker. The selected marker will have it's info window opened.
@@ -1135,6 +1438,45 @@ public class MapboxMap {
             deselectMarkers();
         }
 
+        showSelection(marker);
+        mSelectedMarkers.add(marker);
+        mSelectedMarkersList = null;
+    }
+
+    /**
+     * <p>
+     * Selects multiple markers. The selected markers will have their info windows opened.
+     * </p>
+     * Markers that are already selected are skipped. Unless isAllowConcurrentMultipleOpenInfoWindows()
+     * is true, only one marker can be selected and this behaves as selecting the last marker.
+     *
+     * @param markers The markers to select.
+     */
+    @UiThread
+    public void selectMarkers(@NonNull Collection<? extends Marker> markers) {
+        if (markers.isEmpty()) {
+            return;
+        }
+
+        if (!isAllowConcurrentMultipleOpenInfoWindows()) {
+            Marker last = null;
+            for (Marker marker : markers) {
+                last = marker;
+            }
+            selectMarker(last);
+            return;
+        }
+
+        for (Marker marker : markers) {
+            if (marker != null && !mSelectedMarkers.contains(marker)) {
+                showSelection(marker);
+                mSelectedMarkers.add(marker);
+            }
+        }
+        mSelectedMarkersList = null;
+    }
+
+    private void showSelection(@NonNull Marker marker) {
         boolean handledDefaultClick = false;
         if (mOnMarkerClickListener != null) {
             // end developer has provided a custom click listener
@@ -1151,8 +1493,6 @@ public class MapboxMap {
                 mInfoWindows.add(marker.showInfoWindow(this, mMapView));
             }
         }
-
-        mSelectedMarkers.add(marker);
     }
 
     /**
@@ -1165,17 +1505,42 @@ public class MapboxMap {
         }
 
         for (Marker marker : mSelectedMarkers) {
-            if (marker.isInfoWindowShown()) {
-                marker.hideInfoWindow();
-            }
+            hideSelection(marker);
+        }
 
-            if (marker instanceof MarkerView) {
-                mMarkerViewManager.deselect((MarkerView) marker);
+        // Removes all selected markers from the set
+        mSelectedMarkers.clear();
+        mSelectedMarkersList = null;
+    }
+
+    /**
+     * Deselects multiple markers. The deselected markers will have their info windows closed,
+     * markers that aren't selected are skipped.
+     *
+     * @param markers The markers to deselect.
+     */
+    @UiThread
+    public void deselectMarkers(@NonNull Collection<? extends Marker> markers) {
+        if (mSelectedMarkers.isEmpty()) {
+            return;
+        }
+
+        for (Marker marker : markers) {
+            if (mSelectedMarkers.remove(marker)) {
+                hideSelection(marker);
             }
         }
+        mSelectedMarkersList = null;
+    }
 
-        // Removes all selected markers from the list
-        mSelectedMarkers.clear();
+    private void hideSelection(@NonNull Marker marker) {
+        if (marker.isInfoWindowShown()) {
+            marker.hideInfoWindow();
+        }
+
+        if (marker instanceof MarkerView) {
+            mMarkerViewManager.deselect((MarkerView) marker);
+        }
     }
 
     /**
@@ -1183,7 +1548,7 @@ public class MapboxMap {
      */
     @UiThread
     public void deselectMarker(@NonNull Marker marker) {
-        if (!mSelectedMarkers.contains(marker)) {
+        if (!mSelectedMarkers.remove(marker)) {
             return;
         }
 
@@ -1191,27 +1556,53 @@ public class MapboxMap {
             marker.hideInfoWindow();
         }
 
-        mSelectedMarkers.remove(marker);
+        mSelectedMarkersList = null;
+    }
+
+    /**
+     * Returns whether a marker is selected.
+     *
+     * @param marker The marker to look up.
+     * @return True if the marker is selected.
+     */
+    @UiThread
+    public boolean isMarkerSelected(@NonNull Marker marker) {
+        return mSelectedMarkers.contains(marker);
     }
 
     /**
-     * Gets the currently selected marker.
+     * Gets the currently selected markers, in the order they were selected.
      *
-     * @return The currently selected marker.
+     * @return A read-only list of the currently selected markers.
      */
     @UiThread
     public List<Marker> getSelectedMarkers() {
+        if (mSelectedMarkersList == null) {
+            mSelectedMarkersList = Collections.unmodifiableList(new ArrayList<>(mSelectedMarkers));
+        }
+        return mSelectedMarkersList;
+    }
+
+    // used by MapView to exclude the selected markers from taps
+    Set<Marker> getSelectedMarkerSet() {
         return mSelectedMarkers;
     }
 
-    private Marker prepareMarker(BaseMarkerOptions markerOptions) {
+    private Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+        return mHandler;
+    }
+
+    Marker prepareMarker(BaseMarkerOptions markerOptions) {
         Marker marker = markerOptions.getMarker();
         Icon icon = mMapView.loadIconForMarker(marker);
         marker.setTopOffsetPixels(mMapView.getTopOffsetPixelsForIcon(icon));
         return marker;
     }
 
-    private MarkerView prepareViewMarker(BaseMarkerViewOptions markerViewOptions) {
+    MarkerView prepareViewMarker(BaseMarkerViewOptions markerViewOptions) {
         MarkerView marker = markerViewOptions.getMarker();
 
         Icon icon = markerViewOptions.getIcon();
@@ -1435,6 +1826,88 @@ public class MapboxMap {
         mOnMarkerClickListener = listener;
     }
 
+    /**
+     * Sets a callback that's invoked when the user clicks on a polyline.
+     *
+     * @param listener The callback that's invoked when the user clicks on a polyline.
+     *                 To unset the callback, use null.
+     */
+    @UiThread
+    public void setOnPolylineClickListener(@Nullable OnPolylineClickListener listener) {
+        mOnPolylineClickListener = listener;
+    }
+
+    /**
+     * Sets a callback that's invoked when the user clicks on a polygon.
+     *
+     * @param listener The callback that's invoked when the user clicks on a polygon.
+     *                 To unset the callback, use null.
+     */
+    @UiThread
+    public void setOnPolygonClickListener(@Nullable OnPolygonClickListener listener) {
+        mOnPolygonClickListener = listener;
+    }
+
+    /**
+     * Sets the distance a tap can be from a polyline, besides its width, or from a polygon edge to
+     * click it.
+     *
+     * @param tolerance The distance in density-independent pixels, {@link #DEFAULT_SHAPE_CLICK_TOLERANCE} by
+     *                  default.
+     */
+    @UiThread
+    public void setShapeClickTolerance(float tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance should not be negative, was " + tolerance);
+        }
+        mShapeClickTolerance = tolerance;
+    }
+
+    /**
+     * Gets the distance a tap can be from a polyline, besides its width, or from a polygon edge to
+     * click it.
+     *
+     * @return The distance in density-independent pixels.
+     */
+    @UiThread
+    public float getShapeClickTolerance() {
+        return mShapeClickTolerance;
+    }
+
+    boolean hasShapeClickListener() {
+        return mOnPolylineClickListener != null || mOnPolygonClickListener != null;
+    }
+
+    /**
+     * Notifies the listeners of the topmost polyline near a tap, or else of the topmost polygon
+     * containing it.
+     *
+     * @param point The location of the tap.
+     * @param zoom  The zoom level of the camera.
+     * @return True if a polyline or a polygon was clicked.
+     */
+    boolean onShapeClick(@NonNull LatLng point, double zoom) {
+        // size of a density-independent pixel in normalized web mercator units, tiles are 512 of them wide
+        double unitsPerPixel = 1 / (512 * Math.pow(2, zoom));
+        if (mOnPolylineClickListener != null) {
+            Polyline polyline = mShapeIndex.queryPolyline(
+                    point.getLatitude(), point.getLongitude(), mShapeClickTolerance, unitsPerPixel);
+            if (polyline != null) {
+                mOnPolylineClickListener.onPolylineClick(polyline);
+                return true;
+            }
+        }
+        if (mOnPolygonClickListener != null) {
+            Polygon polygon = mShapeIndex.queryPolygon(
+                    point.getLatitude(), point.getLongitude(), mShapeClickTolerance, unitsPerPixel);
+            if (polygon != null) {
+                mOnPolygonClickListener.onPolygonClick(polygon);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Sets a callback that's invoked when the user clicks on an info window.
      *
@@ -1752,6 +2225,34 @@ public class MapboxMap {
         boolean onMarkerClick(@NonNull Marker marker);
     }
 
+    /**
+     * Interface definition for a callback to be invoked when the user clicks on a polyline.
+     *
+     * @see MapboxMap#setOnPolylineClickListener(OnPolylineClickListener)
+     */
+    public interface OnPolylineClickListener {
+        /**
+         * Called when the user clicks on a polyline.
+         *
+         * @param polyline The polyline the user clicked on.
+         */
+        void onPolylineClick(@NonNull Polyline polyline);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when the user clicks on a polygon.
+     *
+     * @see MapboxMap#setOnPolygonClickListener(OnPolygonClickListener)
+     */
+    public interface OnPolygonClickListener {
+        /**
+         * Called when the user clicks on a polygon.
+         *
+         * @param polygon The polygon the user clicked on.
+         */
+        void onPolygonClick(@NonNull Polygon polygon);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the user clicks on an info window.
      *
@@ -1821,20 +2322,40 @@ public class MapboxMap {
      */
     public static abstract class MarkerViewAdapter<U extends MarkerView> {
 
+        /**
+         * The default maximum number of Views kept for reuse by an adapter.
+         */
+        public static final int DEFAULT_VIEW_POOL_SIZE = 10000;
+
         private Context context;
         private final Class<U> persistentClass;
-        private final Pools.SimplePool<View> mViewReusePool;
+        private final ViewReusePool mViewReusePool;
+        private final int mViewPoolSize;
 
         /**
          * Create an instance of MarkerViewAdapter.
          *
          * @param context the context associated to a MapView
          */
-        @SuppressWarnings("unchecked")
         public MarkerViewAdapter(Context context) {
+            this(context, DEFAULT_VIEW_POOL_SIZE);
+        }
+
+        /**
+         * Create an instance of MarkerViewAdapter keeping a given number of Views for reuse.
+         *
+         * @param context  the context associated to a MapView
+         * @param poolSize the maximum number of Views kept for reuse
+         */
+        @SuppressWarnings("unchecked")
+        public MarkerViewAdapter(Context context, int poolSize) {
+            if (poolSize <= 0) {
+                throw new IllegalArgumentException("Pool size must be positive, was " + poolSize);
+            }
             this.context = context;
             persistentClass = (Class<U>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
-            mViewReusePool = new Pools.SimplePool<>(10000);
+            mViewReusePool = new ViewReusePool(poolSize);
+            mViewPoolSize = poolSize;
         }
 
         /**
@@ -1848,6 +2369,22 @@ public class MapboxMap {
         @Nullable
         public abstract View getView(@NonNull U marker, @NonNull View convertView, @NonNull ViewGroup parent);
 
+        /**
+         * <p>
+         * Called to create an empty View when prewarming the pool of reusable Views, the View is later
+         * passed to {@link #getView(MarkerView, View, ViewGroup)} as convertView.
+         * </p>
+         * Adapters return null by default and can't be prewarmed.
+         *
+         * @param parent the parent ViewGroup of the View
+         * @return a View ready to be adapted to a MarkerView, or null if not supported
+         * @see MarkerViewManager#prewarmViewReusePool(MarkerViewAdapter, int)
+         */
+        @Nullable
+        public View createView(@NonNull ViewGroup parent) {
+            return null;
+        }
+
         /**
          * Called when an MarkerView is removed from the MapView or the View object is going to be reused.
          * <p>
@@ -1903,7 +2440,8 @@ public class MapboxMap {
         }
 
         /**
-         * Returns the pool used to store reusable Views.
+         * Returns the pool used to store reusable Views. Views acquired from or released to it
+         * directly are counted by the pool statistics of this adapter.
          *
          * @return the pool associated to this adapter
          */
@@ -1911,6 +2449,60 @@ public class MapboxMap {
             return mViewReusePool;
         }
 
+        /**
+         * Takes a View from the pool of reusable Views, counting whether the pool had one.
+         *
+         * @return a reusable View, or null if the pool is empty
+         */
+        @Nullable
+        public final View acquireView() {
+            return mViewReusePool.acquire();
+        }
+
+        /**
+         * Returns the maximum number of Views kept for reuse.
+         *
+         * @return the size of the pool
+         */
+        public final int getViewPoolSize() {
+            return mViewPoolSize;
+        }
+
+        /**
+         * Returns the number of Views currently in the pool.
+         *
+         * @return the number of pooled Views
+         */
+        public final int getPooledViewCount() {
+            return mViewReusePool.pooledCount;
+        }
+
+        /**
+         * Returns the number of times a View was reused from the pool.
+         *
+         * @return the number of pool hits
+         */
+        public final int getPoolHitCount() {
+            return mViewReusePool.hitCount;
+        }
+
+        /**
+         * Returns the number of times the pool was empty and a View had to be created.
+         *
+         * @return the number of pool misses
+         */
+        public final int getPoolMissCount() {
+            return mViewReusePool.missCount;
+        }
+
+        /**
+         * Resets the pool hit and miss counters.
+         */
+        public final void resetPoolStatistics() {
+            mViewReusePool.hitCount = 0;
+            mViewReusePool.missCount = 0;
+        }
+
         /**
          * Returns the context associated to the hosting MapView.
          *
@@ -1929,6 +2521,95 @@ public class MapboxMap {
             view.setVisibility(View.GONE);
             mViewReusePool.release(view);
         }
+
+        // counts its Views and statistics itself, so Views taken or released through
+        // getViewReusePool() are counted too
+        private static final class ViewReusePool extends Pools.SimplePool<View> {
+
+            private int pooledCount;
+            private int hitCount;
+            private int missCount;
+
+            ViewReusePool(int maxPoolSize) {
+                super(maxPoolSize);
+            }
+
+            @Override
+            public View acquire() {
+                View view = super.acquire();
+                if (view != null) {
+                    pooledCount--;
+                    hitCount++;
+                } else {
+                    missCount++;
+                }
+                return view;
+            }
+
+            @Override
+            public boolean release(View view) {
+                if (super.release(view)) {
+                    pooledCount++;
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * MarkerViewAdapter that adapts a MarkerView to a bitmap. Instead of one Android View per marker,
+     * the bitmaps of all visible markers are drawn by a single View in one pass, with the rotation,
+     * alpha and tilt of each marker.
+     * </p>
+     * Use it to show a large number of markers that don't need to be interactive Views. Clicks are
+     * resolved against the bitmap bounds, and the View passed to the selection callbacks and to
+     * {@link OnMarkerViewClickListener} is the View drawing all markers.
+     *
+     * @param <U> the instance type of MarkerView
+     */
+    public static abstract class CanvasMarkerViewAdapter<U extends MarkerView> extends MarkerViewAdapter<U> {
+
+        /**
+         * Create an instance of CanvasMarkerViewAdapter.
+         *
+         * @param context the context associated to a MapView
+         */
+        public CanvasMarkerViewAdapter(Context context) {
+            super(context);
+        }
+
+        /**
+         * Called when a MarkerView will be drawn, or when its icon changed.
+         *
+         * @param marker the model representing the MarkerView
+         * @return the bitmap to draw for the MarkerView, or null to not draw it
+         */
+        @Nullable
+        public abstract Bitmap getBitmap(@NonNull U marker);
+
+        /**
+         * Canvas drawn MarkerViews don't have a View of their own.
+         *
+         * @return null
+         */
+        @Nullable
+        @Override
+        public final View getView(@NonNull U marker, @NonNull View convertView, @NonNull ViewGroup parent) {
+            return null;
+        }
+
+        /**
+         * Canvas drawn MarkerViews don't have a View of their own.
+         *
+         * @return null
+         */
+        @Nullable
+        @Override
+        public final View createView(@NonNull ViewGroup parent) {
+            return null;
+        }
     }
 
     /**
@@ -2009,6 +2690,20 @@ public class MapboxMap {
         void onFinish();
     }
 
+    /**
+     * Interface definition for a callback to be invoked when markers added asynchronously were added.
+     *
+     * @see MapboxMap#addMarkersAsync(List, MarkersAddedCallback)
+     */
+    public interface MarkersAddedCallback {
+        /**
+         * Invoked on the main thread when the markers were added.
+         *
+         * @param markers The markers added to the map.
+         */
+        void onMarkersAdded(@NonNull List<Marker> markers);
+    }
+
     /**
      * Interface definition for a callback to be invoked when the snapshot has been taken.
      */
@@ -2026,6 +2721,9 @@ public class MapboxMap {
 
         @Override
         public void onMapChanged(@MapView.MapChange int change) {
+            if (change == MapView.REGION_DID_CHANGE || change == MapView.REGION_DID_CHANGE_ANIMATED) {
+                updateSimplifiedShapes();
+            }
             if (change >= MapView.REGION_WILL_CHANGE && change <= MapView.REGION_DID_CHANGE_ANIMATED) {
                 mInvalidCameraPosition = true;
                 long currentTime = SystemClock.elapsedRealtime();
@@ -0,0 +1,207 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ * Screen space index over the icon bounds of the markers shown by a {@link MapView}, used to resolve taps.
+ * </p>
+ * The icons are binned into a uniform grid of the size of the view, so a tap only tests the markers
+ * of the cells around it. Icons are centered on the screen location of their marker, as core renders
+ * them. The default marker is the exception, its pin fills the top half of the bitmap and points at the
+ * location, so only that half is tapped. The index is built for a camera and a set of markers, and is
+ * rebuilt lazily on the next tap once either changed.
+ */
+final class MarkerHitIndex {
+
+    private static final float CELL_SIZE = 64;
+
+    private Marker[] mMarkers = new Marker[0];
+    // left, top, right and bottom of the icon of each marker
+    private float[] mBounds = new float[0];
+    private int mCount;
+
+    private int mColumns;
+    private int mRows;
+    // entries of cell i are mCellEntries[mCellStarts[i]] to mCellEntries[mCellStarts[i + 1] - 1]
+    private int[] mCellStarts = new int[0];
+    private int[] mCellEntries = new int[0];
+
+    private boolean mValid;
+    private int mMarkerVersion;
+
+    void invalidate() {
+        mValid = false;
+    }
+
+    /**
+     * Returns whether the index is up to date.
+     *
+     * @param markerVersion the modification count of the markers
+     * @return true if the index was built for the current camera and markers
+     */
+    boolean isValid(int markerVersion) {
+        return mValid && mMarkerVersion == markerVersion;
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param markers       the markers, the topmost first
+     * @param screenPoints  the screen location of each marker, as x and y pairs in pixels
+     * @param defaultIcon   the default marker icon, or null
+     * @param screenDensity the density of the screen
+     * @param width         the width of the view in pixels
+     * @param height        the height of the view in pixels
+     * @param markerVersion the modification count of the markers
+     */
+    void build(@NonNull List<Marker> markers, @NonNull float[] screenPoints, @Nullable Icon defaultIcon,
+               float screenDensity, int width, int height, int markerVersion) {
+        String defaultIconId = defaultIcon != null ? defaultIcon.getId() : null;
+        int count = markers.size();
+        if (mMarkers.length < count) {
+            mMarkers = new Marker[count];
+            mBounds = new float[count * 4];
+        } else {
+            Arrays.fill(mMarkers, null);
+        }
+
+        mCount = 0;
+        Marker marker;
+        Icon icon;
+        Bitmap bitmap;
+        for (int i = 0; i < count; i++) {
+            marker = markers.get(i);
+            icon = marker.getIcon();
+            if (icon == null || icon.getBitmap() == null) {
+                continue;
+            }
+
+            bitmap = icon.getBitmap();
+            float scale = MarkerPreparation.getIconScale(bitmap) / screenDensity;
+            float halfWidth = bitmap.getWidth() / scale / 2;
+            float halfHeight = bitmap.getHeight() / scale / 2;
+            float x = screenPoints[i * 2];
+            float y = screenPoints[i * 2 + 1];
+
+            mMarkers[mCount] = marker;
+            mBounds[mCount * 4] = x - halfWidth;
+            mBounds[mCount * 4 + 1] = y - halfHeight;
+            mBounds[mCount * 4 + 2] = x + halfWidth;
+            // the pin of the default marker points at the location, the bottom half of its bitmap is transparent
+            boolean bottomAnchored = icon == defaultIcon || icon.getId().equals(defaultIconId);
+            mBounds[mCount * 4 + 3] = bottomAnchored ? y : y + halfHeight;
+            mCount++;
+        }
+
+        mColumns = Math.max(1, (int) Math.ceil(width / CELL_SIZE));
+        mRows = Math.max(1, (int) Math.ceil(height / CELL_SIZE));
+        int cellCount = mColumns * mRows;
+        if (mCellStarts.length < cellCount + 1) {
+            mCellStarts = new int[cellCount + 1];
+        } else {
+            Arrays.fill(mCellStarts, 0);
+        }
+
+        // counts the entries of each cell, then fills them in order so each cell stays sorted topmost first
+        int entryCount = 0;
+        for (int i = 0; i < mCount; i++) {
+            int left = getColumn(mBounds[i * 4]);
+            int top = getRow(mBounds[i * 4 + 1]);
+            int right = getColumn(mBounds[i * 4 + 2]);
+            int bottom = getRow(mBounds[i * 4 + 3]);
+            for (int row = top; row <= bottom; row++) {
+                for (int column = left; column <= right; column++) {
+                    mCellStarts[row * mColumns + column + 1]++;
+                    entryCount++;
+                }
+            }
+        }
+        for (int i = 0; i < cellCount; i++) {
+            mCellStarts[i + 1] += mCellStarts[i];
+        }
+
+        if (mCellEntries.length < entryCount) {
+            mCellEntries = new int[entryCount];
+        }
+        int[] positions = Arrays.copyOf(mCellStarts, cellCount);
+        for (int i = 0; i < mCount; i++) {
+            int left = getColumn(mBounds[i * 4]);
+            int top = getRow(mBounds[i * 4 + 1]);
+            int right = getColumn(mBounds[i * 4 + 2]);
+            int bottom = getRow(mBounds[i * 4 + 3]);
+            for (int row = top; row <= bottom; row++) {
+                for (int column = left; column <= right; column++) {
+                    mCellEntries[positions[row * mColumns + column]++] = i;
+                }
+            }
+        }
+
+        mMarkerVersion = markerVersion;
+        mValid = true;
+    }
+
+    /**
+     * Returns the topmost marker whose icon contains a screen location.
+     *
+     * @param x                the x coordinate of the location in pixels
+     * @param y                the y coordinate of the location in pixels
+     * @param horizontalMargin the distance in pixels icons are extended by on their sides
+     * @param verticalMargin   the distance in pixels icons are extended by on their top and bottom
+     * @param excluded         markers to skip, or null
+     * @return the topmost marker at the location, or null if none
+     */
+    @Nullable
+    Marker hitTest(float x, float y, float horizontalMargin, float verticalMargin,
+                   @Nullable Collection<Marker> excluded) {
+        if (mCount == 0) {
+            return null;
+        }
+
+        int best = mCount;
+        int left = getColumn(x - horizontalMargin);
+        int top = getRow(y - verticalMargin);
+        int right = getColumn(x + horizontalMargin);
+        int bottom = getRow(y + verticalMargin);
+        for (int row = top; row <= bottom; row++) {
+            for (int column = left; column <= right; column++) {
+                int cell = row * mColumns + column;
+                for (int j = mCellStarts[cell]; j < mCellStarts[cell + 1]; j++) {
+                    int i = mCellEntries[j];
+                    if (i >= best) {
+                        // the remaining entries of the cell are below
+                        break;
+                    }
+                    if (x >= mBounds[i * 4] - horizontalMargin && x <= mBounds[i * 4 + 2] + horizontalMargin
+                            && y >= mBounds[i * 4 + 1] - verticalMargin && y <= mBounds[i * 4 + 3] + verticalMargin
+                            && (excluded == null || !excluded.contains(mMarkers[i]))) {
+                        best = i;
+                        break;
+                    }
+                }
+            }
+        }
+        return best < mCount ? mMarkers[best] : null;
+    }
+
+    private int getColumn(float x) {
+        return Math.max(0, Math.min(mColumns - 1, (int) Math.floor(x / CELL_SIZE)));
+    }
+
+    private int getRow(float y) {
+        return Math.max(0, Math.min(mRows - 1, (int) Math.floor(y / CELL_SIZE)));
+    }
+}
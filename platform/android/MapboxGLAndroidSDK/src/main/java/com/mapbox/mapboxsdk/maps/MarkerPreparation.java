@@ -0,0 +1,145 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.util.DisplayMetrics;
+
+import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.Marker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Markers prepared off the main thread by {@link MapboxMap#addMarkersAsync(List, MapboxMap.MarkersAddedCallback)}.
+ * </p>
+ * Icons are deduplicated, the pixels and top offset of every distinct icon are computed once, so only
+ * the icon uploads and the native add are left for the main thread.
+ */
+final class MarkerPreparation {
+
+    private final List<Marker> mMarkers;
+    private final List<PreparedIcon> mIcons;
+
+    private MarkerPreparation(List<Marker> markers, List<PreparedIcon> icons) {
+        mMarkers = markers;
+        mIcons = icons;
+    }
+
+    List<Marker> getMarkers() {
+        return mMarkers;
+    }
+
+    List<PreparedIcon> getIcons() {
+        return mIcons;
+    }
+
+    /**
+     * Prepares markers, safe to call from any thread.
+     *
+     * @param markerOptionsList the options of the markers
+     * @param defaultIcon       the icon of markers without an icon
+     * @param screenDensity     the density of the screen the map is shown on
+     * @return the prepared markers and their distinct icons
+     */
+    static MarkerPreparation prepare(@NonNull List<? extends BaseMarkerOptions> markerOptionsList,
+                                     @NonNull Icon defaultIcon, float screenDensity) {
+        int count = markerOptionsList.size();
+        List<Marker> markers = new ArrayList<>(count);
+        List<PreparedIcon> icons = new ArrayList<>();
+        Map<Icon, PreparedIcon> preparedIcons = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Marker marker = markerOptionsList.get(i).getMarker();
+            Icon icon = marker.getIcon();
+            boolean isDefaultIcon = icon == null;
+            if (isDefaultIcon) {
+                icon = defaultIcon;
+                marker.setIcon(icon);
+            }
+
+            PreparedIcon preparedIcon = preparedIcons.get(icon);
+            if (preparedIcon == null) {
+                preparedIcon = new PreparedIcon(icon, isDefaultIcon, screenDensity);
+                preparedIcons.put(icon, preparedIcon);
+                icons.add(preparedIcon);
+            }
+            marker.setTopOffsetPixels(preparedIcon.getTopOffsetPixels());
+            markers.add(marker);
+        }
+        return new MarkerPreparation(markers, icons);
+    }
+
+    static float getIconScale(Bitmap bitmap) {
+        float density = bitmap.getDensity();
+        if (density == Bitmap.DENSITY_NONE) {
+            density = DisplayMetrics.DENSITY_DEFAULT;
+        }
+        return density / DisplayMetrics.DENSITY_DEFAULT;
+    }
+
+    /**
+     * The pixels of an icon, ready to be uploaded.
+     */
+    static final class PreparedIcon {
+
+        private final Icon mIcon;
+        private final boolean mDefaultIcon;
+        private final int mWidth;
+        private final int mHeight;
+        private final float mScale;
+        private final ByteBuffer mPixels;
+        private final int mTopOffsetPixels;
+
+        PreparedIcon(@NonNull Icon icon, boolean defaultIcon, float screenDensity) {
+            mIcon = icon;
+            mDefaultIcon = defaultIcon;
+
+            Bitmap bitmap = icon.getBitmap();
+            if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+                bitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            }
+            mWidth = bitmap.getWidth();
+            mHeight = bitmap.getHeight();
+            mScale = getIconScale(bitmap);
+            mPixels = ByteBuffer.allocateDirect(bitmap.getRowBytes() * mHeight).order(ByteOrder.nativeOrder());
+            bitmap.copyPixelsToBuffer(mPixels);
+
+            // same as the offset core computes for the annotation icon, without waiting for the upload
+            mTopOffsetPixels = (int) (-(mHeight / mScale) / 2 * screenDensity);
+        }
+
+        Icon getIcon() {
+            return mIcon;
+        }
+
+        boolean isDefaultIcon() {
+            return mDefaultIcon;
+        }
+
+        int getWidth() {
+            return mWidth;
+        }
+
+        int getHeight() {
+            return mHeight;
+        }
+
+        float getScale() {
+            return mScale;
+        }
+
+        ByteBuffer getPixels() {
+            return mPixels;
+        }
+
+        int getTopOffsetPixels() {
+            return mTopOffsetPixels;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Point quadtree over the positions of the markers added to a {@link MapboxMap}.
+ * </p>
+ * Bounding box queries resolve in O(log n + k) on the Java side instead of requesting the matching
+ * ids from core and linearly scanning every annotation. Entries are keyed by annotation id, adding a
+ * marker with an id that is already indexed replaces the previous entry.
+ */
+final class MarkerSpatialIndex {
+
+    private static final int NODE_CAPACITY = 32;
+    private static final int MAX_DEPTH = 16;
+
+    private final LongSparseArray<Entry> mEntries = new LongSparseArray<>();
+    private Node mRoot = createRoot();
+    private int mModificationCount;
+
+    /**
+     * Indexes a marker at its current position, replacing the entry previously indexed with the
+     * same id. Markers without a position are not indexed.
+     *
+     * @param marker the marker to index
+     */
+    void put(@NonNull Marker marker) {
+        long id = marker.getId();
+        remove(id);
+
+        LatLng position = marker.getPosition();
+        if (position == null) {
+            return;
+        }
+
+        Entry entry = new Entry(marker, position.getLatitude(), wrapLongitude(position.getLongitude()));
+        mEntries.put(id, entry);
+        insert(entry);
+        mModificationCount++;
+    }
+
+    /**
+     * Removes the marker indexed with the given id.
+     *
+     * @param id the id of the marker to remove
+     */
+    void remove(long id) {
+        Entry entry = mEntries.get(id);
+        if (entry != null) {
+            entry.leaf.entries.remove(entry);
+            mEntries.remove(id);
+            mModificationCount++;
+        }
+    }
+
+    void clear() {
+        mEntries.clear();
+        mRoot = createRoot();
+        mModificationCount++;
+    }
+
+    int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the number of times markers were indexed or removed, to detect changes of the markers.
+     *
+     * @return the modification count
+     */
+    int getModificationCount() {
+        return mModificationCount;
+    }
+
+    /**
+     * Returns the markers positioned within a bounding box. Bounds wider than the world or crossing
+     * the antimeridian are wrapped.
+     *
+     * @param bounds the bounding box to query
+     * @return a new list containing the markers within the bounds
+     */
+    @NonNull
+    List<Marker> query(@NonNull LatLngBounds bounds) {
+        return query(bounds, Marker.class);
+    }
+
+    /**
+     * Returns the markers of a given type positioned within a bounding box. Bounds wider than the
+     * world or crossing the antimeridian are wrapped.
+     *
+     * @param bounds the bounding box to query
+     * @param type   the class the returned markers are instances of
+     * @param <T>    the type of the returned markers
+     * @return a new list containing the markers of the given type within the bounds
+     */
+    @NonNull
+    <T extends Marker> List<T> query(@NonNull LatLngBounds bounds, @NonNull Class<T> type) {
+        List<T> result = new ArrayList<>();
+        double south = bounds.getLatSouth();
+        double north = bounds.getLatNorth();
+        double west = bounds.getLonWest();
+        double east = bounds.getLonEast();
+        if (east < west) {
+            // crosses the antimeridian
+            east += 360;
+        }
+
+        double span = east - west;
+        if (span >= 360) {
+            query(mRoot, south, -180, north, 180, type, result);
+            return result;
+        }
+
+        west = wrapLongitude(west);
+        east = west + span;
+        if (east <= 180) {
+            query(mRoot, south, west, north, east, type, result);
+        } else {
+            query(mRoot, south, west, north, 180, type, result);
+            query(mRoot, south, -180, north, east - 360, type, result);
+        }
+        return result;
+    }
+
+    private void insert(Entry entry) {
+        Node node = mRoot;
+        while (node.children != null) {
+            node = node.children[node.childIndex(entry.lat, entry.lon)];
+        }
+
+        node.entries.add(entry);
+        entry.leaf = node;
+        if (node.entries.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+            node.split();
+        }
+    }
+
+    private static <T extends Marker> void query(Node node, double south, double west, double north, double east,
+                                                 Class<T> type, List<T> result) {
+        if (node.south > north || node.north < south || node.west > east || node.east < west) {
+            return;
+        }
+
+        if (node.children != null) {
+            for (Node child : node.children) {
+                query(child, south, west, north, east, type, result);
+            }
+            return;
+        }
+
+        Entry entry;
+        int count = node.entries.size();
+        for (int i = 0; i < count; i++) {
+            entry = node.entries.get(i);
+            if (entry.lat >= south && entry.lat <= north && entry.lon >= west && entry.lon <= east
+                    && type.isInstance(entry.marker)) {
+                result.add(type.cast(entry.marker));
+            }
+        }
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude >= -180 && longitude <= 180) {
+            return longitude;
+        }
+        double wrapped = (longitude + 180) % 360;
+        if (wrapped < 0) {
+            wrapped += 360;
+        }
+        return wrapped - 180;
+    }
+
+    private static Node createRoot() {
+        return new Node(-90, -180, 90, 180, 0);
+    }
+
+    private static final class Entry {
+        private final Marker marker;
+        private final double lat;
+        private final double lon;
+        private Node leaf;
+
+        private Entry(Marker marker, double lat, double lon) {
+            this.marker = marker;
+            this.lat = lat;
+            this.lon = lon;
+        }
+    }
+
+    private static final class Node {
+        private final double south;
+        private final double west;
+        private final double north;
+        private final double east;
+        private final int depth;
+        private List<Entry> entries = new ArrayList<>();
+        private Node[] children;
+
+        private Node(double south, double west, double north, double east, int depth) {
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+            this.depth = depth;
+        }
+
+        private int childIndex(double lat, double lon) {
+            int index = lat >= (south + north) / 2 ? 2 : 0;
+            if (lon >= (west + east) / 2) {
+                index++;
+            }
+            return index;
+        }
+
+        private void split() {
+            double midLat = (south + north) / 2;
+            double midLon = (west + east) / 2;
+            children = new Node[]{
+                    new Node(south, west, midLat, midLon, depth + 1),
+                    new Node(south, midLon, midLat, east, depth + 1),
+                    new Node(midLat, west, north, midLon, depth + 1),
+                    new Node(midLat, midLon, north, east, depth + 1)
+            };
+
+            for (Entry entry : entries) {
+                Node child = children[childIndex(entry.lat, entry.lon)];
+                child.entries.add(entry);
+                entry.leaf = child;
+            }
+            entries = null;
+        }
+    }
+}
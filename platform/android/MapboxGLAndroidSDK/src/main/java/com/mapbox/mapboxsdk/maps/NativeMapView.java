@@ -16,7 +16,12 @@ import com.mapbox.mapboxsdk.geometry.LatLngBounds;
 import com.mapbox.mapboxsdk.geometry.ProjectedMeters;
 import com.mapbox.mapboxsdk.layers.CustomLayer;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // Class that wraps the native methods for convenience
 final class NativeMapView {
@@ -344,12 +349,15 @@ final class NativeMapView {
     }
 
     public long addMarker(Marker marker) {
-        Marker[] markers = { marker };
-        return nativeAddMarkers(mNativeMapViewPtr, markers)[0];
+        return addMarkers(Collections.singletonList(marker))[0];
     }
 
     public long[] addMarkers(List<Marker> markers) {
-        return nativeAddMarkers(mNativeMapViewPtr, markers.toArray(new Marker[markers.size()]));
+        int count = markers.size();
+        double[] latLngs = new double[count * 2];
+        int[] iconIndices = new int[count];
+        String[] iconIds = packMarkers(markers, latLngs, iconIndices);
+        return nativeAddMarkers(mNativeMapViewPtr, latLngs, iconIndices, iconIds);
     }
 
     public long addPolyline(Polyline polyline) {
@@ -370,12 +378,77 @@ final class NativeMapView {
         return nativeAddPolygons(mNativeMapViewPtr, polygons.toArray(new Polygon[polygons.size()]));
     }
 
+    public void updatePolylines(List<Polyline> polylines) {
+        nativeUpdatePolylines(mNativeMapViewPtr, polylines.toArray(new Polyline[polylines.size()]));
+    }
+
+    public void updatePolygons(List<Polygon> polygons) {
+        nativeUpdatePolygons(mNativeMapViewPtr, polygons.toArray(new Polygon[polygons.size()]));
+    }
+
     public void updateMarker(Marker marker) {
         LatLng position = marker.getPosition();
         Icon icon = marker.getIcon();
         nativeUpdateMarker(mNativeMapViewPtr, marker.getId(), position.getLatitude(), position.getLongitude(), icon.getId());
     }
 
+    public void updateMarkers(List<Marker> markers) {
+        int count = markers.size();
+        long[] ids = new long[count];
+        double[] latLngs = new double[count * 2];
+        int[] iconIndices = new int[count];
+        String[] iconIds = packMarkers(markers, latLngs, iconIndices);
+        for (int i = 0; i < count; i++) {
+            ids[i] = markers.get(i).getId();
+        }
+        nativeUpdateMarkers(mNativeMapViewPtr, ids, latLngs, iconIndices, iconIds);
+    }
+
+    /**
+     * Removes and adds markers again under their current ids, in a single native call.
+     *
+     * @param markers the markers to reinstall
+     */
+    public void reinstallMarkers(List<Marker> markers) {
+        int count = markers.size();
+        long[] ids = new long[count];
+        double[] latLngs = new double[count * 2];
+        int[] iconIndices = new int[count];
+        String[] iconIds = packMarkers(markers, latLngs, iconIndices);
+        for (int i = 0; i < count; i++) {
+            ids[i] = markers.get(i).getId();
+        }
+        nativeReinstallMarkers(mNativeMapViewPtr, ids, latLngs, iconIndices, iconIds);
+    }
+
+    // Packs positions and deduplicated icon ids so markers cross JNI in a single call without field lookups
+    private static String[] packMarkers(List<Marker> markers, double[] latLngs, int[] iconIndices) {
+        List<String> iconIds = new ArrayList<>();
+        Map<String, Integer> iconIdIndices = new HashMap<>();
+
+        Marker marker;
+        LatLng position;
+        String iconId;
+        Integer iconIndex;
+        int count = markers.size();
+        for (int i = 0; i < count; i++) {
+            marker = markers.get(i);
+            position = marker.getPosition();
+            latLngs[i * 2] = position.getLatitude();
+            latLngs[i * 2 + 1] = position.getLongitude();
+
+            iconId = marker.getIcon().getId();
+            iconIndex = iconIdIndices.get(iconId);
+            if (iconIndex == null) {
+                iconIndex = iconIds.size();
+                iconIds.add(iconId);
+                iconIdIndices.put(iconId, iconIndex);
+            }
+            iconIndices[i] = iconIndex;
+        }
+        return iconIds.toArray(new String[iconIds.size()]);
+    }
+
     public void removeAnnotation(long id) {
         long[] ids = { id };
         removeAnnotations(ids);
@@ -393,6 +466,19 @@ final class NativeMapView {
         nativeAddAnnotationIcon(mNativeMapViewPtr, symbol, width, height, scale, pixels);
     }
 
+    public void addAnnotationIcon(String symbol, int width, int height, int rowBytes, float scale, ByteBuffer pixels) {
+        nativeAddAnnotationIconBuffer(mNativeMapViewPtr, symbol, width, height, rowBytes, scale, pixels);
+    }
+
+    public void addAnnotationIcons(String[] symbols, int[] rects, float[] scales,
+                                   int atlasWidth, int atlasHeight, ByteBuffer pixels) {
+        nativeAddAnnotationIcons(mNativeMapViewPtr, symbols, rects, scales, atlasWidth, atlasHeight, pixels);
+    }
+
+    public void removeAnnotationIcon(String symbol) {
+        nativeRemoveAnnotationIcon(mNativeMapViewPtr, symbol);
+    }
+
     public void setVisibleCoordinateBounds(LatLng[] coordinates, RectF padding, double direction, long duration) {
         nativeSetVisibleCoordinateBounds(mNativeMapViewPtr, coordinates, padding, direction, duration);
     }
@@ -437,6 +523,10 @@ final class NativeMapView {
         return nativePixelForLatLng(mNativeMapViewPtr, latLng);
     }
 
+    public void pixelsForLatLngs(double[] latLngs, float[] pixels, int count) {
+        nativePixelsForLatLngs(mNativeMapViewPtr, latLngs, pixels, count);
+    }
+
     public LatLng latLngForPixel(PointF pixel) {
         return nativeLatLngForPixel(mNativeMapViewPtr, pixel);
     }
@@ -593,19 +683,36 @@ final class NativeMapView {
 
     private native void nativeUpdateMarker(long nativeMapViewPtr, long markerId, double lat, double lon, String iconId);
 
-    private native long[] nativeAddMarkers(long nativeMapViewPtr, Marker[] markers);
+    private native void nativeUpdateMarkers(long nativeMapViewPtr, long[] markerIds, double[] latLngs, int[] iconIndices, String[] iconIds);
+
+    private native void nativeReinstallMarkers(long nativeMapViewPtr, long[] markerIds, double[] latLngs, int[] iconIndices, String[] iconIds);
+
+    private native long[] nativeAddMarkers(long nativeMapViewPtr, double[] latLngs, int[] iconIndices, String[] iconIds);
 
     private native long[] nativeAddPolylines(long mNativeMapViewPtr, Polyline[] polylines);
 
     private native long[] nativeAddPolygons(long mNativeMapViewPtr, Polygon[] polygons);
 
+    private native void nativeUpdatePolylines(long mNativeMapViewPtr, Polyline[] polylines);
+
+    private native void nativeUpdatePolygons(long mNativeMapViewPtr, Polygon[] polygons);
+
     private native void nativeRemoveAnnotations(long nativeMapViewPtr, long[] id);
 
     private native long[] nativeGetAnnotationsInBounds(long mNativeMapViewPtr, LatLngBounds bbox);
 
+    private native void nativeRemoveAnnotationIcon(long nativeMapViewPtr, String symbol);
+
     private native void nativeAddAnnotationIcon(long nativeMapViewPtr, String symbol,
                                                 int width, int height, float scale, byte[] pixels);
 
+    private native void nativeAddAnnotationIconBuffer(long nativeMapViewPtr, String symbol,
+                                                      int width, int height, int rowBytes, float scale,
+                                                      ByteBuffer pixels);
+
+    private native void nativeAddAnnotationIcons(long nativeMapViewPtr, String[] symbols, int[] rects, float[] scales,
+                                                 int atlasWidth, int atlasHeight, ByteBuffer pixels);
+
     private native void nativeSetVisibleCoordinateBounds(long mNativeMapViewPtr, LatLng[] coordinates,
                                                          RectF padding, double direction, long duration);
 
@@ -629,6 +736,8 @@ final class NativeMapView {
 
     private native PointF nativePixelForLatLng(long nativeMapViewPtr, LatLng latLng);
 
+    private native void nativePixelsForLatLngs(long nativeMapViewPtr, double[] latLngs, float[] pixels, int count);
+
     private native LatLng nativeLatLngForPixel(long nativeMapViewPtr, PointF pixel);
 
     private native double nativeGetTopOffsetPixelsForAnnotationSymbol(long nativeMapViewPtr, String symbolName);
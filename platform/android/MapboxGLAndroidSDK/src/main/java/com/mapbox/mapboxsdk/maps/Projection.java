@@ -87,6 +87,32 @@ public class Projection {
         return mMapView.toScreenLocation(location);
     }
 
+    /**
+     * Returns the screen locations of multiple geographical coordinates in a single call.
+     * The screen locations are in screen pixels relative to the top left of the map.
+     *
+     * @param latLngs         The coordinates as latitude and longitude pairs.
+     * @param screenLocations The array the screen locations are written to, as x and y pairs.
+     */
+    public void toScreenLocations(@NonNull double[] latLngs, @NonNull float[] screenLocations) {
+        toScreenLocations(latLngs, screenLocations, latLngs.length / 2);
+    }
+
+    /**
+     * Returns the screen locations of the first coordinates of an array in a single call,
+     * so the arrays can be reused between calls.
+     *
+     * @param latLngs         The coordinates as latitude and longitude pairs.
+     * @param screenLocations The array the screen locations are written to, as x and y pairs.
+     * @param count           The number of coordinates to convert.
+     */
+    public void toScreenLocations(@NonNull double[] latLngs, @NonNull float[] screenLocations, int count) {
+        if (count < 0 || latLngs.length < count * 2 || screenLocations.length < count * 2) {
+            throw new IllegalArgumentException("Arrays are too short for " + count + " coordinates");
+        }
+        mMapView.toScreenLocations(latLngs, screenLocations, count);
+    }
+
     /**
      * Calculates a zoom level based on minimum scale and current scale from MapView
      *
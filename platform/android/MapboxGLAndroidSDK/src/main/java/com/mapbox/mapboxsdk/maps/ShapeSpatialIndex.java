@@ -0,0 +1,369 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+
+import com.mapbox.mapboxsdk.annotations.MultiPoint;
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Quadtree over the segments of the polylines and the edges of the polygons added to a {@link MapboxMap}.
+ * </p>
+ * Segments are projected to normalized web mercator and stored in the smallest node containing them,
+ * so a tap only tests the segments of the nodes around it. A tap is inside a polygon if a ray cast
+ * from it crosses an odd number of the polygon edges, the crossed edges are found through the same
+ * nodes. Entries are keyed by annotation id, removed entries are dropped when the tree is rebuilt.
+ */
+final class ShapeSpatialIndex {
+
+    private static final int MAX_DEPTH = 24;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final LongSparseArray<Entry> mEntries = new LongSparseArray<>();
+    private Node mRoot = createRoot();
+    private int mSegmentCount;
+    private int mRemovedSegmentCount;
+    private float mMaxHalfWidth;
+    private int mQueryStamp;
+
+    // reused traversal stack and polygons visited by a query
+    private Node[] mStack = new Node[64];
+    private final List<Entry> mVisitedPolygons = new ArrayList<>();
+
+    /**
+     * Indexes a polyline or a polygon, replacing the entry previously indexed with the same id.
+     *
+     * @param id    the id of the shape
+     * @param shape the shape to index
+     */
+    void put(long id, @NonNull MultiPoint shape) {
+        remove(id);
+
+        int pointCount = shape.getPointCount();
+        boolean polygon = shape instanceof Polygon;
+        if (pointCount < 2 || (polygon && pointCount < 3)) {
+            return;
+        }
+
+        double[] coordinates = shape.getCoordinates();
+        double[] xy = new double[pointCount * 2];
+        for (int i = 0; i < pointCount; i++) {
+            xy[i * 2] = projectX(coordinates[i * 2 + 1]);
+            xy[i * 2 + 1] = projectY(coordinates[i * 2]);
+        }
+
+        float halfWidth = shape instanceof Polyline ? ((Polyline) shape).getWidth() / 2 : 0;
+        Entry entry = new Entry(id, shape, xy, polygon, halfWidth);
+        mEntries.put(id, entry);
+        mMaxHalfWidth = Math.max(mMaxHalfWidth, halfWidth);
+        insert(entry);
+    }
+
+    /**
+     * Removes the shape indexed with the given id.
+     *
+     * @param id the id of the shape to remove
+     */
+    void remove(long id) {
+        Entry entry = mEntries.get(id);
+        if (entry == null) {
+            return;
+        }
+
+        mEntries.remove(id);
+        entry.removed = true;
+        mRemovedSegmentCount += entry.getSegmentCount();
+        if (mRemovedSegmentCount > mSegmentCount / 2) {
+            rebuild();
+        }
+    }
+
+    void clear() {
+        mEntries.clear();
+        mRoot = createRoot();
+        mSegmentCount = 0;
+        mRemovedSegmentCount = 0;
+        mMaxHalfWidth = 0;
+    }
+
+    int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns the topmost polyline passing near a location.
+     *
+     * @param latitude      the latitude of the location
+     * @param longitude     the longitude of the location
+     * @param tolerance     the distance in density-independent pixels a polyline can be from the location,
+     *                      besides its width
+     * @param unitsPerPixel the size of a density-independent pixel in normalized web mercator units at the
+     *                      current zoom level
+     * @return the polyline with the highest id passing near the location, or null if none
+     */
+    @Nullable
+    Polyline queryPolyline(double latitude, double longitude, float tolerance, double unitsPerPixel) {
+        Entry entry = query(projectX(longitude), projectY(latitude), tolerance, unitsPerPixel, false);
+        return entry != null ? (Polyline) entry.shape : null;
+    }
+
+    /**
+     * Returns the topmost polygon containing a location, or with an edge near it.
+     *
+     * @param latitude      the latitude of the location
+     * @param longitude     the longitude of the location
+     * @param tolerance     the distance in density-independent pixels an edge can be from the location
+     * @param unitsPerPixel the size of a density-independent pixel in normalized web mercator units at the
+     *                      current zoom level
+     * @return the polygon with the highest id containing the location, or null if none
+     */
+    @Nullable
+    Polygon queryPolygon(double latitude, double longitude, float tolerance, double unitsPerPixel) {
+        Entry entry = query(projectX(longitude), projectY(latitude), tolerance, unitsPerPixel, true);
+        return entry != null ? (Polygon) entry.shape : null;
+    }
+
+    private Entry query(double x, double y, float tolerance, double unitsPerPixel, boolean polygons) {
+        mQueryStamp++;
+        double radius = (tolerance + (polygons ? 0 : mMaxHalfWidth)) * unitsPerPixel;
+        double tolerance2 = tolerance * unitsPerPixel * tolerance * unitsPerPixel;
+        Entry best = null;
+
+        // nodes overlapping the tolerance box, or the ray cast towards the east for polygons
+        double minX = x - radius;
+        double maxX = polygons ? Double.POSITIVE_INFINITY : x + radius;
+        double minY = y - radius;
+        double maxY = y + radius;
+
+        int top = 0;
+        mStack[top++] = mRoot;
+        while (top > 0) {
+            Node node = mStack[--top];
+            for (int i = 0; i < node.count; i++) {
+                Entry entry = node.entries[i];
+                if (entry.removed || entry.polygon != polygons || (best != null && entry.id < best.id)) {
+                    continue;
+                }
+
+                int segment = node.segments[i];
+                double[] xy = entry.xy;
+                int next = (segment + 1) % entry.pointCount;
+                double x1 = xy[segment * 2];
+                double y1 = xy[segment * 2 + 1];
+                double x2 = xy[next * 2];
+                double y2 = xy[next * 2 + 1];
+
+                if (polygons) {
+                    if (entry.stamp != mQueryStamp) {
+                        entry.stamp = mQueryStamp;
+                        entry.crossings = 0;
+                        entry.nearEdge = false;
+                        mVisitedPolygons.add(entry);
+                    }
+                    if ((y1 > y) != (y2 > y) && x < x1 + (y - y1) / (y2 - y1) * (x2 - x1)) {
+                        entry.crossings++;
+                    }
+                    if (!entry.nearEdge && getSegmentDistanceSquared(x, y, x1, y1, x2, y2) <= tolerance2) {
+                        entry.nearEdge = true;
+                    }
+                } else {
+                    double hitRadius = (tolerance + entry.halfWidth) * unitsPerPixel;
+                    if (getSegmentDistanceSquared(x, y, x1, y1, x2, y2) <= hitRadius * hitRadius) {
+                        best = entry;
+                    }
+                }
+            }
+
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (child != null && child.minX <= maxX && child.maxX >= minX
+                            && child.minY <= maxY && child.maxY >= minY) {
+                        if (top == mStack.length) {
+                            mStack = Arrays.copyOf(mStack, top * 2);
+                        }
+                        mStack[top++] = child;
+                    }
+                }
+            }
+        }
+
+        if (polygons) {
+            // every edge crossing the ray was visited, the crossing counts are complete
+            for (Entry entry : mVisitedPolygons) {
+                if (((entry.crossings & 1) == 1 || entry.nearEdge) && (best == null || entry.id > best.id)) {
+                    best = entry;
+                }
+            }
+            mVisitedPolygons.clear();
+        }
+        return best;
+    }
+
+    private void insert(Entry entry) {
+        int segmentCount = entry.getSegmentCount();
+        double[] xy = entry.xy;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            int next = (segment + 1) % entry.pointCount;
+            double minX = Math.min(xy[segment * 2], xy[next * 2]);
+            double maxX = Math.max(xy[segment * 2], xy[next * 2]);
+            double minY = Math.min(xy[segment * 2 + 1], xy[next * 2 + 1]);
+            double maxY = Math.max(xy[segment * 2 + 1], xy[next * 2 + 1]);
+
+            Node node = mRoot;
+            if (minX >= node.minX && maxX <= node.maxX && minY >= node.minY && maxY <= node.maxY) {
+                while (node.depth < MAX_DEPTH) {
+                    double midX = (node.minX + node.maxX) / 2;
+                    double midY = (node.minY + node.maxY) / 2;
+                    int index;
+                    if (maxX <= midX) {
+                        index = 0;
+                    } else if (minX >= midX) {
+                        index = 1;
+                    } else {
+                        break;
+                    }
+                    if (maxY > midY) {
+                        if (minY < midY) {
+                            break;
+                        }
+                        index += 2;
+                    }
+                    node = node.getChild(index);
+                }
+            }
+            node.add(entry, segment);
+        }
+        mSegmentCount += segmentCount;
+    }
+
+    private void rebuild() {
+        mRoot = createRoot();
+        mSegmentCount = 0;
+        mRemovedSegmentCount = 0;
+        mMaxHalfWidth = 0;
+        Entry entry;
+        for (int i = 0; i < mEntries.size(); i++) {
+            entry = mEntries.valueAt(i);
+            mMaxHalfWidth = Math.max(mMaxHalfWidth, entry.halfWidth);
+            insert(entry);
+        }
+    }
+
+    static double projectX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    static double projectY(double latitude) {
+        latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        return 0.5 - Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitude) / 2)) / (2 * Math.PI);
+    }
+
+    private static double getSegmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double x = ax;
+        double y = ay;
+        if (dx != 0 || dy != 0) {
+            double t = ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+            if (t > 1) {
+                x = bx;
+                y = by;
+            } else if (t > 0) {
+                x += dx * t;
+                y += dy * t;
+            }
+        }
+        dx = px - x;
+        dy = py - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static Node createRoot() {
+        return new Node(0, 0, 1, 1, 0);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final MultiPoint shape;
+        // projected points as x and y pairs
+        private final double[] xy;
+        private final int pointCount;
+        private final boolean polygon;
+        private final float halfWidth;
+        private boolean removed;
+
+        // state of the current polygon query
+        private int stamp;
+        private int crossings;
+        private boolean nearEdge;
+
+        private Entry(long id, MultiPoint shape, double[] xy, boolean polygon, float halfWidth) {
+            this.id = id;
+            this.shape = shape;
+            this.xy = xy;
+            this.pointCount = xy.length / 2;
+            this.polygon = polygon;
+            this.halfWidth = halfWidth;
+        }
+
+        private int getSegmentCount() {
+            // polygons are closed by an edge from the last point to the first
+            return polygon ? pointCount : pointCount - 1;
+        }
+    }
+
+    private static final class Node {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final int depth;
+        private Node[] children;
+        private Entry[] entries = new Entry[0];
+        private int[] segments = new int[0];
+        private int count;
+
+        private Node(double minX, double minY, double maxX, double maxY, int depth) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.depth = depth;
+        }
+
+        private Node getChild(int index) {
+            if (children == null) {
+                children = new Node[4];
+            }
+            if (children[index] == null) {
+                double midX = (minX + maxX) / 2;
+                double midY = (minY + maxY) / 2;
+                children[index] = new Node(
+                        index % 2 == 0 ? minX : midX,
+                        index < 2 ? minY : midY,
+                        index % 2 == 0 ? midX : maxX,
+                        index < 2 ? midY : maxY,
+                        depth + 1);
+            }
+            return children[index];
+        }
+
+        private void add(Entry entry, int segment) {
+            if (count == entries.length) {
+                int capacity = Math.max(4, count * 2);
+                entries = Arrays.copyOf(entries, capacity);
+                segments = Arrays.copyOf(segments, capacity);
+            }
+            entries[count] = entry;
+            segments[count] = segment;
+            count++;
+        }
+    }
+}
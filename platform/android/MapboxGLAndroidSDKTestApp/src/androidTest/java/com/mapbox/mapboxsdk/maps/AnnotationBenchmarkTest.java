@@ -0,0 +1,243 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.MarkerView;
+import com.mapbox.mapboxsdk.annotations.MarkerViewOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Benchmarks of the annotation data structures, run on a device.
+ * <p>
+ * Results are logged with the {@value #TAG} tag and reported as instrumentation status, they
+ * aren't asserted as they depend on the device. Unit tests cover the behaviour.
+ * </p>
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class AnnotationBenchmarkTest {
+
+    private static final String TAG = "AnnotationBenchmark";
+
+    // runs before measuring, so the measured code is compiled
+    private static final int WARM_UP_RUNS = 3;
+
+    @Test
+    public void testMarkerViewBoundsQuery() {
+        MarkerSpatialIndex index = new MarkerSpatialIndex();
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            MarkerView markerView = new MarkerViewOptions()
+                    .position(new LatLng((i % 100) * 1.5 - 75, (i / 100) * 3.5 - 175))
+                    .getMarker();
+            markerView.setId(i);
+            index.put(markerView);
+        }
+
+        LatLngBounds viewport = new LatLngBounds.Builder()
+                .include(new LatLng(40, 2))
+                .include(new LatLng(42, 5))
+                .build();
+        int queryCount = 1000;
+        long nanos = 0;
+        for (int run = 0; run <= WARM_UP_RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < queryCount; i++) {
+                assertEquals(2, index.query(viewport, MarkerView.class).size());
+            }
+            nanos = System.nanoTime() - start;
+        }
+        report("markerViewBoundsQuery", count + " marker views: " + nanos / queryCount / 1000 + " us per query");
+    }
+
+    @Test
+    public void testMarkerHitTest() {
+        // taps on 20k markers spread over a 1080p screen
+        int count = 20000;
+        int width = 1080;
+        int height = 1920;
+        Random random = new Random(42);
+        Icon icon = IconFactory.recreate("hit_test", Bitmap.createBitmap(32, 48, Bitmap.Config.ARGB_8888));
+        List<Marker> markers = new ArrayList<>(count);
+        float[] screenPoints = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            Marker marker = new MarkerOptions().position(new LatLng()).icon(icon).getMarker();
+            marker.setId(count - i);
+            markers.add(marker);
+            screenPoints[i * 2] = random.nextFloat() * width;
+            screenPoints[i * 2 + 1] = random.nextFloat() * height;
+        }
+
+        int tapCount = 1000;
+        float[] taps = new float[tapCount * 2];
+        for (int i = 0; i < taps.length; i += 2) {
+            taps[i] = random.nextFloat() * width;
+            taps[i + 1] = random.nextFloat() * height;
+        }
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        long buildNanos = 0;
+        long tapNanos = 0;
+        for (int run = 0; run <= WARM_UP_RUNS; run++) {
+            long start = System.nanoTime();
+            index.build(markers, screenPoints, null, 1.0f, width, height, run);
+            buildNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < tapCount; i++) {
+                index.hitTest(taps[i * 2], taps[i * 2 + 1], 4, 10, null);
+            }
+            tapNanos = System.nanoTime() - start;
+        }
+        report("markerHitTest", count + " markers: built in " + buildNanos / 1000000 + " ms, "
+                + tapNanos / tapCount / 1000 + " us per tap");
+    }
+
+    @Test
+    public void testTopOffsetLookup() {
+        // the cached top offsets of 10 icons, looked up for 10k markers as when adding them
+        int iconCount = 10;
+        int markerCount = 10000;
+        IconRegistry iconRegistry = new IconRegistry();
+        Bitmap bitmap = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+        String[] iconIds = new String[iconCount];
+        for (int i = 0; i < iconCount; i++) {
+            Icon icon = IconFactory.recreate("icon" + i, bitmap);
+            iconRegistry.register(icon);
+            iconRegistry.setTopOffsetPixels(icon.getId(), -i);
+            iconIds[i] = icon.getId();
+        }
+
+        long nanos = 0;
+        for (int run = 0; run <= WARM_UP_RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < markerCount; i++) {
+                assertNotNull(iconRegistry.getTopOffsetPixels(iconIds[i % iconCount]));
+            }
+            nanos = System.nanoTime() - start;
+        }
+        report("topOffsetLookup", markerCount + " markers: " + nanos / markerCount + " ns per lookup");
+    }
+
+    @Test
+    public void testAddSimplifiedPolyline() {
+        // time and retained memory of simplified GPS tracks at 10k, 100k and 1M points
+        Runtime runtime = Runtime.getRuntime();
+        for (int count : new int[]{10000, 100000, 1000000}) {
+            double[] track = createTrack(count);
+            long millis = 0;
+            long retainedKb = 0;
+            Polyline polyline = null;
+            for (int run = 0; run <= WARM_UP_RUNS; run++) {
+                polyline = null;
+                System.gc();
+                long memory = runtime.totalMemory() - runtime.freeMemory();
+
+                long start = System.nanoTime();
+                polyline = new PolylineOptions().addAll(track).simplify(true).getPolyline();
+                polyline.setRenderZoom(10);
+                millis = (System.nanoTime() - start) / 1000000;
+
+                System.gc();
+                retainedKb = (runtime.totalMemory() - runtime.freeMemory() - memory) / 1024;
+            }
+            report("addSimplifiedPolyline" + count, count + " points: " + millis + " ms, " + retainedKb + " kB, "
+                    + polyline.getRenderPointCount() + " points at zoom 10");
+        }
+    }
+
+    @Test
+    public void testShapeQuery() {
+        // taps on 5k routes of 100 points, at zoom level 10
+        int routeCount = 5000;
+        int pointCount = 100;
+        double unitsPerPixel = 1 / (512 * Math.pow(2, 10));
+        Random random = new Random(42);
+        ShapeSpatialIndex index = new ShapeSpatialIndex();
+        Polyline[] routes = new Polyline[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            double latitude = random.nextDouble() * 120 - 60;
+            double longitude = random.nextDouble() * 340 - 170;
+            double[] coordinates = new double[pointCount * 2];
+            for (int j = 0; j < pointCount; j++) {
+                coordinates[j * 2] = latitude;
+                coordinates[j * 2 + 1] = longitude;
+                latitude += random.nextDouble() * 0.02 - 0.01;
+                longitude += random.nextDouble() * 0.02 - 0.01;
+            }
+            routes[i] = new PolylineOptions().addAll(coordinates).getPolyline();
+        }
+
+        int tapCount = 1000;
+        LatLng[] taps = new LatLng[tapCount];
+        for (int i = 0; i < tapCount; i++) {
+            taps[i] = routes[random.nextInt(routeCount)].getPoint(random.nextInt(pointCount));
+        }
+
+        long indexNanos = 0;
+        long tapNanos = 0;
+        for (int run = 0; run <= WARM_UP_RUNS; run++) {
+            index.clear();
+            long start = System.nanoTime();
+            for (int i = 0; i < routeCount; i++) {
+                index.put(i, routes[i]);
+            }
+            indexNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < tapCount; i++) {
+                assertNotNull(index.queryPolyline(taps[i].getLatitude(), taps[i].getLongitude(), 10, unitsPerPixel));
+            }
+            tapNanos = System.nanoTime() - start;
+        }
+        report("shapeQuery", routeCount * (pointCount - 1) + " segments: indexed in " + indexNanos / 1000000
+                + " ms, " + tapNanos / tapCount / 1000 + " us per tap");
+    }
+
+    private static double[] createTrack(int count) {
+        // random walk of roughly 5 meter steps, as latitude and longitude pairs
+        Random random = new Random(count);
+        double[] track = new double[count * 2];
+        double latitude = 52.0;
+        double longitude = 4.0;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.5;
+            latitude += Math.cos(heading) * 0.00005;
+            longitude += Math.sin(heading) * 0.00005;
+            track[i * 2] = latitude;
+            track[i * 2 + 1] = longitude;
+        }
+        return track;
+    }
+
+    private static void report(String name, String result) {
+        Log.i(TAG, name + ": " + result);
+        Bundle status = new Bundle();
+        status.putString(name, result);
+        InstrumentationRegistry.getInstrumentation().sendStatus(Activity.RESULT_OK, status);
+    }
+}
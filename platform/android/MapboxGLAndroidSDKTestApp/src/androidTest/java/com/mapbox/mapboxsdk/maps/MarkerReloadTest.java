@@ -0,0 +1,108 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.test.suitebuilder.annotation.LargeTest;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.testapp.R;
+import com.mapbox.mapboxsdk.testapp.activity.annotation.DynamicMarkerChangeActivity;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that reloading the markers after the style changed keeps their ids and icon references.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class MarkerReloadTest {
+
+    @Rule
+    public ActivityTestRule<DynamicMarkerChangeActivity> mActivityRule = new ActivityTestRule<>(
+            DynamicMarkerChangeActivity.class);
+
+    private final List<Marker> mMarkers = new ArrayList<>();
+    private long[] mIdsBefore;
+    private long[] mIdsAfter;
+    private boolean mLookupsValid;
+    private int[] mReferencesBefore;
+    private int[] mReferencesAfter;
+
+    @Test
+    public void testReloadKeepsIdsAndIconReferences() throws InterruptedException {
+        final MapView mapView = (MapView) mActivityRule.getActivity().findViewById(R.id.mapView);
+        final CountDownLatch ready = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mapView.getMapAsync(new OnMapReadyCallback() {
+                    @Override
+                    public void onMapReady(MapboxMap mapboxMap) {
+                        ready.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue("Map should be ready", ready.await(30, TimeUnit.SECONDS));
+
+        // assertions run on the test thread, failures on the main thread would crash the app
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                MapboxMap mapboxMap = mapView.getMapboxMap();
+                IconRegistry iconRegistry = mapView.getIconRegistry();
+                Bitmap bitmap = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+                Icon sharedIcon = IconFactory.recreate("reload_shared", bitmap);
+                Icon singleIcon = IconFactory.recreate("reload_single", bitmap);
+                mMarkers.add(mapboxMap.addMarker(new MarkerOptions().position(new LatLng(1, 1)).icon(sharedIcon)));
+                mMarkers.add(mapboxMap.addMarker(new MarkerOptions().position(new LatLng(2, 2)).icon(sharedIcon)));
+                mMarkers.add(mapboxMap.addMarker(new MarkerOptions().position(new LatLng(3, 3)).icon(singleIcon)));
+
+                mIdsBefore = getIds();
+                mReferencesBefore = new int[]{iconRegistry.getReferenceCount("reload_shared"),
+                        iconRegistry.getReferenceCount("reload_single"), iconRegistry.size()};
+
+                mapView.reloadMarkers();
+
+                mIdsAfter = getIds();
+                mReferencesAfter = new int[]{iconRegistry.getReferenceCount("reload_shared"),
+                        iconRegistry.getReferenceCount("reload_single"), iconRegistry.size()};
+                mLookupsValid = true;
+                for (Marker marker : mMarkers) {
+                    mLookupsValid &= mapboxMap.getAnnotation(marker.getId()) == marker;
+                }
+            }
+        });
+
+        assertArrayEquals("Markers should keep their ids", mIdsBefore, mIdsAfter);
+        assertTrue("Markers should be found by their ids", mLookupsValid);
+        assertArrayEquals("Icon references should be unchanged", mReferencesBefore, mReferencesAfter);
+        assertEquals("Shared icon should be referenced twice", 2, mReferencesAfter[0]);
+        assertEquals("Single icon should be referenced once", 1, mReferencesAfter[1]);
+    }
+
+    private long[] getIds() {
+        long[] ids = new long[mMarkers.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = mMarkers.get(i).getId();
+        }
+        return ids;
+    }
+}
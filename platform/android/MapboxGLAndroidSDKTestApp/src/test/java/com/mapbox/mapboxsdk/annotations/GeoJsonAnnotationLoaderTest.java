@@ -0,0 +1,409 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.os.Handler;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GeoJsonAnnotationLoaderTest {
+
+    private static final String GEOMETRIES = "{\"type\":\"FeatureCollection\",\"features\":["
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[4,52,10]},"
+            + "\"properties\":{\"title\":\"a\",\"snippet\":\"b\",\"other\":{\"c\":1}}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[1,2],[3,4],[5,6]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiLineString\","
+            + "\"coordinates\":[[[1,2],[3,4]],[[5,6],[7,8]]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\","
+            + "\"coordinates\":[[[0,0],[10,0],[10,10],[0,0]],[[1,1],[2,1],[2,2],[1,1]]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiPolygon\",\"coordinates\":["
+            + "[[[0,0],[5,0],[5,5],[0,0]],[[1,1],[2,1],[2,2],[1,1]]],"
+            + "[[[20,20],[30,20],[30,30],[20,20]]]]}}"
+            + "]}";
+
+    private MapboxMap mMapboxMap;
+    private Handler mHandler;
+    private List<Runnable> mPosted;
+    private boolean mRunPosted;
+    private List<String> mEvents;
+    private GeoJsonAnnotationLoader mLoader;
+
+    @Before
+    public void beforeTest() {
+        mMapboxMap = mock(MapboxMap.class);
+        mHandler = mock(Handler.class);
+        mPosted = Collections.synchronizedList(new ArrayList<Runnable>());
+        mRunPosted = true;
+        when(mHandler.post(any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                // runs the batches on the loader thread instead of the main thread
+                Runnable runnable = (Runnable) invocation.getArguments()[0];
+                if (mRunPosted) {
+                    runnable.run();
+                } else {
+                    mPosted.add(runnable);
+                }
+                return true;
+            }
+        });
+
+        mEvents = Collections.synchronizedList(new ArrayList<String>());
+        mLoader = new GeoJsonAnnotationLoader(mMapboxMap, mHandler)
+                .setCallback(new GeoJsonAnnotationLoader.LoadCallback() {
+                    @Override
+                    public void onProgress(int annotationCount) {
+                        mEvents.add("progress " + annotationCount);
+                    }
+
+                    @Override
+                    public void onLoaded(int annotationCount) {
+                        mEvents.add("loaded " + annotationCount);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        mEvents.add("error");
+                    }
+                });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGeometries() throws InterruptedException {
+        load(GEOMETRIES);
+        assertEquals(Collections.singletonList("loaded 9"), mEvents);
+
+        ArgumentCaptor<List> markers = ArgumentCaptor.forClass(List.class);
+        verify(mMapboxMap).addMarkers(markers.capture());
+        List<MarkerOptions> markerOptions = markers.getValue();
+        assertEquals("Point and MultiPoint should add 3 markers", 3, markerOptions.size());
+        assertEquals("Coordinates should be longitude first", new LatLng(52, 4), markerOptions.get(0).getPosition());
+        assertEquals("Title should be read", "a", markerOptions.get(0).getTitle());
+        assertEquals("Snippet should be read", "b", markerOptions.get(0).getSnippet());
+        assertEquals(new LatLng(4, 3), markerOptions.get(2).getPosition());
+
+        ArgumentCaptor<List> polylines = ArgumentCaptor.forClass(List.class);
+        verify(mMapboxMap).addPolylines(polylines.capture());
+        List<PolylineOptions> polylineOptions = polylines.getValue();
+        assertEquals("LineString and MultiLineString should add 3 polylines", 3, polylineOptions.size());
+        assertEquals(3, polylineOptions.get(0).getPoints().size());
+        assertEquals(Arrays.asList(new LatLng(6, 5), new LatLng(8, 7)), polylineOptions.get(2).getPoints());
+
+        ArgumentCaptor<List> polygons = ArgumentCaptor.forClass(List.class);
+        verify(mMapboxMap).addPolygons(polygons.capture());
+        List<PolygonOptions> polygonOptions = polygons.getValue();
+        assertEquals("Polygon and MultiPolygon should add 3 polygons", 3, polygonOptions.size());
+        assertEquals("Polygon should be its outer ring",
+                Arrays.asList(new LatLng(0, 0), new LatLng(0, 10), new LatLng(10, 10), new LatLng(0, 0)),
+                polygonOptions.get(0).getPoints());
+        assertEquals("First polygon should be its outer ring", new LatLng(5, 5), polygonOptions.get(1).getPoints().get(2));
+        assertEquals("Second polygon should skip the hole of the first",
+                Arrays.asList(new LatLng(20, 20), new LatLng(20, 30), new LatLng(30, 30), new LatLng(20, 20)),
+                polygonOptions.get(2).getPoints());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTypeAfterCoordinates() throws InterruptedException {
+        load("{\"features\":["
+                + "{\"geometry\":{\"coordinates\":[[1,2],[3,4]],\"type\":\"LineString\"},\"type\":\"Feature\"},"
+                + "{\"properties\":null,\"geometry\":{\"coordinates\":[5,6],\"type\":\"Point\"},\"type\":\"Feature\"}"
+                + "],\"type\":\"FeatureCollection\"}");
+        assertEquals(Collections.singletonList("loaded 2"), mEvents);
+
+        ArgumentCaptor<List> markers = ArgumentCaptor.forClass(List.class);
+        verify(mMapboxMap).addMarkers(markers.capture());
+        assertEquals(new LatLng(6, 5), ((MarkerOptions) markers.getValue().get(0)).getPosition());
+        verify(mMapboxMap).addPolylines(anyListOf(PolylineOptions.class));
+    }
+
+    @Test
+    public void testGeometryWithoutFeature() throws InterruptedException {
+        load("{\"coordinates\":[[1,2],[3,4]],\"type\":\"MultiPoint\"}");
+        assertEquals(Collections.singletonList("loaded 2"), mEvents);
+        verify(mMapboxMap).addMarkers(anyListOf(MarkerOptions.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatches() throws InterruptedException {
+        StringBuilder geoJson = new StringBuilder("{\"type\":\"MultiPoint\",\"coordinates\":[");
+        for (int i = 0; i < 5; i++) {
+            geoJson.append(i > 0 ? "," : "").append("[").append(i).append(",0]");
+        }
+        mLoader.setBatchSize(2);
+        load(geoJson.append("]}").toString());
+
+        assertEquals(Arrays.asList("progress 2", "progress 4", "loaded 5"), mEvents);
+        ArgumentCaptor<List> markers = ArgumentCaptor.forClass(List.class);
+        verify(mMapboxMap, times(3)).addMarkers(markers.capture());
+        assertEquals(2, markers.getAllValues().get(0).size());
+        assertEquals(2, markers.getAllValues().get(1).size());
+        assertEquals(1, markers.getAllValues().get(2).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        mLoader.setBatchSize(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLoadTwice() throws InterruptedException {
+        load("{\"type\":\"Point\",\"coordinates\":[1,2]}");
+        mLoader.load(new FakeJsonReader("{}"));
+    }
+
+    @Test
+    public void testCancelBeforeWaiting() throws InterruptedException {
+        // the loader checks for cancellation once it may post a batch
+        mLoader.cancel();
+        load("{\"type\":\"Point\",\"coordinates\":[1,2]}");
+        verify(mHandler, never()).post(any(Runnable.class));
+        assertTrue(mLoader.isCancelled());
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws InterruptedException {
+        // the first batch isn't added yet, so the loader waits before posting the second one
+        mRunPosted = false;
+        mLoader.setBatchSize(1);
+        FakeJsonReader reader = new FakeJsonReader("{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4],[5,6]]}");
+        mLoader.load(reader);
+        verify(mHandler, timeout(1000)).post(any(Runnable.class));
+
+        mLoader.cancel();
+        assertTrue("Loader should stop", reader.awaitClose());
+        assertEquals("Only the first batch should be posted", 1, mPosted.size());
+
+        mPosted.get(0).run();
+        verify(mMapboxMap, never()).addMarkers(anyListOf(MarkerOptions.class));
+        assertTrue("No callback should be invoked", mEvents.isEmpty());
+    }
+
+    @Test
+    public void testMalformedDocument() throws InterruptedException {
+        // annotations read before the error are kept
+        mLoader.setBatchSize(1);
+        load("{\"type\":\"FeatureCollection\",\"features\":["
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[3,4]}},"
+                + "{\"type\":\"Fea");
+        assertEquals(Arrays.asList("progress 1", "progress 2", "error"), mEvents);
+    }
+
+    @Test
+    public void testInvalidCoordinates() throws InterruptedException {
+        load("{\"type\":\"Point\",\"coordinates\":[1,\"b\"]}");
+        assertEquals(Collections.singletonList("error"), mEvents);
+    }
+
+    @Test
+    public void testInvalidType() throws InterruptedException {
+        load("{\"type\":{\"name\":\"Point\"},\"coordinates\":[1,2]}");
+        assertEquals(Collections.singletonList("error"), mEvents);
+        verify(mMapboxMap, never()).addMarkers(anyListOf(MarkerOptions.class));
+    }
+
+    @Test
+    public void testMissingCoordinate() throws InterruptedException {
+        load("{\"type\":\"Point\",\"coordinates\":[1]}");
+        assertEquals(Collections.singletonList("error"), mEvents);
+    }
+
+    private void load(String geoJson) throws InterruptedException {
+        FakeJsonReader reader = new FakeJsonReader(geoJson);
+        mLoader.load(reader);
+        assertTrue("Loader should complete", reader.awaitClose());
+    }
+
+    /**
+     * A JsonReader over a string, as the framework JsonReader isn't available to unit tests. It
+     * throws the same exceptions as the framework reader for unexpected tokens, and an IOException
+     * where the document becomes malformed.
+     */
+    private static class FakeJsonReader extends JsonReader {
+
+        private final List<JsonToken> tokens = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private boolean malformed;
+        private int position;
+
+        FakeJsonReader(String json) {
+            super(new StringReader(json));
+            try {
+                int end = tokenize(json, 0);
+                if (end != json.length()) {
+                    malformed = true;
+                }
+            } catch (IndexOutOfBoundsException | IllegalArgumentException exception) {
+                malformed = true;
+            }
+            if (!malformed) {
+                add(JsonToken.END_DOCUMENT, null);
+            }
+        }
+
+        private int tokenize(String json, int index) {
+            char c = json.charAt(index);
+            if (c == '{' || c == '[') {
+                boolean object = c == '{';
+                add(object ? JsonToken.BEGIN_OBJECT : JsonToken.BEGIN_ARRAY, null);
+                index++;
+                if (json.charAt(index) != (object ? '}' : ']')) {
+                    while (true) {
+                        if (object) {
+                            int end = json.indexOf('"', index + 1);
+                            if (json.charAt(index) != '"' || json.charAt(end + 1) != ':') {
+                                throw new IllegalArgumentException();
+                            }
+                            add(JsonToken.NAME, json.substring(index + 1, end));
+                            index = end + 2;
+                        }
+                        index = tokenize(json, index);
+                        if (json.charAt(index) != ',') {
+                            break;
+                        }
+                        index++;
+                    }
+                }
+                if (json.charAt(index) != (object ? '}' : ']')) {
+                    throw new IllegalArgumentException();
+                }
+                add(object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY, null);
+                return index + 1;
+            } else if (c == '"') {
+                int end = json.indexOf('"', index + 1);
+                add(JsonToken.STRING, json.substring(index + 1, end));
+                return end + 1;
+            } else if (json.startsWith("null", index)) {
+                add(JsonToken.NULL, null);
+                return index + 4;
+            }
+
+            int end = index;
+            while (end < json.length() && "-+.eE0123456789".indexOf(json.charAt(end)) != -1) {
+                end++;
+            }
+            if (end == index) {
+                throw new IllegalArgumentException();
+            }
+            add(JsonToken.NUMBER, json.substring(index, end));
+            return end;
+        }
+
+        private void add(JsonToken token, String value) {
+            tokens.add(token);
+            values.add(value);
+        }
+
+        boolean awaitClose() throws InterruptedException {
+            return closed.await(1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public JsonToken peek() throws IOException {
+            if (position == tokens.size()) {
+                throw new IOException("Malformed JSON");
+            }
+            return tokens.get(position);
+        }
+
+        private String next(JsonToken... expected) throws IOException {
+            JsonToken token = peek();
+            if (!Arrays.asList(expected).contains(token)) {
+                throw new IllegalStateException("Expected " + expected[0] + " but was " + token);
+            }
+            return values.get(position++);
+        }
+
+        @Override
+        public void beginObject() throws IOException {
+            next(JsonToken.BEGIN_OBJECT);
+        }
+
+        @Override
+        public void endObject() throws IOException {
+            next(JsonToken.END_OBJECT);
+        }
+
+        @Override
+        public void beginArray() throws IOException {
+            next(JsonToken.BEGIN_ARRAY);
+        }
+
+        @Override
+        public void endArray() throws IOException {
+            next(JsonToken.END_ARRAY);
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            JsonToken token = peek();
+            return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+        }
+
+        @Override
+        public String nextName() throws IOException {
+            return next(JsonToken.NAME);
+        }
+
+        @Override
+        public String nextString() throws IOException {
+            return next(JsonToken.STRING, JsonToken.NUMBER);
+        }
+
+        @Override
+        public double nextDouble() throws IOException {
+            return Double.parseDouble(next(JsonToken.NUMBER, JsonToken.STRING));
+        }
+
+        @Override
+        public void skipValue() throws IOException {
+            int depth = 0;
+            do {
+                JsonToken token = peek();
+                if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+                    depth++;
+                } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
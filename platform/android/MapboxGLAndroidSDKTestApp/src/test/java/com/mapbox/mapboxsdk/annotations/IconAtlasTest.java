@@ -0,0 +1,100 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IconAtlasTest {
+
+    @Test
+    public void testPackSingleAtlas() {
+        List<Icon> icons = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            icons.add(createIcon("icon" + i, 16 + i % 5, 16 + i % 7));
+        }
+
+        List<IconAtlas> atlases = IconAtlas.pack(icons, 256);
+        assertEquals("Icons should fit in a single atlas", 1, atlases.size());
+        assertPacked(atlases.get(0), 256);
+        assertEquals("Atlas should hold all icons", 100, atlases.get(0).getIcons().size());
+    }
+
+    @Test
+    public void testPackMultipleAtlases() {
+        List<Icon> icons = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            icons.add(createIcon("icon" + i, 60, 60));
+        }
+
+        List<IconAtlas> atlases = IconAtlas.pack(icons, 128);
+        assertEquals("4 icons should fit in each atlas", 3, atlases.size());
+        int count = 0;
+        for (IconAtlas atlas : atlases) {
+            assertPacked(atlas, 128);
+            count += atlas.getIcons().size();
+        }
+        assertEquals("Atlases should hold all icons", 10, count);
+    }
+
+    @Test
+    public void testPackOversizedIcon() {
+        Icon large = createIcon("large", 300, 20);
+        List<IconAtlas> atlases = IconAtlas.pack(Arrays.asList(createIcon("small", 10, 10), large), 256);
+        assertEquals("Oversized icon should get its own atlas", 2, atlases.size());
+        IconAtlas atlas = atlases.get(0);
+        assertEquals("Oversized icon should be alone", Arrays.asList(large), atlas.getIcons());
+        assertEquals("Atlas width should match the icon", 300, atlas.getWidth());
+        assertEquals("Atlas height should match the icon", 20, atlas.getHeight());
+    }
+
+    @Test
+    public void testPackEmpty() {
+        assertTrue("No atlas should be created", IconAtlas.pack(new ArrayList<Icon>()).isEmpty());
+    }
+
+    @Test
+    public void testScales() {
+        IconAtlas atlas = IconAtlas.pack(Arrays.asList(createIcon("icon", 10, 10))).get(0);
+        assertEquals("Icon without density should have a scale of 1", 1.0f, atlas.getScales()[0], 0.0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSize() {
+        IconAtlas.pack(new ArrayList<Icon>(), 0);
+    }
+
+    private static void assertPacked(IconAtlas atlas, int maxSize) {
+        int[] rects = atlas.getRects();
+        assertEquals("Rects should match icons", atlas.getIcons().size() * 4, rects.length);
+        assertTrue("Atlas should not exceed max size", atlas.getWidth() <= maxSize && atlas.getHeight() <= maxSize);
+        for (int i = 0; i < rects.length; i += 4) {
+            Bitmap bitmap = atlas.getIcons().get(i / 4).getBitmap();
+            assertEquals("Rect width should match the icon", bitmap.getWidth(), rects[i + 2]);
+            assertEquals("Rect height should match the icon", bitmap.getHeight(), rects[i + 3]);
+            assertTrue("Icon should be inside the atlas", rects[i] >= 0 && rects[i + 1] >= 0
+                    && rects[i] + rects[i + 2] <= atlas.getWidth() && rects[i + 1] + rects[i + 3] <= atlas.getHeight());
+            for (int j = i + 4; j < rects.length; j += 4) {
+                boolean overlaps = rects[i] < rects[j] + rects[j + 2] && rects[j] < rects[i] + rects[i + 2]
+                        && rects[i + 1] < rects[j + 1] + rects[j + 3] && rects[j + 1] < rects[i + 1] + rects[i + 3];
+                assertFalse("Icons should not overlap", overlaps);
+            }
+        }
+    }
+
+    private static Icon createIcon(String id, int width, int height) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(width);
+        when(bitmap.getHeight()).thenReturn(height);
+        return IconFactory.recreate(id, bitmap);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IconCacheTest {
+
+    private IconCache mIconCache;
+
+    @Before
+    public void beforeTest() {
+        mIconCache = new IconCache(100);
+    }
+
+    @Test
+    public void testSameIconForSameKey() {
+        Icon icon = createIcon("icon", 40);
+        mIconCache.put("asset:icon.png", icon);
+        assertSame("Icon should be the cached instance", icon, mIconCache.get("asset:icon.png"));
+        assertNull("Unknown key should not be cached", mIconCache.get("asset:other.png"));
+    }
+
+    @Test
+    public void testSize() {
+        mIconCache.put("resource:1", createIcon("icon1", 40));
+        mIconCache.put("resource:2", createIcon("icon2", 40));
+        assertEquals("Size should be the byte count of the bitmaps", 80, mIconCache.size());
+        assertEquals("Max size should match", 100, mIconCache.maxSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        Icon icon1 = createIcon("icon1", 40);
+        Icon icon2 = createIcon("icon2", 40);
+        Icon icon3 = createIcon("icon3", 40);
+        mIconCache.put("resource:1", icon1);
+        mIconCache.put("resource:2", icon2);
+
+        // touch icon1 so icon2 becomes the least recently used one
+        mIconCache.get("resource:1");
+        mIconCache.put("resource:3", icon3);
+
+        assertSame("Icon1 should be cached", icon1, mIconCache.get("resource:1"));
+        assertNull("Icon2 should be evicted", mIconCache.get("resource:2"));
+        assertSame("Icon3 should be cached", icon3, mIconCache.get("resource:3"));
+    }
+
+    @Test
+    public void testClear() {
+        mIconCache.put("resource:1", createIcon("icon1", 40));
+        mIconCache.clear();
+        assertNull("Icon should be removed", mIconCache.get("resource:1"));
+        assertEquals("Size should be 0", 0, mIconCache.size());
+    }
+
+    @Test
+    public void testNoReusableBitmapForCachedIcons() {
+        mIconCache.put("resource:1", createIcon("icon1", 40));
+        assertNull("Bitmaps of cached icons should not be reused", mIconCache.obtainReusableBitmap(40));
+    }
+
+    private static Icon createIcon(String id, int byteCount) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getRowBytes()).thenReturn(byteCount);
+        when(bitmap.getHeight()).thenReturn(1);
+        return IconFactory.recreate(id, bitmap);
+    }
+}
@@ -0,0 +1,180 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarkerAnimatorTest {
+
+    private static final long MILLIS = 1000000;
+
+    private MapboxMap mMapboxMap;
+    private MarkerViewManager mMarkerViewManager;
+    private MarkerAnimator mAnimator;
+
+    @Before
+    public void beforeTest() {
+        mMapboxMap = mock(MapboxMap.class);
+        mMarkerViewManager = mock(MarkerViewManager.class);
+        when(mMapboxMap.getMarkerViewManager()).thenReturn(mMarkerViewManager);
+        mAnimator = new MarkerAnimator(mMapboxMap);
+    }
+
+    @Test
+    public void testInterpolateLongitude() {
+        assertEquals("Longitude should be interpolated", 15, MarkerAnimator.interpolateLongitude(10, 20, 0.5f), 1e-9);
+        assertEquals("Eastward across the antimeridian", 175, MarkerAnimator.interpolateLongitude(170, -170, 0.25f), 1e-9);
+        assertEquals("Eastward past the antimeridian", -175, MarkerAnimator.interpolateLongitude(170, -170, 0.75f), 1e-9);
+        assertEquals("Westward past the antimeridian", 175, MarkerAnimator.interpolateLongitude(-170, 170, 0.75f), 1e-9);
+        assertEquals("End should be reached", -170, MarkerAnimator.interpolateLongitude(170, -170, 1), 1e-9);
+    }
+
+    @Test
+    public void testAnimatePosition() {
+        List<Marker> markers = createMarkers(3);
+        LatLng to = new LatLng(10, -170);
+        for (Marker marker : markers) {
+            mAnimator.animatePosition(marker, to, 1000);
+        }
+        assertTrue("Animator should be running", mAnimator.isRunning());
+
+        // animations start on the first frame
+        mAnimator.doFrame(100 * MILLIS);
+        mAnimator.doFrame(600 * MILLIS);
+        LatLng position = markers.get(0).getPosition();
+        assertEquals("Latitude should be halfway", 5, position.getLatitude(), 1e-6);
+        assertEquals("Longitude should cross the antimeridian", 180, Math.abs(position.getLongitude()), 1e-6);
+        verify(mMapboxMap, times(2)).updateMarkers(anyListOf(Marker.class));
+        verify(mMapboxMap, never()).updateMarker(any(Marker.class));
+        verify(mMarkerViewManager, times(2)).invalidateMovedViewMarkers(anyListOf(Marker.class));
+
+        mAnimator.doFrame(1100 * MILLIS);
+        assertSame("Marker should end at the target", to, markers.get(2).getPosition());
+        assertFalse("Animator should be done", mAnimator.isRunning());
+        verify(mMapboxMap, times(3)).updateMarkers(anyListOf(Marker.class));
+    }
+
+    @Test
+    public void testAnimateRotationAndAlpha() {
+        MarkerView marker = new MarkerView(new MarkerViewOptions());
+        marker.setId(1);
+        when(mMapboxMap.getAnnotation(1)).thenReturn(marker);
+        mAnimator.animateRotation(marker, 90, 100);
+        mAnimator.animateAlpha(marker, 0, 200);
+
+        mAnimator.doFrame(0);
+        mAnimator.doFrame(50 * MILLIS);
+        assertEquals("Rotation should be halfway", 45, marker.getRotation(), 1e-3);
+        assertEquals("Alpha should be a quarter down", 0.75f, marker.getAlpha(), 1e-3);
+        verify(mMarkerViewManager, times(2)).applyAnimatedProperties(marker);
+        verify(mMapboxMap, never()).updateMarkers(anyListOf(Marker.class));
+
+        mAnimator.doFrame(100 * MILLIS);
+        assertEquals("Rotation should end", 90, marker.getRotation(), 0);
+        assertTrue("Alpha should still animate", mAnimator.isAnimating(marker));
+        mAnimator.doFrame(200 * MILLIS);
+        assertEquals("Alpha should end", 0, marker.getAlpha(), 0);
+        assertFalse("Marker should be done", mAnimator.isAnimating(marker));
+    }
+
+    @Test
+    public void testAnimationEnd() {
+        final List<Marker> ended = new ArrayList<>();
+        mAnimator.setOnAnimationEndListener(new MarkerAnimator.OnAnimationEndListener() {
+            @Override
+            public void onAnimationEnd(Marker marker) {
+                ended.add(marker);
+                // restart, as a vehicle heading to its next stop
+                mAnimator.animatePosition(marker, new LatLng(1, 1), 100);
+            }
+        });
+        List<Marker> markers = createMarkers(2);
+        mAnimator.animatePosition(markers.get(0), new LatLng(), 100);
+        mAnimator.animatePosition(markers.get(1), new LatLng(), 300);
+
+        mAnimator.doFrame(0);
+        mAnimator.doFrame(100 * MILLIS);
+        assertEquals("First marker should end", 1, ended.size());
+        assertSame("First marker should end", markers.get(0), ended.get(0));
+        assertTrue("Restarted marker should animate", mAnimator.isAnimating(markers.get(0)));
+
+        mAnimator.cancel(markers.get(1));
+        mAnimator.doFrame(300 * MILLIS);
+        assertEquals("Cancelled marker should not end", 1, ended.size());
+    }
+
+    @Test
+    public void testRemovedMarker() {
+        final List<Marker> ended = new ArrayList<>();
+        mAnimator.setOnAnimationEndListener(new MarkerAnimator.OnAnimationEndListener() {
+            @Override
+            public void onAnimationEnd(Marker marker) {
+                ended.add(marker);
+            }
+        });
+        List<Marker> markers = createMarkers(2);
+        MarkerView markerView = new MarkerView(new MarkerViewOptions());
+        markerView.setId(2);
+        for (Marker marker : markers) {
+            mAnimator.animatePosition(marker, new LatLng(), 100);
+        }
+        mAnimator.animateRotation(markerView, 90, 100);
+        mAnimator.animateAlpha(markerView, 0, 100);
+
+        // the marker view was never added, the first marker is removed before the first frame
+        when(mMapboxMap.getAnnotation(0)).thenReturn(null);
+        mAnimator.doFrame(0);
+        assertFalse("Removed marker should stop animating", mAnimator.isAnimating(markers.get(0)));
+        assertFalse("Marker view that isn't added should stop animating", mAnimator.isAnimating(markerView));
+        assertEquals("Removed marker should not move", 170, markers.get(0).getPosition().getLongitude(), 0);
+        verify(mMarkerViewManager, never()).applyAnimatedProperties(markerView);
+
+        mAnimator.doFrame(100 * MILLIS);
+        assertEquals("Only the marker on the map should end", 1, ended.size());
+        assertSame("Only the marker on the map should end", markers.get(1), ended.get(0));
+        assertFalse("Animator should be done", mAnimator.isRunning());
+    }
+
+    @Test
+    public void testAnimateFleet() {
+        // one native update per frame, however many markers move
+        List<Marker> markers = createMarkers(3000);
+        for (int i = 0; i < markers.size(); i++) {
+            mAnimator.animatePosition(markers.get(i), new LatLng(i % 90, i % 360 - 180), 1000);
+        }
+        for (int frame = 0; frame <= 60; frame++) {
+            mAnimator.doFrame(frame * 1000 * MILLIS / 60);
+        }
+        verify(mMapboxMap, times(61)).updateMarkers(anyListOf(Marker.class));
+        verify(mMapboxMap, never()).updateMarker(any(Marker.class));
+        assertFalse("Animator should be done", mAnimator.isRunning());
+    }
+
+    private List<Marker> createMarkers(int count) {
+        List<Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Marker marker = new Marker(new MarkerOptions().position(new LatLng(0, 170)));
+            marker.setId(i);
+            when(mMapboxMap.getAnnotation(i)).thenReturn(marker);
+            markers.add(marker);
+        }
+        return markers;
+    }
+}
@@ -0,0 +1,571 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+import com.mapbox.mapboxsdk.geometry.VisibleRegion;
+import com.mapbox.mapboxsdk.maps.MapView;
+import com.mapbox.mapboxsdk.maps.MapboxMap;
+import com.mapbox.mapboxsdk.maps.Projection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarkerViewManagerTest {
+
+    private Context mContext;
+    private MapView mMapView;
+    private MapboxMap mMapboxMap;
+    private Projection mProjection;
+    private MarkerViewManager mManager;
+    private TestMarkerViewAdapter mAdapter;
+
+    @Before
+    public void beforeTest() {
+        mContext = mock(Context.class);
+        mMapView = mock(MapView.class);
+        when(mMapView.getContext()).thenReturn(mContext);
+        when(mMapView.getMarkerViewContainer()).thenReturn(new FrameLayout(mContext));
+
+        mProjection = mock(Projection.class);
+        setVisibleBounds(1, 1, -1, -1);
+        mMapboxMap = mock(MapboxMap.class);
+        when(mMapboxMap.getProjection()).thenReturn(mProjection);
+
+        mManager = new MarkerViewManager(mMapboxMap, mMapView);
+        mAdapter = new TestMarkerViewAdapter(mContext);
+        mManager.addMarkerViewAdapter(mAdapter);
+    }
+
+    @Test
+    public void testInvalidateViewMarkersInBounds() {
+        List<TestMarkerView> markers = createMarkers(3);
+        setMarkersInBounds(markers.subList(0, 2));
+        mManager.invalidateViewMarkersInBounds();
+        View stayed = mManager.getView(markers.get(1));
+        assertNotNull("Marker in bounds should have a view", mManager.getView(markers.get(0)));
+        assertNotNull("Marker in bounds should have a view", stayed);
+        assertNull("Marker out of bounds should not have a view", mManager.getView(markers.get(2)));
+
+        setMarkersInBounds(markers.subList(1, 3));
+        mManager.invalidateViewMarkersInBounds();
+        assertNull("Exited marker should release its view", mManager.getView(markers.get(0)));
+        assertSame("Marker that stayed should keep its view", stayed, mManager.getView(markers.get(1)));
+        assertNotNull("Entered marker should have a view", mManager.getView(markers.get(2)));
+        assertEquals("Released view should be reused", 2, mAdapter.createdViewCount);
+        assertEquals("Reused view should be a pool hit", 1, mAdapter.getPoolHitCount());
+        assertEquals("Created views should be pool misses", 2, mAdapter.getPoolMissCount());
+        assertEquals("Reused view should leave the pool", 0, mAdapter.getPooledViewCount());
+    }
+
+    @Test
+    public void testPrewarmViewReusePool() {
+        assertTrue("Pool should need more views", mManager.prewarmViewReusePool(mAdapter, 6, 4));
+        assertEquals("Batch should be created", 4, mAdapter.getPooledViewCount());
+        assertFalse("Pool should be warm", mManager.prewarmViewReusePool(mAdapter, 6, 4));
+        assertEquals("Pool should hold the target", 6, mAdapter.getPooledViewCount());
+
+        List<TestMarkerView> markers = createMarkers(8);
+        setMarkersInBounds(markers);
+        mManager.invalidateViewMarkersInBounds();
+        assertEquals("Prewarmed views should be reused", 6, mAdapter.getPoolHitCount());
+        assertEquals("Views past the prewarmed ones should be created", 2, mAdapter.getPoolMissCount());
+        assertEquals("Views should only be created for misses", 8, mAdapter.createdViewCount);
+
+        mAdapter.resetPoolStatistics();
+        assertEquals("Hits should be reset", 0, mAdapter.getPoolHitCount());
+        assertEquals("Misses should be reset", 0, mAdapter.getPoolMissCount());
+    }
+
+    @Test
+    public void testPoolCountsDirectAccess() {
+        TestMarkerViewAdapter adapter = new TestMarkerViewAdapter(mContext, 4);
+        mManager.addMarkerViewAdapter(adapter);
+        for (int i = 0; i < 5; i++) {
+            adapter.getViewReusePool().release(new View(mContext));
+        }
+        assertEquals("Views released to the pool should be counted up to its size", 4, adapter.getPooledViewCount());
+        assertFalse("Full pool should not be prewarmed", mManager.prewarmViewReusePool(adapter, 4, 4));
+        assertEquals("Full pool should not create views", 0, adapter.createdViewCount);
+
+        assertNotNull("Pooled view should be acquired", adapter.getViewReusePool().acquire());
+        assertNotNull("Pooled view should be acquired", adapter.acquireView());
+        assertEquals("Acquired views should leave the count", 2, adapter.getPooledViewCount());
+        assertEquals("Acquired views should be pool hits", 2, adapter.getPoolHitCount());
+    }
+
+    @Test
+    public void testPrewarmUnsupported() {
+        MapboxMap.MarkerViewAdapter<TestMarkerView> adapter =
+                new MapboxMap.MarkerViewAdapter<TestMarkerView>(mContext, 10) {
+                    @Override
+                    public View getView(@NonNull TestMarkerView marker, View convertView, @NonNull ViewGroup parent) {
+                        return convertView;
+                    }
+                };
+        assertEquals("Pool size should be set", 10, adapter.getViewPoolSize());
+        assertFalse("Adapter that isn't added should not be prewarmed", mManager.prewarmViewReusePool(adapter, 5, 4));
+        mManager.addMarkerViewAdapter(adapter);
+        assertFalse("Adapter without createView should not be prewarmed", mManager.prewarmViewReusePool(adapter, 5, 4));
+        assertEquals("Pool should stay empty", 0, adapter.getPooledViewCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPoolSize() {
+        new TestMarkerViewAdapter(mContext, 0);
+    }
+
+    @Test
+    public void testInvalidateViewMarkersInBoundsPan() {
+        // a pan that keeps half of the markers in bounds only touches the markers that entered or exited
+        int count = 20000;
+        List<TestMarkerView> markers = createMarkers(count * 3 / 2);
+        setMarkersInBounds(markers.subList(0, count));
+        mManager.invalidateViewMarkersInBounds();
+        View stayed = mManager.getView(markers.get(count / 2));
+
+        mAdapter.boundViewCount = 0;
+        setMarkersInBounds(markers.subList(count / 2, count * 3 / 2));
+        mManager.invalidateViewMarkersInBounds();
+        verify(mMapView, times(2)).getMarkerViewsInBounds(any(LatLngBounds.class));
+        assertEquals("Only exited markers should release their view", count / 2, mAdapter.releasedViewCount);
+        assertEquals("Only entered markers should be bound", count / 2, mAdapter.boundViewCount);
+        assertEquals("Views of exited markers should be reused", count, mAdapter.createdViewCount);
+        assertSame("Marker that stayed should keep its view", stayed, mManager.getView(markers.get(count / 2)));
+        assertNull("Exited marker should release its view", mManager.getView(markers.get(0)));
+        assertNotNull("Entered marker should have a view", mManager.getView(markers.get(count * 3 / 2 - 1)));
+    }
+
+    @Test
+    public void testCanvasMarkerViews() {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(20);
+        when(bitmap.getHeight()).thenReturn(40);
+        TestCanvasMarkerViewAdapter canvasAdapter = new TestCanvasMarkerViewAdapter(mContext, bitmap);
+        mManager.addMarkerViewAdapter(canvasAdapter);
+        MapboxMap.OnMarkerViewClickListener listener = mock(MapboxMap.OnMarkerViewClickListener.class);
+        mManager.setOnMarkerViewClickListener(listener);
+
+        List<TestCanvasMarkerView> markers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            TestCanvasMarkerView marker = new TestCanvasMarkerView();
+            marker.setId(i);
+            marker.setPosition(new LatLng(0, i));
+            markers.add(marker);
+        }
+        when(mMapView.getMarkerViewsInBounds(any(LatLngBounds.class)))
+                .thenReturn(new ArrayList<MarkerView>(markers));
+        mManager.invalidateViewMarkersInBounds();
+        assertNull("Canvas drawn marker should not have a view", mManager.getView(markers.get(0)));
+
+        // both markers are projected to the same location, the last added is on top,
+        // bitmaps are anchored at their bottom center
+        Projection projection = mMapboxMap.getProjection();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                float[] points = (float[]) invocation.getArguments()[1];
+                Arrays.fill(points, 0, (Integer) invocation.getArguments()[2] * 2, 100);
+                return null;
+            }
+        }).when(projection).toScreenLocations(any(double[].class), any(float[].class), anyInt());
+        mManager.update();
+
+        assertTrue("Tap on the bitmaps should be dispatched", mManager.dispatchCanvasClick(105, 80));
+        verify(listener).onMarkerClick(eq(markers.get(1)), any(View.class), eq(canvasAdapter));
+        assertFalse("Tap away from the bitmaps should not be dispatched", mManager.dispatchCanvasClick(50, 50));
+
+        mManager.removeMarkerView(markers.get(1));
+        assertTrue("Tap should reach the marker below", mManager.dispatchCanvasClick(105, 80));
+        verify(listener).onMarkerClick(eq(markers.get(0)), any(View.class), eq(canvasAdapter));
+    }
+
+    @Test
+    public void testIncrementalInvalidation() {
+        List<TestMarkerView> markers = createMarkersAlongEquator(20);
+        List<LatLngBounds> queries = queryMarkersByPosition(markers);
+        mManager.setIncrementalInvalidation(true);
+        assertTrue("Incremental invalidation should be enabled", mManager.isIncrementalInvalidation());
+
+        setVisibleBounds(1, 4.5, -1, -0.5);
+        queries.clear();
+        mManager.scheduleViewMarkerInvalidation();
+        assertEquals("First invalidation should query the viewport", 1, queries.size());
+        assertShown(markers, 0, 5);
+
+        // pan east by 2 degrees, query only the entered and exited strips
+        setVisibleBounds(1, 6.5, -1, 1.5);
+        queries.clear();
+        mManager.scheduleViewMarkerInvalidation();
+        assertEquals("Entered and exited strips should be queried", 2, queries.size());
+        for (LatLngBounds strip : queries) {
+            assertEquals("Strip should span the pan", 2, strip.getLongitudeSpan(), 1e-9);
+        }
+        assertShown(markers, 2, 7);
+
+        // a jump queries the viewport again
+        setVisibleBounds(1, 16.5, -1, 11.5);
+        queries.clear();
+        mManager.scheduleViewMarkerInvalidation();
+        assertEquals("Jump should query the viewport", 1, queries.size());
+        assertShown(markers, 12, 17);
+    }
+
+    @Test
+    public void testMovedMarkersWithStillCamera() {
+        List<TestMarkerView> markers = createMarkersAlongEquator(20);
+        List<LatLngBounds> queries = queryMarkersByPosition(markers);
+        mManager.setIncrementalInvalidation(true);
+        setVisibleBounds(1, 4.5, -1, -0.5);
+        mManager.scheduleViewMarkerInvalidation();
+        assertShown(markers, 0, 5);
+
+        // a vehicle drives into the still viewport, another one drives out
+        markers.get(10).setAnimatedPosition(new LatLng(0, 2.5));
+        markers.get(0).setAnimatedPosition(new LatLng(0, 8));
+        queries.clear();
+        mManager.scheduleViewMarkerInvalidation();
+        assertTrue("Still camera should not query", queries.isEmpty());
+        mManager.invalidateMovedViewMarkers(new ArrayList<Marker>(markers.subList(0, 11)));
+        assertTrue("Moved markers should not be queried", queries.isEmpty());
+        assertNotNull("Marker that moved into the viewport should have a view", mManager.getView(markers.get(10)));
+        assertNull("Marker that moved out of the viewport should release its view", mManager.getView(markers.get(0)));
+        assertNotNull("Marker that stayed should keep its view", mManager.getView(markers.get(1)));
+        assertNull("Marker that stayed out should not have a view", mManager.getView(markers.get(9)));
+
+        mManager.setIncrementalInvalidation(false);
+        markers.get(10).setAnimatedPosition(new LatLng(0, 12));
+        mManager.invalidateMovedViewMarkers(new ArrayList<Marker>(markers.subList(10, 11)));
+        assertNotNull("Moved markers should be left to the rate limited invalidation",
+                mManager.getView(markers.get(10)));
+    }
+
+    @Test
+    public void testOffscreenMarginHysteresis() {
+        List<TestMarkerView> markers = createMarkersAlongEquator(20);
+        queryMarkersByPosition(markers);
+        mManager.setIncrementalInvalidation(true);
+        // a fifth of the 5 degree wide viewport, shown within 1 degree and hidden past 2 degrees
+        mManager.setOffscreenMargin(0.2f);
+
+        setVisibleBounds(1, 4.5, -1, -0.5);
+        mManager.scheduleViewMarkerInvalidation();
+        assertShown(markers, 0, 6);
+
+        setVisibleBounds(1, 5.7, -1, 0.7);
+        mManager.scheduleViewMarkerInvalidation();
+        assertShown(markers, 0, 7);
+
+        setVisibleBounds(1, 6.7, -1, 1.7);
+        mManager.scheduleViewMarkerInvalidation();
+        assertNotNull("Marker within twice the margin should keep its view", mManager.getView(markers.get(0)));
+        assertShown(markers, 0, 8);
+
+        setVisibleBounds(1, 7.7, -1, 2.7);
+        mManager.scheduleViewMarkerInvalidation();
+        assertShown(markers, 1, 9);
+
+        // a full invalidation keeps the same markers
+        mManager.invalidateViewMarkersInBounds();
+        assertShown(markers, 1, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeOffscreenMargin() {
+        mManager.setOffscreenMargin(-1);
+    }
+
+    @Test
+    public void testAddDifference() {
+        LatLngBounds a = new LatLngBounds.Builder().include(new LatLng(10, 10)).include(new LatLng(0, 0)).build();
+        LatLngBounds b = new LatLngBounds.Builder().include(new LatLng(7, 12)).include(new LatLng(-3, 2)).build();
+        List<LatLngBounds> strips = new ArrayList<>();
+        MarkerViewManager.addDifference(a, b, strips);
+        assertEquals("North and west strips should remain", 2, strips.size());
+        assertEquals("North strip", new LatLngBounds.Builder()
+                .include(new LatLng(10, 10)).include(new LatLng(7, 0)).build(), strips.get(0));
+        assertEquals("West strip", new LatLngBounds.Builder()
+                .include(new LatLng(7, 2)).include(new LatLng(0, 0)).build(), strips.get(1));
+
+        strips.clear();
+        MarkerViewManager.addDifference(a, a, strips);
+        assertTrue("Same bounds should have no difference", strips.isEmpty());
+    }
+
+    @Test
+    public void testDeclutter() {
+        List<TestMarkerView> markers = createMarkersAlongEquator(3);
+        markers.get(2).setPosition(new LatLng(0, 10));
+        setMarkersInBounds(markers);
+        mManager.invalidateViewMarkersInBounds();
+        projectByPosition();
+        mManager.setDeclutterFade(false);
+        mManager.setDeclutterEnabled(true);
+        assertTrue("Declutter should be enabled", mManager.isDeclutterEnabled());
+
+        // the first two markers share a cell, the earliest added is kept
+        mManager.update();
+        assertFalse("First marker should be kept", mManager.isDecluttered(markers.get(0)));
+        assertTrue("Second marker should be decluttered", mManager.isDecluttered(markers.get(1)));
+        assertFalse("Marker alone in its cell should be kept", mManager.isDecluttered(markers.get(2)));
+
+        mManager.setDeclutterComparator(new Comparator<MarkerView>() {
+            @Override
+            public int compare(MarkerView marker, MarkerView other) {
+                return marker.getId() < other.getId() ? 1 : (marker.getId() == other.getId() ? 0 : -1);
+            }
+        });
+        mManager.update();
+        assertTrue("Lower priority marker should be decluttered", mManager.isDecluttered(markers.get(0)));
+        assertFalse("Higher priority marker should be kept", mManager.isDecluttered(markers.get(1)));
+
+        when(mMapboxMap.isMarkerSelected(markers.get(0))).thenReturn(true);
+        mManager.update();
+        assertFalse("Selected marker should be kept", mManager.isDecluttered(markers.get(0)));
+        assertTrue("Marker sharing a cell with a selected one should be decluttered",
+                mManager.isDecluttered(markers.get(1)));
+
+        // smaller cells separate the markers
+        mManager.setDeclutterCellSize(5);
+        mManager.update();
+        assertFalse("Marker alone in a small cell should be kept", mManager.isDecluttered(markers.get(1)));
+
+        mManager.setDeclutterCellSize(MarkerViewManager.DEFAULT_DECLUTTER_CELL_SIZE);
+        mManager.update();
+        assertTrue("Marker should be decluttered again", mManager.isDecluttered(markers.get(1)));
+        mManager.setDeclutterEnabled(false);
+        assertFalse("Disabling should show all markers", mManager.isDecluttered(markers.get(1)));
+    }
+
+    @Test
+    public void testDeclutterManyCells() {
+        // two markers in each of 1000 cells of 10 pixels, on both sides of the origin
+        int cellCount = 1000;
+        List<TestMarkerView> markers = createMarkers(cellCount * 2);
+        for (int i = 0; i < markers.size(); i++) {
+            int cell = i % cellCount;
+            markers.get(i).setPosition(new LatLng(cell / 40 - 12.5, cell % 40 - 19.5));
+        }
+        setMarkersInBounds(markers);
+        mManager.invalidateViewMarkersInBounds();
+        projectByPosition();
+        mManager.setDeclutterFade(false);
+        mManager.setDeclutterCellSize(10);
+        mManager.setDeclutterEnabled(true);
+        mManager.update();
+
+        for (int i = 0; i < markers.size(); i++) {
+            assertEquals("Only the earliest added marker of each cell should be kept",
+                    i >= cellCount, mManager.isDecluttered(markers.get(i)));
+        }
+    }
+
+    @Test
+    public void testDeclutterCanvasMarkerViews() {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(20);
+        when(bitmap.getHeight()).thenReturn(40);
+        TestCanvasMarkerViewAdapter canvasAdapter = new TestCanvasMarkerViewAdapter(mContext, bitmap);
+        mManager.addMarkerViewAdapter(canvasAdapter);
+        MapboxMap.OnMarkerViewClickListener listener = mock(MapboxMap.OnMarkerViewClickListener.class);
+        mManager.setOnMarkerViewClickListener(listener);
+
+        List<TestCanvasMarkerView> markers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            TestCanvasMarkerView marker = new TestCanvasMarkerView();
+            marker.setId(i);
+            marker.setPosition(new LatLng(10, 10));
+            markers.add(marker);
+        }
+        when(mMapView.getMarkerViewsInBounds(any(LatLngBounds.class)))
+                .thenReturn(new ArrayList<MarkerView>(markers));
+        mManager.invalidateViewMarkersInBounds();
+        projectByPosition();
+        mManager.setDeclutterEnabled(true);
+        mManager.update();
+
+        // the decluttered marker is drawn on top, taps go to the kept one
+        assertTrue("Later added marker should be decluttered", mManager.isDecluttered(markers.get(1)));
+        assertTrue("Tap should reach the kept marker", mManager.dispatchCanvasClick(105, 80));
+        verify(listener).onMarkerClick(eq(markers.get(0)), any(View.class), eq(canvasAdapter));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDeclutterCellSize() {
+        mManager.setDeclutterCellSize(0);
+    }
+
+    // projects positions to ten pixels per degree
+    private void projectByPosition() {
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                double[] latLngs = (double[]) invocation.getArguments()[0];
+                float[] points = (float[]) invocation.getArguments()[1];
+                int count = (Integer) invocation.getArguments()[2];
+                for (int i = 0; i < count; i++) {
+                    points[i * 2] = (float) latLngs[i * 2 + 1] * 10;
+                    points[i * 2 + 1] = (float) latLngs[i * 2] * 10;
+                }
+                return null;
+            }
+        }).when(mProjection).toScreenLocations(any(double[].class), any(float[].class), anyInt());
+    }
+
+    private void setMarkersInBounds(List<TestMarkerView> markers) {
+        when(mMapView.getMarkerViewsInBounds(any(LatLngBounds.class)))
+                .thenReturn(new ArrayList<MarkerView>(markers));
+    }
+
+    private void setVisibleBounds(double north, double east, double south, double west) {
+        LatLng latLng = new LatLng();
+        when(mProjection.getVisibleRegion()).thenReturn(new VisibleRegion(latLng, latLng, latLng, latLng,
+                new LatLngBounds.Builder().include(new LatLng(north, east)).include(new LatLng(south, west)).build()));
+    }
+
+    // answers bounds queries with the markers positioned in them, and records the queried bounds
+    private List<LatLngBounds> queryMarkersByPosition(final List<TestMarkerView> markers) {
+        final List<LatLngBounds> queries = new ArrayList<>();
+        when(mMapView.getMarkerViewsInBounds(any(LatLngBounds.class))).thenAnswer(new Answer<List<MarkerView>>() {
+            @Override
+            public List<MarkerView> answer(InvocationOnMock invocation) {
+                LatLngBounds bounds = (LatLngBounds) invocation.getArguments()[0];
+                queries.add(bounds);
+                List<MarkerView> result = new ArrayList<>();
+                for (TestMarkerView marker : markers) {
+                    LatLng position = marker.getPosition();
+                    if (position.getLatitude() >= bounds.getLatSouth() && position.getLatitude() <= bounds.getLatNorth()
+                            && position.getLongitude() >= bounds.getLonWest() && position.getLongitude() <= bounds.getLonEast()) {
+                        result.add(marker);
+                    }
+                }
+                return result;
+            }
+        });
+        return queries;
+    }
+
+    private void assertShown(List<TestMarkerView> markers, int from, int to) {
+        for (int i = 0; i < markers.size(); i++) {
+            if (i >= from && i < to) {
+                assertNotNull("Marker " + i + " should have a view", mManager.getView(markers.get(i)));
+            } else {
+                assertNull("Marker " + i + " should not have a view", mManager.getView(markers.get(i)));
+            }
+        }
+    }
+
+    private static List<TestMarkerView> createMarkersAlongEquator(int count) {
+        List<TestMarkerView> markers = createMarkers(count);
+        for (int i = 0; i < count; i++) {
+            markers.get(i).setPosition(new LatLng(0, i));
+        }
+        return markers;
+    }
+
+    private static List<TestMarkerView> createMarkers(int count) {
+        List<TestMarkerView> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestMarkerView marker = new TestMarkerView();
+            marker.setId(i);
+            markers.add(marker);
+        }
+        return markers;
+    }
+
+    private static class TestMarkerView extends MarkerView {
+
+        TestMarkerView() {
+            super(new MarkerViewOptions());
+        }
+    }
+
+    private static class TestCanvasMarkerView extends MarkerView {
+
+        TestCanvasMarkerView() {
+            super(new MarkerViewOptions());
+        }
+    }
+
+    private static class TestCanvasMarkerViewAdapter extends MapboxMap.CanvasMarkerViewAdapter<TestCanvasMarkerView> {
+
+        private final Bitmap bitmap;
+
+        TestCanvasMarkerViewAdapter(Context context, Bitmap bitmap) {
+            super(context);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        public Bitmap getBitmap(@NonNull TestCanvasMarkerView marker) {
+            return bitmap;
+        }
+    }
+
+    private static class TestMarkerViewAdapter extends MapboxMap.MarkerViewAdapter<TestMarkerView> {
+
+        private final Context context;
+        private int createdViewCount;
+        private int boundViewCount;
+        private int releasedViewCount;
+
+        TestMarkerViewAdapter(Context context) {
+            super(context);
+            this.context = context;
+        }
+
+        TestMarkerViewAdapter(Context context, int poolSize) {
+            super(context, poolSize);
+            this.context = context;
+        }
+
+        @Override
+        public View getView(@NonNull TestMarkerView marker, View convertView, @NonNull ViewGroup parent) {
+            boundViewCount++;
+            if (convertView == null) {
+                convertView = createView(parent);
+            }
+            return convertView;
+        }
+
+        @Override
+        public boolean prepareViewForReuse(@NonNull MarkerView marker, @NonNull View convertView) {
+            releasedViewCount++;
+            return true;
+        }
+
+        @Override
+        public View createView(@NonNull ViewGroup parent) {
+            createdViewCount++;
+            return new View(context);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -60,6 +61,45 @@ public class PolylineTest {
         assertEquals(new LatLng(0, 0), polyline.getPoints().get(0));
     }
 
+    @Test
+    public void testAddAllCoordinates() {
+        Polyline polyline = new PolylineOptions().addAll(new double[]{1, 2, 3, 4}).getPolyline();
+        assertEquals("Point count should be 2", 2, polyline.getPointCount());
+        assertEquals(new LatLng(3, 4), polyline.getPoint(1));
+        assertArrayEquals(new double[]{1, 2, 3, 4}, polyline.getCoordinates(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddAllOddCoordinates() {
+        new PolylineOptions().addAll(new double[]{1, 2, 3});
+    }
+
+    @Test
+    public void testManyPoints() {
+        PolylineOptions polylineOptions = new PolylineOptions();
+        for (int i = 0; i < 1000; i++) {
+            polylineOptions.add(new LatLng(i * 0.01, i * 0.02));
+        }
+        Polyline polyline = polylineOptions.getPolyline();
+        assertEquals("Point count should be 1000", 1000, polyline.getPointCount());
+        assertEquals("Coordinates should be packed", 2000, polyline.getCoordinates().length);
+        assertEquals(new LatLng(999 * 0.01, 999 * 0.02), polyline.getPoints().get(999));
+    }
+
+    @Test
+    public void testPointsView() {
+        PolylineOptions polylineOptions = new PolylineOptions().add(new LatLng(0, 0));
+        List<LatLng> points = polylineOptions.getPolyline().getPointsView();
+        polylineOptions.add(new LatLng(1, 1));
+        assertEquals("View should reflect added points", 2, points.size());
+        assertEquals(new LatLng(1, 1), points.get(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPointsViewReadOnly() {
+        new PolylineOptions().add(new LatLng(0, 0)).getPolyline().getPointsView().add(new LatLng(1, 1));
+    }
+
     @Test
     public void testBuilder() {
         PolylineOptions polylineOptions = new PolylineOptions();
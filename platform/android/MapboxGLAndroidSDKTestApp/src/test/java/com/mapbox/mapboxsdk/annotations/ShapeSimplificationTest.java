@@ -0,0 +1,132 @@
+package com.mapbox.mapboxsdk.annotations;
+
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShapeSimplificationTest {
+
+    @Test
+    public void testStraightLine() {
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new LatLng(0, i * 0.01));
+        }
+
+        ShapeSimplification simplification = new ShapeSimplification(pack(points), points.size());
+        List<LatLng> simplified = unpack(simplification.getCoordinates(pack(points), simplification.getBand(0)));
+        assertEquals("Straight line should be simplified to its end points",
+                Arrays.asList(points.get(0), points.get(100)), simplified);
+    }
+
+    @Test
+    public void testKeepsSignificantPoint() {
+        List<LatLng> points = Arrays.asList(
+                new LatLng(0, 0), new LatLng(0, 0.0001), new LatLng(1, 0.0002), new LatLng(0, 0.0003),
+                new LatLng(0, 0.0004));
+
+        ShapeSimplification simplification = new ShapeSimplification(pack(points), points.size());
+        List<LatLng> simplified = unpack(simplification.getCoordinates(pack(points), simplification.getBand(0)));
+        assertEquals("Peak should be kept", Arrays.asList(points.get(0), points.get(2), points.get(4)), simplified);
+    }
+
+    @Test
+    public void testSignificanceIsNested() {
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(new LatLng(Math.sin(i * 0.1) * (i % 7), i * 0.01));
+        }
+
+        float[] significance = ShapeSimplification.computeSignificance(pack(points), points.size());
+        assertEquals("First point should always be kept", Float.POSITIVE_INFINITY, significance[0], 0);
+        assertEquals("Last point should always be kept", Float.POSITIVE_INFINITY, significance[999], 0);
+
+        ShapeSimplification simplification = new ShapeSimplification(pack(points), points.size());
+        int previousCount = 0;
+        for (int band = 0; band < simplification.getFullGeometryBand(); band++) {
+            int count = simplification.getCoordinates(pack(points), band).length / 2;
+            assertTrue("Detail should increase with zoom", count >= previousCount);
+            previousCount = count;
+        }
+    }
+
+    @Test
+    public void testHighZoomUsesFullGeometry() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(1, 1), new LatLng(0, 2));
+        double[] coordinates = pack(points);
+        ShapeSimplification simplification = new ShapeSimplification(coordinates, points.size());
+        int band = simplification.getBand(ShapeSimplification.MAX_SIMPLIFIED_ZOOM + 2);
+        assertSame("Full geometry should be used", coordinates, simplification.getCoordinates(coordinates, band));
+    }
+
+    @Test
+    public void testClosedRing() {
+        List<LatLng> points = Arrays.asList(
+                new LatLng(0, 0), new LatLng(0, 10), new LatLng(10, 10), new LatLng(10, 0), new LatLng(0, 0));
+
+        ShapeSimplification simplification = new ShapeSimplification(pack(points), points.size());
+        List<LatLng> simplified = unpack(simplification.getCoordinates(pack(points), simplification.getBand(0)));
+        assertTrue("Ring should keep at least three points", simplified.size() >= 3);
+        assertEquals("Ring should stay closed", simplified.get(0), simplified.get(simplified.size() - 1));
+    }
+
+    @Test
+    public void testPolylineOptionsSimplify() {
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new LatLng(0, i * 0.01));
+        }
+
+        Polyline polyline = new PolylineOptions().addAll(points).simplify(true).getPolyline();
+        assertTrue("Polyline should be simplified", polyline.isSimplified());
+        assertTrue("Render points should change", polyline.setRenderZoom(0));
+        assertEquals("Render points should be simplified", 2, polyline.getRenderPointCount());
+        assertFalse("Same zoom band should not change", polyline.setRenderZoom(1));
+        assertEquals("Points should not be simplified", 101, polyline.getPoints().size());
+    }
+
+    @Test
+    public void testOptionsEqualityIncludesSimplify() {
+        List<LatLng> points = Arrays.asList(new LatLng(0, 0), new LatLng(0, 1), new LatLng(1, 1));
+        PolylineOptions polyline = new PolylineOptions().addAll(points);
+        PolylineOptions simplifiedPolyline = new PolylineOptions().addAll(points).simplify(true);
+        assertNotEquals("Simplified polyline options should differ", polyline, simplifiedPolyline);
+        assertNotEquals("Simplified polyline options should hash differently",
+                polyline.hashCode(), simplifiedPolyline.hashCode());
+        assertEquals("Equal polyline options", simplifiedPolyline, new PolylineOptions().addAll(points).simplify(true));
+
+        PolygonOptions polygon = new PolygonOptions().addAll(points);
+        PolygonOptions simplifiedPolygon = new PolygonOptions().addAll(points).simplify(true);
+        assertNotEquals("Simplified polygon options should differ", polygon, simplifiedPolygon);
+        assertNotEquals("Simplified polygon options should hash differently",
+                polygon.hashCode(), simplifiedPolygon.hashCode());
+        assertEquals("Equal polygon options", simplifiedPolygon, new PolygonOptions().addAll(points).simplify(true));
+    }
+
+    private static double[] pack(List<LatLng> points) {
+        double[] coordinates = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            coordinates[i * 2] = points.get(i).getLatitude();
+            coordinates[i * 2 + 1] = points.get(i).getLongitude();
+        }
+        return coordinates;
+    }
+
+    private static List<LatLng> unpack(double[] coordinates) {
+        List<LatLng> points = new ArrayList<>(coordinates.length / 2);
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(new LatLng(coordinates[i], coordinates[i + 1]));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,193 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AnnotationBatchTest {
+
+    private MapboxMap mMapboxMap;
+    private MapView mMapView;
+
+    @Before
+    public void beforeTest() {
+        mMapView = mock(MapView.class);
+        mMapboxMap = new MapboxMap(mMapView);
+    }
+
+    @Test
+    public void testAddMarkers() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        Marker marker1 = batch.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        Marker marker2 = batch.addMarker(new MarkerOptions().position(new LatLng(2, 2)));
+        assertTrue("Markers should not be added before commit", mMapboxMap.getMarkers().isEmpty());
+
+        batch.commit();
+        verify(mMapView, times(1)).addMarkers(anyListOf(Marker.class));
+        verify(mMapView, never()).addMarker(any(Marker.class));
+        assertEquals("Markers size should be 2", 2, mMapboxMap.getMarkers().size());
+        assertNotEquals("Marker should have an id", -1, marker1.getId());
+        assertNotEquals("Marker should have an id", -1, marker2.getId());
+    }
+
+    @Test
+    public void testCancelledMarkerIconsReleased() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        Marker added = batch.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        Marker cancelled = batch.addMarker(new MarkerOptions().position(new LatLng(2, 2)));
+        batch.removeAnnotation(cancelled);
+        verify(mMapView, never()).releaseUnusedIcons(anyListOf(Marker.class));
+
+        // released after the additions, so icons shared with added markers stay loaded
+        batch.commit();
+        InOrder inOrder = inOrder(mMapView);
+        inOrder.verify(mMapView).addMarkers(Collections.singletonList(added));
+        inOrder.verify(mMapView).releaseUnusedIcons(Collections.singletonList(cancelled));
+    }
+
+    @Test
+    public void testAbortReleasesIcons() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        Marker marker = batch.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        batch.abort();
+        verify(mMapView, times(1)).releaseUnusedIcons(Collections.singletonList(marker));
+    }
+
+    @Test
+    public void testAddPolyline() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        Polyline polyline = batch.addPolyline(new PolylineOptions().add(new LatLng(1, 1), new LatLng(2, 2)));
+        batch.commit();
+        assertTrue("Polyline should be contained", mMapboxMap.getPolylines().contains(polyline));
+    }
+
+    @Test
+    public void testRemoveAddedMarkerCancelsAddition() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        Marker marker = batch.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        batch.removeAnnotation(marker);
+        batch.commit();
+        verify(mMapView, never()).addMarkers(anyListOf(Marker.class));
+        assertTrue("Markers should be empty", mMapboxMap.getMarkers().isEmpty());
+    }
+
+    @Test
+    public void testUpdatesAreCoalesced() {
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        marker.setPosition(new LatLng(2, 2));
+        marker.setPosition(new LatLng(3, 3));
+        verify(mMapView, never()).updateMarker(marker);
+
+        batch.commit();
+        verify(mMapView, times(1)).updateMarkers(anyListOf(Marker.class));
+        verify(mMapView, never()).updateMarker(marker);
+    }
+
+    @Test
+    public void testRemoveDropsPendingUpdate() {
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        marker.setPosition(new LatLng(2, 2));
+        batch.removeAnnotation(marker);
+        batch.commit();
+        verify(mMapView, never()).updateMarkers(anyListOf(Marker.class));
+        verify(mMapView, times(1)).removeAnnotations(any(long[].class));
+        assertTrue("Markers should be empty", mMapboxMap.getMarkers().isEmpty());
+    }
+
+    @Test
+    public void testUpdateAfterCommitIsApplied() {
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        mMapboxMap.beginBatch().commit();
+        marker.setPosition(new LatLng(2, 2));
+        verify(mMapView, times(1)).updateMarker(marker);
+    }
+
+    @Test
+    public void testRemovedAnnotationsInSingleCall() {
+        List<Marker> markers = mMapboxMap.addMarkers(new double[]{1, 2}, new double[]{1, 2}, null);
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        batch.removeAnnotation(markers.get(0));
+        batch.removeAnnotation(markers.get(1));
+        batch.commit();
+        verify(mMapView, times(1)).removeAnnotations(any(long[].class));
+        verify(mMapView, never()).removeAnnotation(anyLong());
+        assertTrue("Batch should be committed", batch.isCommitted());
+        assertTrue("Markers should be empty", mMapboxMap.getMarkers().isEmpty());
+    }
+
+    @Test
+    public void testAbort() {
+        Marker marker = mMapboxMap.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        batch.addMarker(new MarkerOptions().position(new LatLng(2, 2)));
+        batch.removeAnnotation(marker);
+        marker.setPosition(new LatLng(3, 3));
+        batch.abort();
+        verify(mMapView, never()).addMarkers(anyListOf(Marker.class));
+        verify(mMapView, never()).removeAnnotations(any(long[].class));
+        verify(mMapView, times(1)).updateMarkers(anyListOf(Marker.class));
+        assertTrue("Batch should be aborted", batch.isAborted());
+        assertEquals("Markers size should be 1", 1, mMapboxMap.getMarkers().size());
+
+        marker.setPosition(new LatLng(4, 4));
+        verify(mMapView, times(1)).updateMarker(marker);
+        mMapboxMap.beginBatch().commit();
+    }
+
+    @Test
+    public void testAbortAfterCommit() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        try {
+            batch.addMarker(new MarkerOptions().position(new LatLng(1, 1)));
+            batch.commit();
+        } finally {
+            batch.abort();
+        }
+        assertFalse("Committed batch should not be aborted", batch.isAborted());
+        assertEquals("Markers size should be 1", 1, mMapboxMap.getMarkers().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitAfterAbort() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        batch.abort();
+        batch.commit();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBeginBatchTwice() {
+        mMapboxMap.beginBatch();
+        mMapboxMap.beginBatch();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitTwice() {
+        AnnotationBatch batch = mMapboxMap.beginBatch();
+        batch.commit();
+        batch.commit();
+    }
+}
@@ -0,0 +1,186 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IconRegistryTest {
+
+    @Mock
+    Bitmap mBitmap;
+
+    @Mock
+    Bitmap mOtherBitmap;
+
+    private IconRegistry mIconRegistry;
+
+    @Before
+    public void beforeTest() {
+        MockitoAnnotations.initMocks(this);
+        mIconRegistry = new IconRegistry();
+    }
+
+    @Test
+    public void testRegister() {
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        assertTrue("New icon should be uploaded", mIconRegistry.register(icon));
+        assertFalse("Known icon should not be uploaded again", mIconRegistry.register(icon));
+        assertTrue("Icon should be contained", mIconRegistry.contains("icon"));
+        assertEquals("Icon should not be referenced", 0, mIconRegistry.getReferenceCount("icon"));
+    }
+
+    @Test
+    public void testRegisterChangedBitmap() {
+        mIconRegistry.register(IconFactory.recreate("icon", mBitmap));
+        assertTrue("Icon with a different bitmap should be uploaded",
+                mIconRegistry.register(IconFactory.recreate("icon", mOtherBitmap)));
+        assertEquals("Icons size should be 1", 1, mIconRegistry.size());
+    }
+
+    @Test
+    public void testRetainRelease() {
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        mIconRegistry.register(icon);
+        assertNull(mIconRegistry.retain(1, icon));
+        assertNull(mIconRegistry.retain(2, icon));
+        assertEquals("Icon should be referenced twice", 2, mIconRegistry.getReferenceCount("icon"));
+
+        assertNull("Icon is still referenced", mIconRegistry.release(1));
+        assertEquals("Icon should be unused", "icon", mIconRegistry.release(2));
+        assertFalse("Icon should be evicted", mIconRegistry.contains("icon"));
+        assertNull("Unknown marker should not release an icon", mIconRegistry.release(2));
+    }
+
+    @Test
+    public void testRetainSameIconTwice() {
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        mIconRegistry.register(icon);
+        mIconRegistry.retain(1, icon);
+        assertNull(mIconRegistry.retain(1, icon));
+        assertEquals("Icon should be referenced once", 1, mIconRegistry.getReferenceCount("icon"));
+    }
+
+    @Test
+    public void testSwitchIcon() {
+        Icon icon1 = IconFactory.recreate("icon1", mBitmap);
+        Icon icon2 = IconFactory.recreate("icon2", mBitmap);
+        mIconRegistry.register(icon1);
+        mIconRegistry.register(icon2);
+        mIconRegistry.retain(1, icon1);
+        mIconRegistry.retain(2, icon1);
+
+        assertNull("Previous icon is still referenced", mIconRegistry.retain(1, icon2));
+        assertEquals("Previous icon should be unused", "icon1", mIconRegistry.retain(2, icon2));
+        assertEquals("Icon should be referenced twice", 2, mIconRegistry.getReferenceCount("icon2"));
+        assertEquals("Icons size should be 1", 1, mIconRegistry.size());
+    }
+
+    @Test
+    public void testRotatingIconsStayBounded() {
+        int markerCount = 100;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < markerCount; i++) {
+                Icon icon = IconFactory.recreate("icon" + round + "_" + i, mBitmap);
+                mIconRegistry.register(icon);
+                mIconRegistry.retain(i, icon);
+            }
+            assertEquals("Only icons in use should be registered", markerCount, mIconRegistry.size());
+        }
+
+        for (int i = 0; i < markerCount; i++) {
+            mIconRegistry.release(i);
+        }
+        assertEquals("Icons should be empty", 0, mIconRegistry.size());
+        assertTrue("Icons should be empty", mIconRegistry.getIcons().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRetainEvictedIcon() {
+        // an evicted icon is no longer uploaded, so it must be registered again before use
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        mIconRegistry.register(icon);
+        mIconRegistry.retain(1, icon);
+        mIconRegistry.release(1);
+        mIconRegistry.retain(2, icon);
+    }
+
+    @Test
+    public void testRemoveUnreferenced() {
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        assertFalse("Unknown icon should not be removed", mIconRegistry.removeUnreferenced("icon"));
+        mIconRegistry.register(icon);
+        mIconRegistry.retain(1, icon);
+        assertFalse("Referenced icon should not be removed", mIconRegistry.removeUnreferenced("icon"));
+
+        mIconRegistry.register(IconFactory.recreate("unused", mBitmap));
+        assertTrue("Unused icon should be removed", mIconRegistry.removeUnreferenced("unused"));
+        assertFalse("Unused icon should be removed", mIconRegistry.contains("unused"));
+        assertEquals("Icons size should be 1", 1, mIconRegistry.size());
+    }
+
+    @Test
+    public void testTopOffsetCache() {
+        Icon icon = IconFactory.recreate("icon", mBitmap);
+        assertNull("Unknown icon should not have an offset", mIconRegistry.getTopOffsetPixels("icon"));
+        mIconRegistry.setTopOffsetPixels("icon", -20);
+        assertNull("Unknown icon should not be cached", mIconRegistry.getTopOffsetPixels("icon"));
+
+        mIconRegistry.register(icon);
+        mIconRegistry.setTopOffsetPixels("icon", -20);
+        assertEquals("Offset should be cached", Integer.valueOf(-20), mIconRegistry.getTopOffsetPixels("icon"));
+        assertFalse(mIconRegistry.register(icon));
+        assertEquals("Same icon should keep its offset", Integer.valueOf(-20), mIconRegistry.getTopOffsetPixels("icon"));
+
+        mIconRegistry.register(IconFactory.recreate("icon", mOtherBitmap));
+        assertNull("Changed icon should drop its offset", mIconRegistry.getTopOffsetPixels("icon"));
+
+        mIconRegistry.setTopOffsetPixels("icon", -30);
+        mIconRegistry.invalidateTopOffsets();
+        assertNull("Reload should drop the offsets", mIconRegistry.getTopOffsetPixels("icon"));
+    }
+
+    @Test
+    public void testTopOffsetQueries() {
+        int iconCount = 10;
+        int markerCount = 10000;
+        Icon[] icons = new Icon[iconCount];
+        for (int i = 0; i < iconCount; i++) {
+            icons[i] = IconFactory.recreate("icon" + i, mBitmap);
+            mIconRegistry.register(icons[i]);
+        }
+
+        // mirrors MapView#getTopOffsetPixelsForIcon, counting the queries that would go to core
+        int nativeCalls = 0;
+        for (int i = 0; i < markerCount; i++) {
+            String iconId = icons[i % iconCount].getId();
+            if (mIconRegistry.getTopOffsetPixels(iconId) == null) {
+                nativeCalls++;
+                mIconRegistry.setTopOffsetPixels(iconId, -i);
+            }
+        }
+        assertEquals("Core should be queried once per icon instead of " + markerCount + " times",
+                iconCount, nativeCalls);
+
+        mIconRegistry.invalidateTopOffsets();
+        nativeCalls = 0;
+        for (int i = 0; i < markerCount; i++) {
+            String iconId = icons[i % iconCount].getId();
+            if (mIconRegistry.getTopOffsetPixels(iconId) == null) {
+                nativeCalls++;
+                mIconRegistry.setTopOffsetPixels(iconId, -i);
+            }
+        }
+        assertEquals("Core should be queried once per icon after a reload", iconCount, nativeCalls);
+    }
+}
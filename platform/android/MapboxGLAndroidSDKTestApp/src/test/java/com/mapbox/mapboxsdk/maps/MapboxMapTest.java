@@ -1,10 +1,13 @@
 package com.mapbox.mapboxsdk.maps;
 
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.Point;
 import android.graphics.PointF;
 
 import com.mapbox.mapboxsdk.annotations.BaseMarkerOptions;
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
 import com.mapbox.mapboxsdk.annotations.Marker;
 import com.mapbox.mapboxsdk.annotations.MarkerOptions;
 import com.mapbox.mapboxsdk.annotations.Polygon;
@@ -23,13 +26,18 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -597,6 +605,116 @@ public class MapboxMapTest {
         assertEquals("Markers size should be 0", 0, mMapboxMap.getMarkers().size());
     }
 
+    @Test
+    public void testAddMarkersFromArrays() {
+        double[] latitudes = {1, 2, 3};
+        double[] longitudes = {4, 5, 6};
+        List<Marker> markers = mMapboxMap.addMarkers(latitudes, longitudes, null);
+        assertEquals("Markers size should be 3", 3, mMapboxMap.getMarkers().size());
+        assertEquals("Marker position should match", new LatLng(2, 5), markers.get(1).getPosition());
+        verify(mMapView, times(1)).addMarkers(markers);
+        verify(mMapView, times(1)).loadIconForMarker(any(Marker.class));
+    }
+
+    @Test
+    public void testAddMarkersFromArraysSharesIcons() {
+        Icon first = IconFactory.recreate("first", mock(Bitmap.class));
+        Icon second = IconFactory.recreate("second", mock(Bitmap.class));
+        when(mMapView.getTopOffsetPixelsForIcon(first)).thenReturn(-10);
+        when(mMapView.getTopOffsetPixelsForIcon(second)).thenReturn(-20);
+        double[] coordinates = {1, 2, 3, 4};
+        List<Marker> markers = mMapboxMap.addMarkers(coordinates, coordinates,
+                new Icon[]{first, second, first, second});
+        verify(mMapView, times(2)).loadIconForMarker(any(Marker.class));
+        verify(mMapView, times(1)).getTopOffsetPixelsForIcon(first);
+        assertSame("Marker should keep its icon", first, markers.get(2).getIcon());
+        assertEquals("Top offset should be reused", -10, markers.get(2).getTopOffsetPixels());
+        assertEquals("Top offset should be reused", -20, markers.get(3).getTopOffsetPixels());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddMarkersFromArraysLengthMismatch() {
+        mMapboxMap.addMarkers(new double[]{1, 2}, new double[]{1}, null);
+    }
+
+    @Test
+    public void testUpdateMarkers() {
+        // 5k moving markers are updated with a single call into the map view
+        int count = 5000;
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = (i % 100) - 50;
+            longitudes[i] = (i / 100) - 25;
+        }
+        List<Marker> markers = mMapboxMap.addMarkers(latitudes, longitudes, null);
+
+        for (Marker marker : markers) {
+            LatLng position = marker.getPosition();
+            marker.setPosition(new LatLng(position.getLatitude() + 0.1, position.getLongitude() + 0.1));
+        }
+        verify(mMapView, times(count)).updateMarker(any(Marker.class));
+
+        mMapboxMap.updateMarkers(markers);
+        verify(mMapView, times(1)).updateMarkers(markers);
+        verify(mMapView, times(count)).updateMarker(any(Marker.class));
+
+        LatLngBounds bounds = new LatLngBounds.Builder()
+                .include(new LatLng(-50, -25))
+                .include(new LatLng(-49.95, -24.95))
+                .build();
+        assertTrue("Index should not contain moved marker", mMapboxMap.getMarkersInBounds(bounds).isEmpty());
+    }
+
+    @Test
+    public void testUpdateMarkersSkipsRemovedMarkers() {
+        List<Marker> markers = mMapboxMap.addMarkers(new double[]{1, 2, 3}, new double[]{1, 2, 3}, null);
+        Marker removed = markers.get(1);
+        mMapboxMap.removeAnnotation(removed);
+        mMapboxMap.updateMarkers(markers);
+        verify(mMapView, times(1)).updateMarkers(Arrays.asList(markers.get(0), markers.get(2)));
+
+        mMapboxMap.updateMarkers(Collections.singletonList(removed));
+        verify(mMapView, times(1)).updateMarkers(anyListOf(Marker.class));
+    }
+
+    @Test
+    public void testAddSimplifiedPolyline() {
+        when(mMapView.getZoom()).thenReturn(4.0);
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().addAll(createTrack(10000)).simplify(true));
+        assertTrue("Polyline should be simplified at zoom 4", polyline.getRenderPointCount() < 10000);
+
+        mMapboxMap.updateSimplifiedShapes();
+        verify(mMapView, times(0)).updatePolylines(anyListOf(Polyline.class));
+
+        when(mMapView.getZoom()).thenReturn(20.0);
+        mMapboxMap.updateSimplifiedShapes();
+        verify(mMapView, times(1)).updatePolylines(anyListOf(Polyline.class));
+        assertEquals("Polyline should not be simplified at zoom 20", 10000, polyline.getRenderPointCount());
+
+        mMapboxMap.removeAnnotation(polyline);
+        when(mMapView.getZoom()).thenReturn(4.0);
+        mMapboxMap.updateSimplifiedShapes();
+        verify(mMapView, times(1)).updatePolylines(anyListOf(Polyline.class));
+    }
+
+    private static double[] createTrack(int count) {
+        // random walk of roughly 5 meter steps, as latitude and longitude pairs
+        Random random = new Random(count);
+        double[] track = new double[count * 2];
+        double latitude = 52.0;
+        double longitude = 4.0;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.5;
+            latitude += Math.cos(heading) * 0.00005;
+            longitude += Math.sin(heading) * 0.00005;
+            track[i * 2] = latitude;
+            track[i * 2 + 1] = longitude;
+        }
+        return track;
+    }
+
     @Test
     public void testAddMarkersSingleMarker() {
         List<BaseMarkerOptions> markerList = new ArrayList<>();
@@ -723,6 +841,36 @@ public class MapboxMapTest {
         assertTrue("Polylines should be empty", mMapboxMap.getPolylines().isEmpty());
     }
 
+    @Test
+    public void testShapeClickListeners() {
+        when(mMapView.addPolyline(any(Polyline.class))).thenReturn(1L);
+        when(mMapView.addPolygon(any(Polygon.class))).thenReturn(2L);
+        Polyline polyline = mMapboxMap.addPolyline(new PolylineOptions().add(new LatLng(0, 0), new LatLng(0, 1)));
+        Polygon polygon = mMapboxMap.addPolygon(new PolygonOptions().add(
+                new LatLng(1, 0), new LatLng(1, 1), new LatLng(2, 1), new LatLng(2, 0)));
+
+        MapboxMap.OnPolylineClickListener polylineListener = mock(MapboxMap.OnPolylineClickListener.class);
+        MapboxMap.OnPolygonClickListener polygonListener = mock(MapboxMap.OnPolygonClickListener.class);
+        assertFalse("Shapes should not be tested without listeners", mMapboxMap.hasShapeClickListener());
+        mMapboxMap.setOnPolylineClickListener(polylineListener);
+        mMapboxMap.setOnPolygonClickListener(polygonListener);
+        assertTrue("Shapes should be tested with listeners", mMapboxMap.hasShapeClickListener());
+
+        assertTrue("Polyline should be clicked", mMapboxMap.onShapeClick(new LatLng(0.001, 0.5), 10));
+        verify(polylineListener, times(1)).onPolylineClick(polyline);
+        assertTrue("Polygon should be clicked", mMapboxMap.onShapeClick(new LatLng(1.5, 0.5), 10));
+        verify(polygonListener, times(1)).onPolygonClick(polygon);
+        assertFalse("Tap away from the shapes should not be handled", mMapboxMap.onShapeClick(new LatLng(-1, 0.5), 10));
+
+        mMapboxMap.removeAnnotation(polygon);
+        assertFalse("Removed polygon should not be clicked", mMapboxMap.onShapeClick(new LatLng(1.5, 0.5), 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShapeClickToleranceNegative() {
+        mMapboxMap.setShapeClickTolerance(-1);
+    }
+
     @Test
     public void testRemoveAnnotation() {
         MarkerOptions markerOptions = new MarkerOptions();
@@ -806,6 +954,27 @@ public class MapboxMapTest {
         assertNotNull("Polylines should be non null", mMapboxMap.getPolylines());
     }
 
+    @Test
+    public void testGetMarkersInBounds() {
+        List<BaseMarkerOptions> markerList = new ArrayList<>();
+        MarkerOptions markerOptions1 = new MarkerOptions().position(new LatLng(5, 5));
+        MarkerOptions markerOptions2 = new MarkerOptions().position(new LatLng(50, 50));
+        markerList.add(markerOptions1);
+        markerList.add(markerOptions2);
+        List<Marker> markers = mMapboxMap.addMarkers(markerList);
+        LatLngBounds bounds = new LatLngBounds.Builder()
+                .include(new LatLng(0, 0))
+                .include(new LatLng(10, 10))
+                .build();
+
+        List<Marker> markersInBounds = mMapboxMap.getMarkersInBounds(bounds);
+        assertEquals("Markers in bounds size should be 1", 1, markersInBounds.size());
+        assertTrue("Marker should be contained", markersInBounds.contains(markers.get(0)));
+
+        mMapboxMap.removeMarker(markers.get(0));
+        assertTrue("Markers in bounds should be empty", mMapboxMap.getMarkersInBounds(bounds).isEmpty());
+    }
+
     @Test
     public void testGetSelectedMarkers() {
         assertNotNull("Selected markers should be non null", mMapboxMap.getSelectedMarkers());
@@ -846,6 +1015,79 @@ public class MapboxMapTest {
         assertTrue("Selected markers should be empty", mMapboxMap.getSelectedMarkers().isEmpty());
     }
 
+    @Test
+    public void testSelectMarkersConcurrent() {
+        mMapboxMap.setAllowConcurrentMultipleOpenInfoWindows(true);
+        mMapboxMap.setOnMarkerClickListener(mOnMarkerClickListener);
+        List<Marker> markers = createSelectableMarkers(3);
+        mMapboxMap.selectMarker(markers.get(2));
+        mMapboxMap.selectMarkers(markers);
+        verify(mOnMarkerClickListener, times(1)).onMarkerClick(markers.get(2));
+        verify(mOnMarkerClickListener, times(1)).onMarkerClick(markers.get(0));
+        assertEquals("Selection should keep the selection order",
+                Arrays.asList(markers.get(2), markers.get(0), markers.get(1)), mMapboxMap.getSelectedMarkers());
+        assertTrue("Marker should be selected", mMapboxMap.isMarkerSelected(markers.get(1)));
+
+        mMapboxMap.deselectMarkers(markers.subList(0, 2));
+        assertEquals("Only the last marker should stay selected",
+                Collections.singletonList(markers.get(2)), mMapboxMap.getSelectedMarkers());
+        assertFalse("Marker should be deselected", mMapboxMap.isMarkerSelected(markers.get(1)));
+    }
+
+    @Test
+    public void testSelectMarkersSingle() {
+        List<Marker> markers = createSelectableMarkers(3);
+        mMapboxMap.selectMarkers(markers);
+        assertEquals("Only the last marker should be selected",
+                Collections.singletonList(markers.get(2)), mMapboxMap.getSelectedMarkers());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSelectedMarkersReadOnly() {
+        mMapboxMap.getSelectedMarkers().add(new MarkerOptions().getMarker());
+    }
+
+    @Test
+    public void testSelectManyMarkers() {
+        mMapboxMap.setAllowConcurrentMultipleOpenInfoWindows(true);
+        mMapboxMap.setOnMarkerClickListener(mOnMarkerClickListener);
+        int count = 10000;
+        List<Marker> markers = createSelectableMarkers(count);
+        for (int i = 0; i < count; i += 2) {
+            mMapboxMap.selectMarker(markers.get(i));
+        }
+        mMapboxMap.selectMarkers(markers);
+        verify(mOnMarkerClickListener, times(count)).onMarkerClick(any(Marker.class));
+        assertEquals("Markers should be selected once", count, mMapboxMap.getSelectedMarkers().size());
+        assertEquals("Markers selected one by one should come first",
+                markers.get(count - 2), mMapboxMap.getSelectedMarkers().get(count / 2 - 1));
+        assertEquals("Markers selected in bulk should follow in order",
+                markers.get(1), mMapboxMap.getSelectedMarkers().get(count / 2));
+
+        List<Marker> odd = new ArrayList<>(count / 2);
+        for (int i = 1; i < count; i += 2) {
+            odd.add(markers.get(i));
+        }
+        mMapboxMap.deselectMarkers(odd);
+        assertEquals("Only markers selected one by one should stay selected",
+                count / 2, mMapboxMap.getSelectedMarkers().size());
+        assertTrue("Even marker should stay selected", mMapboxMap.isMarkerSelected(markers.get(count - 2)));
+        assertFalse("Odd marker should be deselected", mMapboxMap.isMarkerSelected(markers.get(count - 1)));
+
+        mMapboxMap.deselectMarkers(markers);
+        assertTrue("Markers should be deselected", mMapboxMap.getSelectedMarkers().isEmpty());
+    }
+
+    private static List<Marker> createSelectableMarkers(int count) {
+        List<Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Marker marker = new MarkerOptions().getMarker();
+            marker.setId(i);
+            markers.add(marker);
+        }
+        return markers;
+    }
+
     //
     // OnMarkerClick interface
     //
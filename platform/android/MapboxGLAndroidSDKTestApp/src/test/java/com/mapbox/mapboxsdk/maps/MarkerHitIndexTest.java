@@ -0,0 +1,142 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MarkerHitIndexTest {
+
+    @Test
+    public void testTopmostMarker() {
+        Icon icon = createIcon(20, 40);
+        Marker below = createMarker(1, icon);
+        Marker above = createMarker(2, icon);
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        index.build(Arrays.asList(above, below), new float[]{100, 100, 105, 100}, null, 1.0f, 500, 500, 0);
+        assertSame("Topmost marker should be tapped", above, index.hitTest(102, 100, 0, 0, null));
+        assertSame("Only the marker below covers the location", below, index.hitTest(114, 100, 0, 0, null));
+        assertSame("Selected marker should be skipped", below,
+                index.hitTest(102, 100, 0, 0, Collections.singletonList(above)));
+    }
+
+    @Test
+    public void testIconBounds() {
+        Marker marker = createMarker(1, createIcon(20, 40));
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        index.build(Collections.singletonList(marker), new float[]{100, 100}, null, 2.0f, 500, 500, 0);
+        assertSame("Icon should be scaled with the screen density", marker, index.hitTest(119, 139, 0, 0, null));
+        assertNull("Location outside the icon should not hit", index.hitTest(121, 100, 0, 0, null));
+        assertSame("Margin should extend the icon", marker, index.hitTest(121, 100, 2, 0, null));
+        assertNull("Vertical margin should not extend the sides", index.hitTest(121, 100, 0, 10, null));
+    }
+
+    @Test
+    public void testMarkerAcrossCells() {
+        Marker marker = createMarker(1, createIcon(100, 100));
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        index.build(Collections.singletonList(marker), new float[]{64, 64}, null, 1.0f, 500, 500, 0);
+        assertSame("Icon should be found from any cell it covers", marker, index.hitTest(20, 20, 0, 0, null));
+        assertSame("Icon should be found from any cell it covers", marker, index.hitTest(110, 110, 0, 0, null));
+    }
+
+    @Test
+    public void testValidity() {
+        MarkerHitIndex index = new MarkerHitIndex();
+        assertFalse("Index should not be valid before it's built", index.isValid(0));
+        index.build(new ArrayList<Marker>(), new float[0], null, 1.0f, 500, 500, 3);
+        assertTrue("Index should be valid", index.isValid(3));
+        assertFalse("Index should be rebuilt when markers changed", index.isValid(4));
+        index.invalidate();
+        assertFalse("Index should be rebuilt when the camera changed", index.isValid(3));
+        assertNull("Empty index should not hit", index.hitTest(0, 0, 10, 10, null));
+    }
+
+    @Test
+    public void testDefaultMarkerAnchor() {
+        Icon defaultIcon = createIcon(20, 40);
+        Marker marker = createMarker(1, defaultIcon);
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        index.build(Collections.singletonList(marker), new float[]{100, 100}, defaultIcon, 1.0f, 500, 500, 0);
+        assertSame("Pin above the location should hit", marker, index.hitTest(100, 81, 0, 0, null));
+        assertSame("Tip of the pin should hit", marker, index.hitTest(100, 100, 0, 0, null));
+        assertNull("Transparent half below the location should not hit", index.hitTest(100, 110, 0, 0, null));
+        assertSame("Margin should extend below the tip", marker, index.hitTest(100, 110, 0, 10, null));
+    }
+
+    @Test
+    public void testHitTestMatchesLinearScan() {
+        int count = 20000;
+        int width = 1080;
+        int height = 1920;
+        Random random = new Random(42);
+        Icon icon = createIcon(32, 48);
+        Icon defaultIcon = createIcon(32, 64);
+        List<Marker> markers = new ArrayList<>(count);
+        float[] screenPoints = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            markers.add(createMarker(count - i, i % 2 == 0 ? icon : defaultIcon));
+            screenPoints[i * 2] = random.nextFloat() * width;
+            screenPoints[i * 2 + 1] = random.nextFloat() * height;
+        }
+
+        MarkerHitIndex index = new MarkerHitIndex();
+        index.build(markers, screenPoints, defaultIcon, 1.0f, width, height, 0);
+        assertEquals("Markers should be indexed", count, index.size());
+
+        for (int i = 0; i < 1000; i++) {
+            float x = random.nextFloat() * width;
+            float y = random.nextFloat() * height;
+            Marker expected = null;
+            for (int j = 0; j < count; j++) {
+                float dx = Math.abs(x - screenPoints[j * 2]);
+                float dy = y - screenPoints[j * 2 + 1];
+                // icons are centered, the default marker is anchored at its bottom center
+                boolean hit = j % 2 == 0
+                        ? dx <= 16 + 4 && Math.abs(dy) <= 24 + 10
+                        : dx <= 16 + 4 && dy >= -32 - 10 && dy <= 10;
+                if (hit) {
+                    expected = markers.get(j);
+                    break;
+                }
+            }
+            assertSame("Index should match a linear scan", expected, index.hitTest(x, y, 4, 10, null));
+        }
+    }
+
+    private static Marker createMarker(long id, Icon icon) {
+        Marker marker = new MarkerOptions().position(new LatLng()).icon(icon).getMarker();
+        marker.setId(id);
+        return marker;
+    }
+
+    private static Icon createIcon(int width, int height) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getWidth()).thenReturn(width);
+        when(bitmap.getHeight()).thenReturn(height);
+        return IconFactory.recreate("icon" + width + "x" + height, bitmap);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mapbox.mapboxsdk.maps;
+
+import android.graphics.Bitmap;
+
+import com.mapbox.mapboxsdk.annotations.Icon;
+import com.mapbox.mapboxsdk.annotations.IconFactory;
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MarkerPreparationTest {
+
+    @Test
+    public void testIconsAreDeduplicated() {
+        Icon icon = createIcon("icon", 20, 40);
+        Icon defaultIcon = createIcon("default", 10, 10);
+        List<MarkerOptions> markerOptionsList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            MarkerOptions markerOptions = new MarkerOptions().position(new LatLng(i * 0.1, i * 0.1));
+            if (i % 2 == 0) {
+                markerOptions.icon(icon);
+            }
+            markerOptionsList.add(markerOptions);
+        }
+
+        MarkerPreparation preparation = MarkerPreparation.prepare(markerOptionsList, defaultIcon, 2.0f);
+        assertEquals("Markers should be prepared", 100, preparation.getMarkers().size());
+        assertEquals("Icons should be prepared once", 2, preparation.getIcons().size());
+
+        MarkerPreparation.PreparedIcon preparedIcon = preparation.getIcons().get(0);
+        assertSame("Marker icon should be prepared", icon, preparedIcon.getIcon());
+        assertFalse("Marker icon should not be the default icon", preparedIcon.isDefaultIcon());
+        assertEquals("Pixels should be copied", 20 * 40 * 4, preparedIcon.getPixels().capacity());
+        assertTrue("Default icon should be prepared", preparation.getIcons().get(1).isDefaultIcon());
+    }
+
+    @Test
+    public void testTopOffsetPixels() {
+        Icon icon = createIcon("icon", 20, 40);
+        Icon defaultIcon = createIcon("default", 10, 10);
+        List<MarkerOptions> markerOptionsList = new ArrayList<>();
+        markerOptionsList.add(new MarkerOptions().position(new LatLng()).icon(icon));
+        markerOptionsList.add(new MarkerOptions().position(new LatLng()));
+
+        List<Marker> markers = MarkerPreparation.prepare(markerOptionsList, defaultIcon, 2.0f).getMarkers();
+        assertEquals("Top offset should be half the icon height", -40, markers.get(0).getTopOffsetPixels());
+        assertSame("Default icon should be set", defaultIcon, markers.get(1).getIcon());
+        assertEquals("Top offset should be half the default icon height", -10, markers.get(1).getTopOffsetPixels());
+    }
+
+    private static Icon createIcon(String id, int width, int height) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getConfig()).thenReturn(Bitmap.Config.ARGB_8888);
+        when(bitmap.getWidth()).thenReturn(width);
+        when(bitmap.getHeight()).thenReturn(height);
+        when(bitmap.getRowBytes()).thenReturn(width * 4);
+        return IconFactory.recreate(id, bitmap);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Marker;
+import com.mapbox.mapboxsdk.annotations.MarkerOptions;
+import com.mapbox.mapboxsdk.annotations.MarkerView;
+import com.mapbox.mapboxsdk.annotations.MarkerViewOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+import com.mapbox.mapboxsdk.geometry.LatLngBounds;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MarkerSpatialIndexTest {
+
+    private MarkerSpatialIndex mIndex;
+
+    @Before
+    public void beforeTest() {
+        mIndex = new MarkerSpatialIndex();
+    }
+
+    @Test
+    public void testQueryEmpty() {
+        assertTrue("Query should be empty", mIndex.query(bounds(-10, -10, 10, 10)).isEmpty());
+    }
+
+    @Test
+    public void testQuery() {
+        Marker inside = marker(1, 5, 5);
+        Marker outside = marker(2, 20, 20);
+        mIndex.put(inside);
+        mIndex.put(outside);
+
+        List<Marker> markers = mIndex.query(bounds(-10, -10, 10, 10));
+        assertEquals("One marker should be returned", 1, markers.size());
+        assertTrue("Marker should be contained", markers.contains(inside));
+    }
+
+    @Test
+    public void testRemove() {
+        Marker marker = marker(1, 5, 5);
+        mIndex.put(marker);
+        mIndex.remove(marker.getId());
+        assertEquals("Index should be empty", 0, mIndex.size());
+        assertTrue("Query should be empty", mIndex.query(bounds(-10, -10, 10, 10)).isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        mIndex.put(marker(1, 5, 5));
+        mIndex.put(marker(2, 6, 6));
+        mIndex.clear();
+        assertEquals("Index should be empty", 0, mIndex.size());
+        assertTrue("Query should be empty", mIndex.query(bounds(-10, -10, 10, 10)).isEmpty());
+    }
+
+    @Test
+    public void testPutSameIdReplaces() {
+        Marker first = marker(1, 5, 5);
+        Marker second = marker(1, 50, 50);
+        mIndex.put(first);
+        mIndex.put(second);
+        assertEquals("Index should contain one marker", 1, mIndex.size());
+        assertTrue("Old position should be empty", mIndex.query(bounds(-10, -10, 10, 10)).isEmpty());
+        assertTrue("Marker should be contained", mIndex.query(bounds(40, 40, 60, 60)).contains(second));
+    }
+
+    @Test
+    public void testMovedMarker() {
+        Marker marker = marker(1, 5, 5);
+        mIndex.put(marker);
+        marker.setPosition(new LatLng(-30, -30));
+        mIndex.put(marker);
+        assertFalse("Old position should be empty", mIndex.query(bounds(-10, -10, 10, 10)).contains(marker));
+        assertTrue("Marker should be contained", mIndex.query(bounds(-40, -40, -20, -20)).contains(marker));
+    }
+
+    @Test
+    public void testMarkerWithoutPosition() {
+        Marker marker = new MarkerOptions().getMarker();
+        marker.setId(1);
+        mIndex.put(marker);
+        assertEquals("Marker without position should not be indexed", 0, mIndex.size());
+    }
+
+    @Test
+    public void testQueryAcrossAntimeridian() {
+        Marker east = marker(1, 0, 179);
+        Marker west = marker(2, 0, -179);
+        Marker center = marker(3, 0, 0);
+        mIndex.put(east);
+        mIndex.put(west);
+        mIndex.put(center);
+
+        List<Marker> markers = mIndex.query(bounds(-10, 170, 10, 190));
+        assertEquals("Two markers should be returned", 2, markers.size());
+        assertTrue("East marker should be contained", markers.contains(east));
+        assertTrue("West marker should be contained", markers.contains(west));
+    }
+
+    @Test
+    public void testQueryLargeDataSet() {
+        int count = 10000;
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            double lat = (i % 100) - 50;
+            double lon = (i / 100) * 3.0 - 150;
+            mIndex.put(marker(i, lat, lon));
+            if (lat >= 0 && lat <= 10 && lon >= 0 && lon <= 30) {
+                expected++;
+            }
+        }
+
+        assertEquals("All markers should be indexed", count, mIndex.size());
+        assertEquals("Query should match brute force", expected, mIndex.query(bounds(0, 0, 10, 30)).size());
+        assertEquals("Query should return all markers", count, mIndex.query(bounds(-90, -180, 90, 180)).size());
+
+        for (int i = 0; i < count; i += 2) {
+            mIndex.remove(i);
+        }
+        assertEquals("Half of the markers should be removed", count / 2, mIndex.query(bounds(-90, -180, 90, 180)).size());
+    }
+
+    @Test
+    public void testQueryMarkerViews() {
+        Marker marker = marker(1, 5, 5);
+        MarkerView markerView = new MarkerViewOptions().position(new LatLng(6, 6)).getMarker();
+        markerView.setId(2);
+        mIndex.put(marker);
+        mIndex.put(markerView);
+
+        List<MarkerView> markerViews = mIndex.query(bounds(-10, -10, 10, 10), MarkerView.class);
+        assertEquals("One marker view should be returned", 1, markerViews.size());
+        assertTrue("Marker view should be contained", markerViews.contains(markerView));
+        assertEquals("Both markers should be returned", 2, mIndex.query(bounds(-10, -10, 10, 10)).size());
+    }
+
+    @Test
+    public void testQueryMarkerViewsLargeDataSet() {
+        // regression: all 10k marker views used to be returned regardless of the viewport
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            MarkerView markerView = new MarkerViewOptions()
+                    .position(new LatLng((i % 100) * 1.5 - 75, (i / 100) * 3.5 - 175))
+                    .getMarker();
+            markerView.setId(i);
+            mIndex.put(markerView);
+        }
+
+        LatLngBounds viewport = bounds(40, 2, 42, 5);
+        List<MarkerView> markerViews = mIndex.query(viewport, MarkerView.class);
+
+        assertEquals("Only the marker views within the viewport should be returned", 2, markerViews.size());
+        for (MarkerView markerView : markerViews) {
+            assertTrue("Marker view should be within the viewport", viewport.contains(markerView.getPosition()));
+        }
+    }
+
+    private static Marker marker(long id, double lat, double lon) {
+        Marker marker = new MarkerOptions().position(new LatLng(lat, lon)).getMarker();
+        marker.setId(id);
+        return marker;
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds.Builder()
+                .include(new LatLng(south, west))
+                .include(new LatLng(north, east))
+                .build();
+    }
+}
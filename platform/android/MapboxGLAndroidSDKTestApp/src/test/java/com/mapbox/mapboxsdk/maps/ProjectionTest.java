@@ -7,6 +7,8 @@ import org.mockito.MockitoAnnotations;
 
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class ProjectionTest {
 
@@ -23,4 +25,19 @@ public class ProjectionTest {
         Projection projection = new Projection(mMapView);
         assertNotNull("projection should not be null", projection);
     }
+
+    @Test
+    public void testToScreenLocations() {
+        Projection projection = new Projection(mMapView);
+        double[] latLngs = new double[]{10, 20, 30, 40};
+        float[] screenLocations = new float[4];
+        projection.toScreenLocations(latLngs, screenLocations);
+        verify(mMapView, times(1)).toScreenLocations(latLngs, screenLocations, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToScreenLocationsTooShort() {
+        Projection projection = new Projection(mMapView);
+        projection.toScreenLocations(new double[]{10, 20, 30, 40}, new float[2]);
+    }
 }
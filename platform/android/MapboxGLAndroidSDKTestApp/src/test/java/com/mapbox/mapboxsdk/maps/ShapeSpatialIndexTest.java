@@ -0,0 +1,114 @@
+package com.mapbox.mapboxsdk.maps;
+
+import com.mapbox.mapboxsdk.annotations.Polygon;
+import com.mapbox.mapboxsdk.annotations.PolygonOptions;
+import com.mapbox.mapboxsdk.annotations.Polyline;
+import com.mapbox.mapboxsdk.annotations.PolylineOptions;
+import com.mapbox.mapboxsdk.geometry.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ShapeSpatialIndexTest {
+
+    // pixel size at zoom level 10, a degree is about 1456 pixels wide
+    private static final double UNITS_PER_PIXEL = 1 / (512 * Math.pow(2, 10));
+
+    private ShapeSpatialIndex mIndex;
+
+    @Before
+    public void beforeTest() {
+        mIndex = new ShapeSpatialIndex();
+    }
+
+    @Test
+    public void testPolylineHit() {
+        Polyline polyline = new PolylineOptions().add(new LatLng(0, 0), new LatLng(0, 1)).width(10).getPolyline();
+        mIndex.put(1, polyline);
+        assertSame("Tap near the polyline should hit", polyline, mIndex.queryPolyline(0.001, 0.5, 10, UNITS_PER_PIXEL));
+        assertSame("Width should extend the polyline", polyline, mIndex.queryPolyline(0.01, 0.5, 10, UNITS_PER_PIXEL));
+        assertNull("Tap far from the polyline should miss", mIndex.queryPolyline(0.05, 0.5, 10, UNITS_PER_PIXEL));
+        assertNull("Tap past the end should miss", mIndex.queryPolyline(0, 1.05, 10, UNITS_PER_PIXEL));
+        assertNull("Polylines should not be returned as polygons", mIndex.queryPolygon(0, 0.5, 10, UNITS_PER_PIXEL));
+    }
+
+    @Test
+    public void testTopmostPolyline() {
+        Polyline below = new PolylineOptions().add(new LatLng(0, 0), new LatLng(0, 1)).getPolyline();
+        Polyline above = new PolylineOptions().add(new LatLng(0, 0.5), new LatLng(1, 0.5)).getPolyline();
+        mIndex.put(1, below);
+        mIndex.put(2, above);
+        assertSame("Last added polyline should be on top", above, mIndex.queryPolyline(0, 0.5, 10, UNITS_PER_PIXEL));
+        assertSame("Only the polyline below is near", below, mIndex.queryPolyline(0, 0.2, 10, UNITS_PER_PIXEL));
+    }
+
+    @Test
+    public void testPolygonHit() {
+        // concave polygon with a notch from the north
+        Polygon polygon = new PolygonOptions().add(
+                new LatLng(0, 0), new LatLng(0, 3), new LatLng(3, 3), new LatLng(3, 2),
+                new LatLng(1, 2), new LatLng(1, 1), new LatLng(3, 1), new LatLng(3, 0)).getPolygon();
+        mIndex.put(1, polygon);
+        assertSame("Tap inside should hit", polygon, mIndex.queryPolygon(0.5, 1.5, 10, UNITS_PER_PIXEL));
+        assertSame("Tap inside an arm should hit", polygon, mIndex.queryPolygon(2, 0.5, 10, UNITS_PER_PIXEL));
+        assertNull("Tap in the notch should miss", mIndex.queryPolygon(2, 1.5, 10, UNITS_PER_PIXEL));
+        assertNull("Tap outside should miss", mIndex.queryPolygon(-1, 1.5, 10, UNITS_PER_PIXEL));
+        assertSame("Tap near an edge should hit", polygon, mIndex.queryPolygon(-0.001, 1.5, 10, UNITS_PER_PIXEL));
+    }
+
+    @Test
+    public void testRemove() {
+        Polyline polyline = new PolylineOptions().add(new LatLng(0, 0), new LatLng(0, 1)).getPolyline();
+        Polygon polygon = new PolygonOptions().add(new LatLng(0, 0), new LatLng(0, 1), new LatLng(1, 1)).getPolygon();
+        mIndex.put(1, polyline);
+        mIndex.put(2, polygon);
+        mIndex.remove(1);
+        assertNull("Removed polyline should miss", mIndex.queryPolyline(0, 0.5, 10, UNITS_PER_PIXEL));
+        assertSame("Polygon should still hit", polygon, mIndex.queryPolygon(0.2, 0.5, 10, UNITS_PER_PIXEL));
+        assertEquals("Index should hold the polygon", 1, mIndex.size());
+        mIndex.clear();
+        assertNull("Cleared polygon should miss", mIndex.queryPolygon(0.2, 0.5, 10, UNITS_PER_PIXEL));
+    }
+
+    @Test
+    public void testQueryRoutes() {
+        int routeCount = 5000;
+        int pointCount = 100;
+        Random random = new Random(42);
+        Polyline[] routes = new Polyline[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            routes[i] = createRoute(random, pointCount);
+            mIndex.put(i, routes[i]);
+        }
+        assertEquals("Routes should be indexed", routeCount, mIndex.size());
+
+        for (int i = 0; i < 1000; i++) {
+            // taps on a point of a route
+            Polyline route = routes[random.nextInt(routeCount)];
+            LatLng point = route.getPoint(random.nextInt(pointCount));
+            assertNotNull("Taps on routes should hit",
+                    mIndex.queryPolyline(point.getLatitude(), point.getLongitude(), 10, UNITS_PER_PIXEL));
+        }
+    }
+
+    private static Polyline createRoute(Random random, int pointCount) {
+        // random walk of roughly 1 kilometer steps, as latitude and longitude pairs
+        double latitude = random.nextDouble() * 120 - 60;
+        double longitude = random.nextDouble() * 340 - 170;
+        double[] coordinates = new double[pointCount * 2];
+        for (int j = 0; j < pointCount; j++) {
+            coordinates[j * 2] = latitude;
+            coordinates[j * 2 + 1] = longitude;
+            latitude += random.nextDouble() * 0.02 - 0.01;
+            longitude += random.nextDouble() * 0.02 - 0.01;
+        }
+        return new PolylineOptions().addAll(coordinates).getPolyline();
+    }
+}
@@ -1,6 +1,7 @@
 #include <cstdint>
 #include <cinttypes>
 #include <cassert>
+#include <cstring>
 #include <string>
 #include <array>
 #include <vector>
@@ -67,13 +68,17 @@ jni::jclass* polylineClass = nullptr;
 jni::jfieldID* polylineAlphaId = nullptr;
 jni::jfieldID* polylineColorId = nullptr;
 jni::jfieldID* polylineWidthId = nullptr;
-jni::jfieldID* polylinePointsId = nullptr;
+jni::jfieldID* polylineCoordinatesId = nullptr;
+jni::jfieldID* polylinePointCountId = nullptr;
+jni::jfieldID* polylineIdId = nullptr;
 
 jni::jclass* polygonClass = nullptr;
 jni::jfieldID* polygonAlphaId = nullptr;
 jni::jfieldID* polygonFillColorId = nullptr;
 jni::jfieldID* polygonStrokeColorId = nullptr;
-jni::jfieldID* polygonPointsId = nullptr;
+jni::jfieldID* polygonCoordinatesId = nullptr;
+jni::jfieldID* polygonPointCountId = nullptr;
+jni::jfieldID* polygonIdId = nullptr;
 
 jni::jmethodID* listToArrayId = nullptr;
 
@@ -248,6 +253,21 @@ jni::jarray<jlong>* std_vector_uint_to_jobject(JNIEnv *env, std::vector<uint32_t
     return &jarray;
 }
 
+static std::vector<std::string> std_vector_string_from_jarray(JNIEnv *env, jni::jarray<jni::jobject>* jarray) {
+    NullCheck(*env, jarray);
+    std::size_t len = jni::GetArrayLength(*env, *jarray);
+
+    std::vector<std::string> vector;
+    vector.reserve(len);
+    for (std::size_t i = 0; i < len; i++) {
+        jni::jstring* jstr = reinterpret_cast<jni::jstring*>(jni::GetObjectArrayElement(*env, *jarray, i));
+        vector.push_back(std_string_from_jstring(env, jstr));
+        jni::DeleteLocalRef(*env, jstr);
+    }
+
+    return vector;
+}
+
 static std::vector<uint8_t> metadata_from_java(JNIEnv* env, jni::jarray<jbyte>& j) {
     mbgl::Log::Debug(mbgl::Event::JNI, "metadata_from_java");
     std::size_t length = jni::GetArrayLength(*env, j);
@@ -672,35 +692,84 @@ void nativeUpdateMarker(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
     nativeMapView->getMap().updateAnnotation(markerId, mbgl::SymbolAnnotation { mbgl::Point<double>(lon, lat), iconId });
 }
 
-jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+static void updateMarkers(JNIEnv *env, NativeMapView *nativeMapView, jni::jarray<jlong>* jids,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds, bool reinstall) {
+    NullCheck(*env, jids);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jiconIndices);
+    std::size_t len = jni::GetArrayLength(*env, *jids);
+    assert(jni::GetArrayLength(*env, *jlatLngs) == len * 2);
+    assert(jni::GetArrayLength(*env, *jiconIndices) == len);
+
+    std::vector<std::string> iconIds = std_vector_string_from_jarray(env, jiconIds);
+
+    auto idElements = jni::GetArrayElements(*env, *jids);
+    jlong* ids = std::get<0>(idElements).get();
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    auto iconIndexElements = jni::GetArrayElements(*env, *jiconIndices);
+    jint* iconIndices = std::get<0>(iconIndexElements).get();
+
+    for (std::size_t i = 0; i < len; i++) {
+        if (ids[i] == -1) {
+            continue;
+        }
+        if (reinstall) {
+            // Updating an unknown id adds the annotation under that id
+            nativeMapView->getMap().removeAnnotation(ids[i]);
+        }
+        assert(std::size_t(iconIndices[i]) < iconIds.size());
+        nativeMapView->getMap().updateAnnotation(ids[i], mbgl::SymbolAnnotation {
+            mbgl::Point<double>(latLngs[i * 2 + 1], latLngs[i * 2]),
+            iconIds[iconIndices[i]]
+        });
+    }
+}
+
+void nativeUpdateMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jids,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdateMarkers");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+    updateMarkers(env, nativeMapView, jids, jlatLngs, jiconIndices, jiconIds, false);
+}
+
+void nativeReinstallMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jids,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeReinstallMarkers");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+    updateMarkers(env, nativeMapView, jids, jlatLngs, jiconIndices, jiconIds, true);
+}
+
+jni::jarray<jlong>* nativeAddMarkers(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jint>* jiconIndices, jni::jarray<jni::jobject>* jiconIds) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddMarkers");
     assert(nativeMapViewPtr != 0);
     NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
 
-    NullCheck(*env, jarray);
-    std::size_t len = jni::GetArrayLength(*env, *jarray);
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jiconIndices);
+    std::size_t len = jni::GetArrayLength(*env, *jiconIndices);
+    assert(jni::GetArrayLength(*env, *jlatLngs) == len * 2);
+
+    // Icon ids are deduplicated on the Java side, resolve each of them once
+    std::vector<std::string> iconIds = std_vector_string_from_jarray(env, jiconIds);
+
+    auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+    jdouble* latLngs = std::get<0>(latLngElements).get();
+    auto iconIndexElements = jni::GetArrayElements(*env, *jiconIndices);
+    jint* iconIndices = std::get<0>(iconIndexElements).get();
 
     std::vector<mbgl::AnnotationID> ids;
     ids.reserve(len);
 
     for (std::size_t i = 0; i < len; i++) {
-        jni::jobject* marker = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* position = jni::GetField<jni::jobject*>(*env, marker, *markerPositionId);
-        jni::jobject* icon = jni::GetField<jni::jobject*>(*env, marker, *markerIconId);
-        jni::jstring* jid = reinterpret_cast<jni::jstring*>(jni::GetField<jni::jobject*>(*env, icon, *iconIdId));
-
-        jdouble latitude = jni::GetField<jdouble>(*env, position, *latLngLatitudeId);
-        jdouble longitude = jni::GetField<jdouble>(*env, position, *latLngLongitudeId);
-
+        assert(std::size_t(iconIndices[i]) < iconIds.size());
         ids.push_back(nativeMapView->getMap().addAnnotation(mbgl::SymbolAnnotation {
-            mbgl::Point<double>(longitude, latitude),
-            std_string_from_jstring(env, jid)
+            mbgl::Point<double>(latLngs[i * 2 + 1], latLngs[i * 2]),
+            iconIds[iconIndices[i]]
         }));
-
-        jni::DeleteLocalRef(*env, position);
-        jni::DeleteLocalRef(*env, jid);
-        jni::DeleteLocalRef(*env, icon);
-        jni::DeleteLocalRef(*env, marker);
     }
 
     return std_vector_uint_to_jobject(env, ids);
@@ -715,32 +784,51 @@ static mbgl::Color toColor(jint color) {
 }
 
 template <class Geometry>
-Geometry toGeometry(JNIEnv *env, jni::jobject* jlist) {
-    NullCheck(*env, jlist);
-    jni::jarray<jni::jobject>* jarray =
-        reinterpret_cast<jni::jarray<jni::jobject>*>(jni::CallMethod<jni::jobject*>(*env, jlist, *listToArrayId));
-    NullCheck(*env, jarray);
-
-    std::size_t size = jni::GetArrayLength(*env, *jarray);
+Geometry toGeometry(JNIEnv *env, jni::jarray<jdouble>* jcoordinates, jint count) {
+    NullCheck(*env, jcoordinates);
+    if (count < 0 || jni::GetArrayLength(*env, *jcoordinates) < std::size_t(count) * 2) {
+        throw std::runtime_error("Coordinate count out of range");
+    }
 
     Geometry geometry;
-    geometry.reserve(size);
+    geometry.reserve(count);
+
+    {
+        // Coordinates are interleaved latitude and longitude pairs
+        auto elements = jni::GetArrayElements(*env, *jcoordinates);
+        jdouble* coordinates = std::get<0>(elements).get();
+        for (jint i = 0; i < count; i++) {
+            geometry.push_back(mbgl::Point<double>(coordinates[i * 2 + 1], coordinates[i * 2]));
+        }
+    }
 
-    for (std::size_t i = 0; i < size; i++) {
-        jni::jobject* latLng = reinterpret_cast<jni::jobject*>(jni::GetObjectArrayElement(*env, *jarray, i));
-        NullCheck(*env, latLng);
+    jni::DeleteLocalRef(*env, jcoordinates);
 
-        geometry.push_back(mbgl::Point<double>(
-            jni::GetField<jdouble>(*env, latLng, *latLngLongitudeId),
-            jni::GetField<jdouble>(*env, latLng, *latLngLatitudeId)));
+    return geometry;
+}
 
-        jni::DeleteLocalRef(*env, latLng);
-    }
+static mbgl::LineAnnotation line_annotation_from_java(JNIEnv *env, jni::jobject* polyline) {
+    jni::jarray<jdouble>* coordinates = reinterpret_cast<jni::jarray<jdouble>*>(
+        jni::GetField<jni::jobject*>(*env, polyline, *polylineCoordinatesId));
+    jint count = jni::GetField<jint>(*env, polyline, *polylinePointCountId);
+
+    mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, coordinates, count) };
+    annotation.opacity = jni::GetField<jfloat>(*env, polyline, *polylineAlphaId);
+    annotation.color = toColor(jni::GetField<jint>(*env, polyline, *polylineColorId));
+    annotation.width = jni::GetField<jfloat>(*env, polyline, *polylineWidthId);
+    return annotation;
+}
 
-    jni::DeleteLocalRef(*env, jarray);
-    jni::DeleteLocalRef(*env, jlist);
+static mbgl::FillAnnotation fill_annotation_from_java(JNIEnv *env, jni::jobject* polygon) {
+    jni::jarray<jdouble>* coordinates = reinterpret_cast<jni::jarray<jdouble>*>(
+        jni::GetField<jni::jobject*>(*env, polygon, *polygonCoordinatesId));
+    jint count = jni::GetField<jint>(*env, polygon, *polygonPointCountId);
 
-    return geometry;
+    mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, coordinates, count) } };
+    annotation.opacity = jni::GetField<jfloat>(*env, polygon, *polygonAlphaId);
+    annotation.outlineColor = toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId));
+    annotation.color = toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId));
+    return annotation;
 }
 
 jni::jarray<jlong>* nativeAddPolylines(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
@@ -756,13 +844,7 @@ jni::jarray<jlong>* nativeAddPolylines(JNIEnv *env, jni::jobject* obj, jlong nat
 
     for (std::size_t i = 0; i < len; i++) {
         jni::jobject* polyline = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polyline, *polylinePointsId);
-
-        mbgl::LineAnnotation annotation { toGeometry<mbgl::LineString<double>>(env, points) };
-        annotation.opacity = jni::GetField<jfloat>(*env, polyline, *polylineAlphaId);
-        annotation.color = toColor(jni::GetField<jint>(*env, polyline, *polylineColorId));
-        annotation.width = jni::GetField<jfloat>(*env, polyline, *polylineWidthId);
-        ids.push_back(nativeMapView->getMap().addAnnotation(annotation));
+        ids.push_back(nativeMapView->getMap().addAnnotation(line_annotation_from_java(env, polyline)));
 
         jni::DeleteLocalRef(*env, polyline);
     }
@@ -783,13 +865,7 @@ jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nati
 
     for (std::size_t i = 0; i < len; i++) {
         jni::jobject* polygon = jni::GetObjectArrayElement(*env, *jarray, i);
-        jni::jobject* points = jni::GetField<jni::jobject*>(*env, polygon, *polygonPointsId);
-
-        mbgl::FillAnnotation annotation { mbgl::Polygon<double> { toGeometry<mbgl::LinearRing<double>>(env, points) } };
-        annotation.opacity = jni::GetField<jfloat>(*env, polygon, *polygonAlphaId);
-        annotation.outlineColor = toColor(jni::GetField<jint>(*env, polygon, *polygonStrokeColorId));
-        annotation.color = toColor(jni::GetField<jint>(*env, polygon, *polygonFillColorId));
-        ids.push_back(nativeMapView->getMap().addAnnotation(annotation));
+        ids.push_back(nativeMapView->getMap().addAnnotation(fill_annotation_from_java(env, polygon)));
 
         jni::DeleteLocalRef(*env, polygon);
     }
@@ -797,6 +873,44 @@ jni::jarray<jlong>* nativeAddPolygons(JNIEnv *env, jni::jobject* obj, jlong nati
     return std_vector_uint_to_jobject(env, ids);
 }
 
+void nativeUpdatePolylines(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdatePolylines");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jarray);
+    std::size_t len = jni::GetArrayLength(*env, *jarray);
+
+    for (std::size_t i = 0; i < len; i++) {
+        jni::jobject* polyline = jni::GetObjectArrayElement(*env, *jarray, i);
+        jlong id = jni::GetField<jlong>(*env, polyline, *polylineIdId);
+        if (id != -1) {
+            nativeMapView->getMap().updateAnnotation(id, line_annotation_from_java(env, polyline));
+        }
+
+        jni::DeleteLocalRef(*env, polyline);
+    }
+}
+
+void nativeUpdatePolygons(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jni::jobject>* jarray) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeUpdatePolygons");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jarray);
+    std::size_t len = jni::GetArrayLength(*env, *jarray);
+
+    for (std::size_t i = 0; i < len; i++) {
+        jni::jobject* polygon = jni::GetObjectArrayElement(*env, *jarray, i);
+        jlong id = jni::GetField<jlong>(*env, polygon, *polygonIdId);
+        if (id != -1) {
+            nativeMapView->getMap().updateAnnotation(id, fill_annotation_from_java(env, polygon));
+        }
+
+        jni::DeleteLocalRef(*env, polygon);
+    }
+}
+
 void nativeRemoveAnnotations(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jarray<jlong>* jarray) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeRemoveAnnotations");
     assert(nativeMapViewPtr != 0);
@@ -857,6 +971,107 @@ void nativeAddAnnotationIcon(JNIEnv *env, jni::jobject* obj, jlong nativeMapView
     nativeMapView->getMap().addAnnotationIcon(symbolName, iconImage);
 }
 
+void nativeAddAnnotationIconBuffer(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
+        jni::jstring* symbol, jint width, jint height, jint rowBytes, jfloat scale, jni::jobject* jbuffer) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddAnnotationIconBuffer");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    const std::string symbolName = std_string_from_jstring(env, symbol);
+
+    NullCheck(*env, jbuffer);
+    const uint8_t* pixels = reinterpret_cast<const uint8_t*>(env->GetDirectBufferAddress(jni::Unwrap(jbuffer)));
+    jlong capacity = env->GetDirectBufferCapacity(jni::Unwrap(jbuffer));
+    mbgl::PremultipliedImage premultipliedImage(width, height);
+
+    // The buffer is pooled on the Java side and may be larger than the image, and the rows of
+    // the bitmap may be padded, so the image is read with its row stride
+    std::size_t rowSize = std::size_t(width) * 4;
+    if (pixels == nullptr || width < 0 || height < 0 || jlong(rowBytes) < jlong(rowSize)
+            || capacity < jlong(rowBytes) * height) {
+        throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
+    }
+
+    if (std::size_t(rowBytes) == rowSize) {
+        std::memcpy(premultipliedImage.data.get(), pixels, premultipliedImage.size());
+    } else {
+        for (jint row = 0; row < height; row++) {
+            std::memcpy(premultipliedImage.data.get() + row * rowSize,
+                        pixels + std::size_t(row) * rowBytes,
+                        rowSize);
+        }
+    }
+
+    auto iconImage = std::make_shared<mbgl::SpriteImage>(
+        std::move(premultipliedImage),
+        float(scale));
+
+    nativeMapView->getMap().addAnnotationIcon(symbolName, iconImage);
+}
+
+void nativeAddAnnotationIcons(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
+        jni::jarray<jni::jobject>* jsymbols, jni::jarray<jint>* jrects, jni::jarray<jfloat>* jscales,
+        jint atlasWidth, jint atlasHeight, jni::jobject* jbuffer) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeAddAnnotationIcons");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    std::vector<std::string> symbolNames = std_vector_string_from_jarray(env, jsymbols);
+    std::size_t len = symbolNames.size();
+
+    NullCheck(*env, jrects);
+    NullCheck(*env, jscales);
+    if (jni::GetArrayLength(*env, *jrects) != len * 4 || jni::GetArrayLength(*env, *jscales) != len) {
+        throw mbgl::util::SpriteImageException("Sprite atlas metadata mismatch");
+    }
+
+    NullCheck(*env, jbuffer);
+    const uint8_t* pixels = reinterpret_cast<const uint8_t*>(env->GetDirectBufferAddress(jni::Unwrap(jbuffer)));
+    jlong capacity = env->GetDirectBufferCapacity(jni::Unwrap(jbuffer));
+    if (pixels == nullptr || capacity < jlong(atlasWidth) * atlasHeight * 4) {
+        throw mbgl::util::SpriteImageException("Sprite image pixel count mismatch");
+    }
+
+    auto rectElements = jni::GetArrayElements(*env, *jrects);
+    jint* rects = std::get<0>(rectElements).get();
+    auto scaleElements = jni::GetArrayElements(*env, *jscales);
+    jfloat* scales = std::get<0>(scaleElements).get();
+
+    for (std::size_t i = 0; i < len; i++) {
+        jint x = rects[i * 4];
+        jint y = rects[i * 4 + 1];
+        jint width = rects[i * 4 + 2];
+        jint height = rects[i * 4 + 3];
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > atlasWidth || y + height > atlasHeight) {
+            throw mbgl::util::SpriteImageException("Sprite image outside of the atlas");
+        }
+
+        // Copy the sub-rectangle row by row, the atlas is tightly packed
+        mbgl::PremultipliedImage premultipliedImage(width, height);
+        std::size_t rowSize = std::size_t(width) * 4;
+        for (jint row = 0; row < height; row++) {
+            std::memcpy(premultipliedImage.data.get() + row * rowSize,
+                        pixels + (std::size_t(y + row) * atlasWidth + x) * 4,
+                        rowSize);
+        }
+
+        auto iconImage = std::make_shared<mbgl::SpriteImage>(
+            std::move(premultipliedImage),
+            float(scales[i]));
+
+        nativeMapView->getMap().addAnnotationIcon(symbolNames[i], iconImage);
+    }
+}
+
+void nativeRemoveAnnotationIcon(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jstring* symbol) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativeRemoveAnnotationIcon");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    const std::string symbolName = std_string_from_jstring(env, symbol);
+    nativeMapView->getMap().removeAnnotationIcon(symbolName);
+}
+
 void nativeSetVisibleCoordinateBounds(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
         jni::jarray<jni::jobject>* coordinates, jni::jobject* padding, jdouble direction, jlong duration) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeSetVisibleCoordinateBounds");
@@ -988,6 +1203,36 @@ jni::jobject* nativePixelForLatLng(JNIEnv *env, jni::jobject* obj, jlong nativeM
     return &jni::NewObject(*env, *pointFClass, *pointFConstructorId, static_cast<jfloat>(pixel.x), static_cast<jfloat>(pixel.y));
 }
 
+void nativePixelsForLatLngs(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr,
+        jni::jarray<jdouble>* jlatLngs, jni::jarray<jfloat>* jpixels, jint count) {
+    mbgl::Log::Debug(mbgl::Event::JNI, "nativePixelsForLatLngs");
+    assert(nativeMapViewPtr != 0);
+    NativeMapView *nativeMapView = reinterpret_cast<NativeMapView *>(nativeMapViewPtr);
+
+    NullCheck(*env, jlatLngs);
+    NullCheck(*env, jpixels);
+    if (count < 0 || jni::GetArrayLength(*env, *jlatLngs) < std::size_t(count) * 2
+            || jni::GetArrayLength(*env, *jpixels) < std::size_t(count) * 2) {
+        throw std::runtime_error("Coordinate count out of range");
+    }
+
+    std::vector<jfloat> pixels;
+    pixels.reserve(count * 2);
+
+    {
+        // Coordinates are interleaved latitude and longitude pairs
+        auto latLngElements = jni::GetArrayElements(*env, *jlatLngs);
+        jdouble* latLngs = std::get<0>(latLngElements).get();
+        for (jint i = 0; i < count; i++) {
+            mbgl::ScreenCoordinate pixel = nativeMapView->getMap().pixelForLatLng(mbgl::LatLng(latLngs[i * 2], latLngs[i * 2 + 1]));
+            pixels.push_back(static_cast<jfloat>(pixel.x));
+            pixels.push_back(static_cast<jfloat>(pixel.y));
+        }
+    }
+
+    jni::SetArrayRegion(*env, *jpixels, 0, pixels);
+}
+
 jni::jobject* nativeLatLngForPixel(JNIEnv *env, jni::jobject* obj, jlong nativeMapViewPtr, jni::jobject* pixel) {
     mbgl::Log::Debug(mbgl::Event::JNI, "nativeLatLngForPixel");
     assert(nativeMapViewPtr != 0);
@@ -1601,14 +1846,18 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
     polylineAlphaId = &jni::GetFieldID(env, *polylineClass, "alpha", "F");
     polylineColorId = &jni::GetFieldID(env, *polylineClass, "color", "I");
     polylineWidthId = &jni::GetFieldID(env, *polylineClass, "width", "F");
-    polylinePointsId = &jni::GetFieldID(env, *polylineClass, "points", "Ljava/util/List;");
+    polylineCoordinatesId = &jni::GetFieldID(env, *polylineClass, "renderCoordinates", "[D");
+    polylinePointCountId = &jni::GetFieldID(env, *polylineClass, "renderPointCount", "I");
+    polylineIdId = &jni::GetFieldID(env, *polylineClass, "id", "J");
 
     polygonClass = &jni::FindClass(env, "com/mapbox/mapboxsdk/annotations/Polygon");
     polygonClass = jni::NewGlobalRef(env, polygonClass).release();
     polygonAlphaId = &jni::GetFieldID(env, *polygonClass, "alpha", "F");
     polygonFillColorId = &jni::GetFieldID(env, *polygonClass, "fillColor", "I");
     polygonStrokeColorId = &jni::GetFieldID(env, *polygonClass, "strokeColor", "I");
-    polygonPointsId = &jni::GetFieldID(env, *polygonClass, "points", "Ljava/util/List;");
+    polygonCoordinatesId = &jni::GetFieldID(env, *polygonClass, "renderCoordinates", "[D");
+    polygonPointCountId = &jni::GetFieldID(env, *polygonClass, "renderPointCount", "I");
+    polygonIdId = &jni::GetFieldID(env, *polygonClass, "id", "J");
 
     jni::jclass* listClass = &jni::FindClass(env, "java/util/List");
     listToArrayId = &jni::GetMethodID(env, *listClass, "toArray", "()[Ljava/lang/Object;");
@@ -1701,13 +1950,20 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
         MAKE_NATIVE_METHOD(nativeSetBearingXY, "(JDDD)V"),
         MAKE_NATIVE_METHOD(nativeGetBearing, "(J)D"),
         MAKE_NATIVE_METHOD(nativeResetNorth, "(J)V"),
-        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[Lcom/mapbox/mapboxsdk/annotations/Marker;)[J"),
+        MAKE_NATIVE_METHOD(nativeAddMarkers, "(J[D[I[Ljava/lang/String;)[J"),
         MAKE_NATIVE_METHOD(nativeAddPolylines, "(J[Lcom/mapbox/mapboxsdk/annotations/Polyline;)[J"),
         MAKE_NATIVE_METHOD(nativeAddPolygons, "(J[Lcom/mapbox/mapboxsdk/annotations/Polygon;)[J"),
+        MAKE_NATIVE_METHOD(nativeUpdatePolylines, "(J[Lcom/mapbox/mapboxsdk/annotations/Polyline;)V"),
+        MAKE_NATIVE_METHOD(nativeUpdatePolygons, "(J[Lcom/mapbox/mapboxsdk/annotations/Polygon;)V"),
         MAKE_NATIVE_METHOD(nativeUpdateMarker, "(JJDDLjava/lang/String;)V"),
+        MAKE_NATIVE_METHOD(nativeUpdateMarkers, "(J[J[D[I[Ljava/lang/String;)V"),
+        MAKE_NATIVE_METHOD(nativeReinstallMarkers, "(J[J[D[I[Ljava/lang/String;)V"),
         MAKE_NATIVE_METHOD(nativeRemoveAnnotations, "(J[J)V"),
         MAKE_NATIVE_METHOD(nativeGetAnnotationsInBounds, "(JLcom/mapbox/mapboxsdk/geometry/LatLngBounds;)[J"),
         MAKE_NATIVE_METHOD(nativeAddAnnotationIcon, "(JLjava/lang/String;IIF[B)V"),
+        MAKE_NATIVE_METHOD(nativeAddAnnotationIconBuffer, "(JLjava/lang/String;IIIFLjava/nio/ByteBuffer;)V"),
+        MAKE_NATIVE_METHOD(nativeAddAnnotationIcons, "(J[Ljava/lang/String;[I[FIILjava/nio/ByteBuffer;)V"),
+        MAKE_NATIVE_METHOD(nativeRemoveAnnotationIcon, "(JLjava/lang/String;)V"),
         MAKE_NATIVE_METHOD(nativeSetVisibleCoordinateBounds, "(J[Lcom/mapbox/mapboxsdk/geometry/LatLng;Landroid/graphics/RectF;DJ)V"),
         MAKE_NATIVE_METHOD(nativeOnLowMemory, "(J)V"),
         MAKE_NATIVE_METHOD(nativeSetDebug, "(JZ)V"),
@@ -1719,6 +1975,7 @@ extern "C" JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *reserved) {
         MAKE_NATIVE_METHOD(nativeProjectedMetersForLatLng, "(JLcom/mapbox/mapboxsdk/geometry/LatLng;)Lcom/mapbox/mapboxsdk/geometry/ProjectedMeters;"),
         MAKE_NATIVE_METHOD(nativeLatLngForProjectedMeters, "(JLcom/mapbox/mapboxsdk/geometry/ProjectedMeters;)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativePixelForLatLng, "(JLcom/mapbox/mapboxsdk/geometry/LatLng;)Landroid/graphics/PointF;"),
+        MAKE_NATIVE_METHOD(nativePixelsForLatLngs, "(J[D[FI)V"),
         MAKE_NATIVE_METHOD(nativeLatLngForPixel, "(JLandroid/graphics/PointF;)Lcom/mapbox/mapboxsdk/geometry/LatLng;"),
         MAKE_NATIVE_METHOD(nativeGetTopOffsetPixelsForAnnotationSymbol, "(JLjava/lang/String;)D"),
         MAKE_NATIVE_METHOD(nativeJumpTo, "(JDLcom/mapbox/mapboxsdk/geometry/LatLng;DD)V"),